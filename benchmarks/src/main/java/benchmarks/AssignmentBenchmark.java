@@ -0,0 +1,87 @@
+package benchmarks;
+
+import controller.AssignmentController;
+import controller.CitizenController;
+import controller.ShelterController;
+import database.DatabaseManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AssignmentController.autoAssignShelter ทีละคน
+ * แต่ละ iteration เริ่มจากสำเนาฐานข้อมูลต้นแบบใหม่ (ขนาดตาม citizens เสมอ ไม่มีประชาชนเพิ่มสะสม)
+ * แล้วจัดสรรผู้ที่ยังไม่ได้รับการจัดสรรที่สุ่มไว้ BATCH คนพอดี (SingleShotTime ครั้งละ BATCH คน)
+ * ผลเป็นเวลาต่อการจัดสรร 1 คน (throughput = 1 / ค่านี้)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AssignmentBenchmark {
+    // ต้องไม่เกินจำนวนผู้ที่ยังไม่ได้รับการจัดสรรของฐานข้อมูลเล็กสุด (1000 คน ได้รับการจัดสรรแล้วทุกคนที่ 4)
+    static final int BATCH = 500;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int citizens;
+
+    private DatabaseManager dbManager;
+    private AssignmentController assignmentController;
+    private final int[] pending = new int[BATCH];
+    private final Random random = new Random(7);
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        dbManager = BenchmarkDatabase.open(citizens);
+        CitizenController citizenController = new CitizenController(dbManager);
+        ShelterController shelterController = new ShelterController(dbManager);
+        assignmentController = new AssignmentController(dbManager, shelterController, citizenController);
+
+        // สุ่มผู้ที่ยังไม่ได้รับการจัดสรร BATCH คนจากทั้งฐานข้อมูล (reservoir sampling)
+        int[] seen = { 0 };
+        dbManager.forEachUnassignedCitizen(false, citizen -> {
+            int index = seen[0]++;
+            if (index < BATCH) {
+                pending[index] = citizen.getId();
+            } else {
+                int replace = random.nextInt(index + 1);
+                if (replace < BATCH) {
+                    pending[replace] = citizen.getId();
+                }
+            }
+        });
+        if (seen[0] < BATCH) {
+            throw new IllegalStateException("ประชาชนที่ยังไม่ได้รับการจัดสรรมีไม่ถึง " + BATCH + " คน");
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        BenchmarkDatabase.close(dbManager);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void autoAssignShelter(Blackhole blackhole) throws Exception {
+        for (int citizenId : pending) {
+            blackhole.consume(assignmentController.autoAssignShelter(citizenId));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package benchmarks;
+
+import database.DatabaseConfig;
+import database.DatabaseManager;
+import model.Assignment;
+import model.Citizen;
+import model.Shelter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ฐานข้อมูล SQLite ชั่วคราวสำหรับ benchmark
+ * สร้างไฟล์ต้นแบบตามจำนวนประชาชนครั้งเดียว (เก็บใน java.io.tmpdir) แล้ว copy ไปใช้ทุก trial
+ * ข้อมูล: ศูนย์พักพิง SHELTERS แห่ง (ความเสี่ยงต่ำครึ่งหนึ่ง), ประชาชน n คน
+ * โดยทุกคนที่ 4 ได้รับการจัดสรรแล้ว
+ */
+final class BenchmarkDatabase {
+    static final int SHELTERS = 50;
+    // ความจุมากพอที่ benchmark การจัดสรรจะไม่ทำให้ศูนย์เต็ม
+    static final int SHELTER_CAPACITY = 10_000_000;
+
+    private static final int CHUNK = 10_000;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * copy ฐานข้อมูลต้นแบบไปยังไฟล์ชั่วคราวใหม่แล้วเปิดใช้งาน
+     */
+    static DatabaseManager open(int citizens) throws IOException, SQLException {
+        File template = template(citizens);
+        File file = File.createTempFile("shelter-bench", ".db");
+        Files.copy(template.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        file.deleteOnExit();
+        return new DatabaseManager(new DatabaseConfig(file.getPath()));
+    }
+
+    /**
+     * ปิดฐานข้อมูลและลบไฟล์ชั่วคราว
+     */
+    static void close(DatabaseManager dbManager) {
+        String path = dbManager.getConfig().getPath();
+        dbManager.close();
+        for (String suffix : new String[] { "", "-wal", "-shm", ".journal" }) {
+            new File(path + suffix).delete();
+        }
+    }
+
+    /**
+     * ประชาชนใหม่ที่ยังไม่ได้รับการจัดสรร (ชื่อไม่ซ้ำตาม prefix)
+     */
+    static List<Citizen> newCitizens(String prefix, int count, Random random) {
+        List<Citizen> citizens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Citizen citizen = new Citizen();
+            citizen.setName(prefix + i);
+            citizen.setAge(1 + random.nextInt(90));
+            citizen.setHealthCondition(random.nextInt(5) == 0 ? "โรคหัวใจ" : "ปกติ");
+            citizen.setType(Citizen.CitizenType.values()[random.nextInt(Citizen.CitizenType.values().length)]);
+            citizens.add(citizen);
+        }
+        return citizens;
+    }
+
+    private static synchronized File template(int citizens) throws SQLException {
+        File file = new File(System.getProperty("java.io.tmpdir"), "shelter-bench-template-" + citizens + ".db");
+        if (file.exists()) {
+            return file;
+        }
+
+        File building = new File(file.getPath() + ".tmp");
+        building.delete();
+        DatabaseManager dbManager = new DatabaseManager(new DatabaseConfig(building.getPath()));
+        try {
+            List<Shelter> shelters = new ArrayList<>();
+            for (int i = 0; i < SHELTERS; i++) {
+                shelters.add(new Shelter(0, "ศูนย์ทดสอบ " + (i + 1), SHELTER_CAPACITY, 0,
+                        i % 2 == 0 ? Shelter.RiskLevel.LOW : Shelter.RiskLevel.MEDIUM));
+            }
+            dbManager.addSheltersBatch(shelters);
+
+            Random random = new Random(42);
+            LocalDate today = LocalDate.now();
+            for (int start = 0; start < citizens; start += CHUNK) {
+                List<Citizen> chunk = newCitizens("ประชาชน " + start + "-", Math.min(CHUNK, citizens - start), random);
+                dbManager.addCitizensBatch(chunk);
+
+                List<Assignment> assignments = new ArrayList<>();
+                for (int i = 0; i < chunk.size(); i += 4) {
+                    Citizen citizen = chunk.get(i);
+                    // ผู้มีความเสี่ยงอยู่ศูนย์ความเสี่ยงต่ำ (index คู่) ตาม business rule
+                    Shelter shelter = shelters.get((random.nextInt(SHELTERS / 2) * 2)
+                            + (citizen.hasHealthRisk() ? 0 : random.nextInt(2)));
+                    assignments.add(new Assignment(0, citizen.getId(), shelter.getId(), today, "benchmark"));
+                }
+                dbManager.addAssignmentsBatch(assignments);
+            }
+        } finally {
+            dbManager.close();
+        }
+
+        if (!building.renameTo(file)) {
+            throw new SQLException("สร้างฐานข้อมูลต้นแบบไม่สำเร็จ: " + file);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import controller.CitizenController;
+import database.DatabaseManager;
+import model.Citizen;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * query รายชื่อผู้ที่ยังไม่ได้รับการจัดสรร (ทั้งหมด / เรียงตามลำดับความสำคัญ / หน้าแรก)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CitizenQueryBenchmark {
+    private static final int PAGE_SIZE = 100;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int citizens;
+
+    private DatabaseManager dbManager;
+    private CitizenController citizenController;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dbManager = BenchmarkDatabase.open(citizens);
+        citizenController = new CitizenController(dbManager);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.close(dbManager);
+    }
+
+    @Benchmark
+    public List<Citizen> getUnassignedCitizens() {
+        return citizenController.getUnassignedCitizens();
+    }
+
+    @Benchmark
+    public List<Citizen> getCitizensSortedByPriority() {
+        return citizenController.getCitizensSortedByPriority();
+    }
+
+    @Benchmark
+    public List<Citizen> getCitizensSortedByPriorityPage() {
+        return citizenController.getCitizensSortedByPriority(0, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import database.DatabaseManager;
+import model.Citizen;
+import model.Shelter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * การเขียนพร้อมกันจากหลาย thread เหมือนช่วงรับลงทะเบียนหนาแน่น (ทุกครั้งรอจน commit ลงดิสก์)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class ConcurrentWriteBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    public int citizens;
+
+    private DatabaseManager dbManager;
+    private final AtomicLong nextName = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dbManager = BenchmarkDatabase.open(citizens);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.close(dbManager);
+    }
+
+    @Benchmark
+    public int addCitizen() throws Exception {
+        Citizen citizen = new Citizen(0, "concurrent " + nextName.incrementAndGet(), 30, "ปกติ",
+                LocalDate.now(), Citizen.CitizenType.GENERAL);
+        return dbManager.addCitizen(citizen);
+    }
+
+    @Benchmark
+    public boolean incrementShelterOccupancy() throws Exception {
+        return dbManager.incrementShelterOccupancy(1 + ThreadLocalRandom.current().nextInt(BenchmarkDatabase.SHELTERS));
+    }
+}
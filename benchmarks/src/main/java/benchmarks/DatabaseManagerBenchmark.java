@@ -0,0 +1,73 @@
+package benchmarks;
+
+import database.DatabaseManager;
+import model.Citizen;
+import model.Shelter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CRUD พื้นฐานของ DatabaseManager (อ่านตาม id, เพิ่ม, แก้ไข)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseManagerBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    public int citizens;
+
+    private DatabaseManager dbManager;
+    private final AtomicLong nextName = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dbManager = BenchmarkDatabase.open(citizens);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.close(dbManager);
+    }
+
+    @Benchmark
+    public Citizen getCitizenById() throws Exception {
+        return dbManager.getCitizenById(1 + ThreadLocalRandom.current().nextInt(citizens));
+    }
+
+    @Benchmark
+    public Shelter getShelterById() throws Exception {
+        return dbManager.getShelterById(1 + ThreadLocalRandom.current().nextInt(BenchmarkDatabase.SHELTERS));
+    }
+
+    @Benchmark
+    public int addCitizen() throws Exception {
+        Citizen citizen = new Citizen(0, "benchmark " + nextName.incrementAndGet(), 30, "ปกติ",
+                LocalDate.now(), Citizen.CitizenType.GENERAL);
+        return dbManager.addCitizen(citizen);
+    }
+
+    @Benchmark
+    public void updateShelter() throws Exception {
+        Shelter shelter = dbManager.getShelterById(1 + ThreadLocalRandom.current().nextInt(BenchmarkDatabase.SHELTERS));
+        dbManager.updateShelter(shelter);
+    }
+}
@@ -6,7 +6,7 @@ REM สร้าง directory สำหรับ compiled classes
 if not exist "bin" mkdir bin
 
 REM Compile โปรเจกต์ (รองรับ Java 8)
-javac -source 8 -target 8 -encoding UTF-8 -d bin -cp "lib/*;." src/model/*.java src/database/*.java src/controller/*.java src/view/*.java src/Main.java
+javac -source 8 -target 8 -encoding UTF-8 -d bin -cp "lib/*;." src/model/*.java src/database/*.java src/controller/*.java src/event/*.java src/metrics/*.java src/server/*.java src/view/*.java src/tools/*.java src/Main.java
 
 if %ERRORLEVEL% EQU 0 (
     echo.
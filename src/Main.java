@@ -1,196 +1,131 @@
 import controller.AssignmentController;
 import controller.CitizenController;
+import controller.ImportController;
 import controller.ShelterController;
+import controller.SnapshotController;
+import controller.StatisticsController;
+import controller.WorkingSetSnapshot;
 import database.DatabaseManager;
-import model.Citizen;
-import model.Shelter;
+import event.EventBus;
+import metrics.Metrics;
+import server.IntakeServer;
+import tools.DatasetGenerator;
 import view.MainFrame;
 
 import javax.swing.*;
-import java.sql.SQLException;
+import java.io.IOException;
+import java.time.Instant;
 
 /**
  * Main class สำหรับเริ่มต้นโปรแกรม
  */
 public class Main {
     public static void main(String[] args) {
+        // --server [port]: เปิด HTTP API แทนหน้าจอ Swing
+        boolean serverMode = args.length > 0 && "--server".equals(args[0]);
+
         // ใช้ Look and Feel ของระบบ
-        try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (!serverMode) {
+            try {
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
         }
 
         // สร้าง Database Manager
         DatabaseManager dbManager = new DatabaseManager();
+        if (dbManager.getRecoveredJournalRecords() > 0) {
+            System.out.println("กู้คืนข้อมูลจาก journal " + dbManager.getRecoveredJournalRecords() + " รายการ");
+        }
+
+        // ตรวจสอบและเพิ่มข้อมูลตัวอย่าง (ถ้ายังไม่มี) ก่อนสร้าง controller เพื่อให้ตัวนับและ cache เริ่มจากข้อมูลชุดนี้
+        DatasetGenerator.createSampleDataIfEmpty(dbManager);
+
+        // เริ่มจาก snapshot ที่บันทึกไว้ (ถ้ามี) แทนการนับ/โหลดใหม่จากฐานข้อมูล แล้วตรวจสอบเบื้องหลัง
+        boolean snapshotEnabled = Boolean.parseBoolean(System.getProperty("shelter.snapshot", "true"));
+        WorkingSetSnapshot snapshot = snapshotEnabled ? SnapshotController.load(dbManager) : null;
+        if (snapshot != null) {
+            System.out.println("เริ่มจาก snapshot ที่บันทึกเมื่อ " + Instant.ofEpochMilli(snapshot.getSavedAt()));
+        }
 
         // สร้าง Controllers
-        CitizenController citizenController = new CitizenController(dbManager);
-        ShelterController shelterController = new ShelterController(dbManager);
+        // Controller ทุกตัวใช้ EventBus เดียวกัน เพื่อให้ View อัพเดทเฉพาะแถวที่เปลี่ยน
+        EventBus eventBus = new EventBus();
+        CitizenController citizenController = new CitizenController(dbManager, eventBus);
+        ShelterController shelterController = new ShelterController(dbManager, eventBus);
         AssignmentController assignmentController = new AssignmentController(
                 dbManager, shelterController, citizenController);
+        ImportController importController = new ImportController(dbManager, shelterController);
+        StatisticsController statisticsController = new StatisticsController(dbManager, eventBus, snapshot);
+        SnapshotController snapshotController = new SnapshotController(
+                dbManager, citizenController, shelterController, statisticsController);
+        snapshotController.restore(snapshot,
+                Boolean.parseBoolean(System.getProperty("shelter.waitingList.live", "true")));
+        if (snapshotEnabled) {
+            snapshotController.startPeriodicSave(Integer.getInteger("shelter.snapshot.intervalSeconds", 300));
+        }
+
+        if (serverMode) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : IntakeServer.DEFAULT_PORT;
+            startServer(port, dbManager, snapshotEnabled ? snapshotController : null, new IntakeServer(
+                    citizenController, shelterController, assignmentController, statisticsController));
+            startMetrics();
+            return;
+        }
 
-        // ตรวจสอบและเพิ่มข้อมูลตัวอย่าง (ถ้ายังไม่มี)
-        initializeSampleData(dbManager, shelterController, citizenController);
+        // หน้าต่างหลักปิดด้วย EXIT_ON_CLOSE จึงบันทึก snapshot และปิดฐานข้อมูลใน shutdown hook
+        // (ปิดฐานข้อมูลเพื่อให้ writer บันทึกงานที่ค้างในคิว ปิด journal และ checkpoint WAL)
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (snapshotEnabled) {
+                snapshotController.save();
+            }
+            dbManager.close();
+        }));
 
         // สร้างและแสดง GUI
         SwingUtilities.invokeLater(() -> {
             MainFrame mainFrame = new MainFrame(
                     citizenController,
                     shelterController,
-                    assignmentController);
+                    assignmentController,
+                    importController,
+                    statisticsController);
             mainFrame.display();
         });
+
+        // ทำบน main thread ขณะ EDT สร้างหน้าจอ (เปิด platform MBeanServer ใช้เวลาหลายสิบ ms)
+        startMetrics();
     }
 
     /**
-     * เพิ่มข้อมูลตัวอย่างตาม requirement:
-     * - ศูนย์พักพิง > 5 แห่ง
-     * - ประชาชน ≥ 30 คน
-     * - ต้องมีประชาชนที่ไม่ได้รับการจัดสรร
+     * เปิด metric ผ่าน JMX (domain "shelter") และพิมพ์ตาราง metric เป็นระยะถ้ากำหนด shelter.metrics.dumpSeconds
      */
-    private static void initializeSampleData(DatabaseManager dbManager,
-            ShelterController shelterController,
-            CitizenController citizenController) {
-        try {
-            // ตรวจสอบว่ามีข้อมูลอยู่แล้วหรือไม่
-            if (!shelterController.getAllShelters().isEmpty()) {
-                System.out.println("ข้อมูลตัวอย่างมีอยู่แล้ว");
-                return;
-            }
-
-            System.out.println("กำลังสร้างข้อมูลตัวอย่าง...");
-
-            // สร้างศูนย์พักพิง 8 แห่ง
-            String[] shelterNames = {
-                    "ศูนย์พักพิงโรงเรียนบ้านสวน",
-                    "ศูนย์พักพิงวัดใหญ่",
-                    "ศูนย์พักพิงโรงพยาบาลชุมชน",
-                    "ศูนย์พักพิงหอประชุมเทศบาล",
-                    "ศูนย์พักพิงสนามกีฬาเอนกประสงค์",
-                    "ศูนย์พักพิงโรงเรียนบ้านเหนือ",
-                    "ศูนย์พักพิงวัดป่า",
-                    "ศูนย์พักพิงศาลาประชาคม"
-            };
-
-            int[] capacities = { 100, 150, 80, 120, 200, 90, 70, 1 };
-            Shelter.RiskLevel[] riskLevels = {
-                    Shelter.RiskLevel.LOW,
-                    Shelter.RiskLevel.LOW,
-                    Shelter.RiskLevel.LOW,
-                    Shelter.RiskLevel.MEDIUM,
-                    Shelter.RiskLevel.MEDIUM,
-                    Shelter.RiskLevel.MEDIUM,
-                    Shelter.RiskLevel.HIGH,
-                    Shelter.RiskLevel.HIGH
-            };
-
-            for (int i = 0; i < shelterNames.length; i++) {
-                shelterController.addShelter(shelterNames[i], capacities[i], riskLevels[i]);
-            }
-
-            System.out.println("สร้างศูนย์พักพิง " + shelterNames.length + " แห่ง");
-
-            // สร้างประชาชน 35 คน
-            String[] citizenNames = {
-                    // กลุ่มเด็ก (10 คน)
-                    "เด็กหญิงสมหมาย", "เด็กชายวิชัย", "เด็กหญิงนิภา", "เด็กชายสมชาย",
-                    "เด็กหญิงมาลี", "เด็กชายประเสริฐ", "เด็กหญิงสุดา", "เด็กชายธนา",
-                    "เด็กหญิงจิตรา", "เด็กชายสมศักดิ์",
-
-                    // กลุ่มผู้สูงอายุ (8 คน)
-                    "นายสมบัติ ใจดี", "นางสาวจันทร์ แสงทอง", "นายประดิษฐ์ มั่นคง",
-                    "นางแสง รุ่งเรือง", "นายสมพร ศรีสุข", "นางประไพ สวัสดี",
-                    "นายวิรัช เจริญ", "นางบุญมี สมบูรณ์",
-
-                    // กลุ่มเสี่ยง (7 คน)
-                    "นายอนุชา ป่วยไข้", "นางสาวพิมพ์ใจ หวัดหนัก", "นายประสิทธิ์ เจ็บไข้",
-                    "นางกรรณิการ์ ชรา", "นายวีระ โรคเรื้อรัง", "นางสาววารี หอบหืด",
-                    "นายสมบูรณ์ เบาหวาน",
-
-                    // VIP (3 คน)
-                    "นายกำนัน สมหมาย", "นายกรชิต นายอำเภอ", "พันตำรวจ วิชัย รักษาดี",
-
-                    // ประชาชนทั่วไป (7 คน)
-                    "นายสมชาย ทนงาม", "นางสาวนิดา สวยงาม", "นายธนา รวยดี",
-                    "นางจริยา ขยัน", "นายชัยวัฒน์ แข็งแรง", "นางสาวพรทิพย์ ดีเด่น",
-                    "นายกิตติ มั่งคั่ง"
-            };
-
-            int[] ages = {
-                    // เด็ก
-                    8, 10, 12, 15, 7, 9, 11, 14, 16, 13,
-
-                    // ผู้สูงอายุ
-                    65, 70, 68, 75, 62, 72, 80, 67,
-
-                    // กลุ่มเสี่ยง
-                    45, 38, 50, 55, 42, 48, 52,
-
-                    // VIP
-                    50, 45, 40,
-
-                    // ทั่วไป
-                    30, 28, 35, 32, 40, 25, 38
-            };
-
-            String[] healthConditions = {
-                    // เด็ก
-                    "ปกติ", "ปกติ", "ปกติ", "ปกติ", "ปกติ", "ปกติ", "ปกติ", "ปกติ", "ปกติ", "ปกติ",
-
-                    // ผู้สูงอายุ
-                    "ปกติ", "โรคข้อเข่า", "ปกติ", "โรคหัวใจ", "ปกติ", "ปกติ", "เบาหวาน", "ปกติ",
-
-                    // กลุ่มเสี่ยง
-                    "ไข้หวัด", "ไข้สูง", "มีอาการป่วย", "โรคข้อ", "โรคเรื้อรัง", "โรคหอบหืด", "เบาหวานความดันสูง",
-
-                    // VIP
-                    "ปกติ", "ปกติ", "แข็งแรงดี",
-
-                    // ทั่วไป
-                    "ปกติ", "ปกติ", "ปกติ", "ปกติ", "ปกติ", "ปกติ", "ปกติ"
-            };
-
-            Citizen.CitizenType[] types = {
-                    // เด็ก
-                    Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL,
-                    Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL,
-                    Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL,
-                    Citizen.CitizenType.GENERAL,
-
-                    // ผู้สูงอายุ
-                    Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL,
-                    Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL,
-                    Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL,
-
-                    // กลุ่มเสี่ยง
-                    Citizen.CitizenType.AT_RISK, Citizen.CitizenType.AT_RISK, Citizen.CitizenType.AT_RISK,
-                    Citizen.CitizenType.AT_RISK, Citizen.CitizenType.AT_RISK, Citizen.CitizenType.AT_RISK,
-                    Citizen.CitizenType.AT_RISK,
-
-                    // VIP
-                    Citizen.CitizenType.VIP, Citizen.CitizenType.VIP, Citizen.CitizenType.VIP,
+    private static void startMetrics() {
+        if (Boolean.parseBoolean(System.getProperty("shelter.metrics.jmx", "true"))) {
+            Metrics.startJmx();
+        }
+        Metrics.startDump(Integer.getInteger("shelter.metrics.dumpSeconds", 0), System.out);
+    }
 
-                    // ทั่วไป
-                    Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL,
-                    Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL, Citizen.CitizenType.GENERAL,
-                    Citizen.CitizenType.GENERAL
-            };
+    private static void startServer(int port, DatabaseManager dbManager, SnapshotController snapshotController,
+            IntakeServer server) {
+        try {
+            server.start(port);
+        } catch (IOException e) {
+            System.err.println("เปิด server ที่ port " + port + " ไม่สำเร็จ: " + e.getMessage());
+            dbManager.close();
+            System.exit(1);
+        }
 
-            for (int i = 0; i < citizenNames.length; i++) {
-                citizenController.registerCitizen(
-                        citizenNames[i],
-                        ages[i],
-                        healthConditions[i],
-                        types[i]);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            if (snapshotController != null) {
+                snapshotController.save();
             }
-
-            System.out.println("สร้างประชาชน " + citizenNames.length + " คน");
-            System.out.println("ข้อมูลตัวอย่างพร้อมใช้งาน!");
-
-        } catch (SQLException e) {
-            System.err.println("เกิดข้อผิดพลาดในการสร้างข้อมูลตัวอย่าง: " + e.getMessage());
-            e.printStackTrace();
-        }
+            dbManager.close();
+        }));
+        System.out.println("Intake API พร้อมใช้งานที่ http://localhost:" + server.getPort()
+                + (server.isVirtualThreads() ? " (virtual threads)" : " (thread pool)"));
     }
 }
@@ -1,22 +1,31 @@
 package controller;
 
 import database.DatabaseManager;
+import event.CitizenAssigned;
+import event.OccupancyChanged;
+import metrics.Metrics;
 import model.Assignment;
 import model.Citizen;
 import model.Shelter;
 
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller สำหรับจัดการ Assignment (การจัดสรรที่พักพิง)
  */
 public class AssignmentController {
+    // จำนวนครั้งที่ลองศูนย์ถัดไปเมื่อดัชนีที่ว่างไม่ตรงกับฐานข้อมูล
+    private static final int MAX_AUTO_ASSIGN_RETRIES = 3;
+
     private DatabaseManager dbManager;
     private ShelterController shelterController;
     private CitizenController citizenController;
+    private BulkAssignmentEngine bulkAssignmentEngine;
 
     public AssignmentController(DatabaseManager dbManager,
             ShelterController shelterController,
@@ -24,15 +33,20 @@ public class AssignmentController {
         this.dbManager = dbManager;
         this.shelterController = shelterController;
         this.citizenController = citizenController;
+        this.bulkAssignmentEngine = new BulkAssignmentEngine(dbManager, shelterController, citizenController, this);
     }
 
     /**
      * จัดสรรศูนย์พักพิงให้กับประชาชน
      */
     public int assignShelter(int citizenId, int shelterId) throws SQLException {
+        return Metrics.time("assignment.assignShelter", () -> doAssignShelter(citizenId, shelterId));
+    }
+
+    private int doAssignShelter(int citizenId, int shelterId) throws SQLException {
         // ตรวจสอบข้อมูล
-        Citizen citizen = dbManager.getCitizenById(citizenId);
-        Shelter shelter = dbManager.getShelterById(shelterId);
+        Citizen citizen = citizenController.findCitizen(citizenId);
+        Shelter shelter = shelterController.findShelter(shelterId);
 
         if (citizen == null) {
             throw new IllegalArgumentException("ไม่พบข้อมูลประชาชน");
@@ -41,36 +55,66 @@ public class AssignmentController {
             throw new IllegalArgumentException("ไม่พบข้อมูลศูนย์พักพิง");
         }
 
-        // ตรวจสอบว่าประชาชนได้รับการจัดสรรแล้วหรือยัง
-        if (dbManager.isAssigned(citizenId)) {
-            throw new SQLException("ประชาชนคนนี้ได้รับการจัดสรรแล้ว");
-        }
-
-        // ตรวจสอบความเหมาะสม (Business Rules)
-        if (!shelter.canAccommodate(citizen)) {
-            if (shelter.isFull()) {
-                throw new SQLException("ศูนย์พักพิงเต็มแล้ว ไม่สามารถรับเพิ่มได้");
-            } else if (citizen.hasHealthRisk() && shelter.getRiskLevel() != Shelter.RiskLevel.LOW) {
-                throw new SQLException("ผู้มีความเสี่ยงด้านสุขภาพต้องถูกจัดไปยังศูนย์ความเสี่ยงต่ำเท่านั้น");
-            }
+        ShelterCapacityIndex index = shelterController.getCapacityIndex();
+        boolean reserved = index.tryReserve(shelterId, citizen.hasHealthRisk());
+        int assignmentId = persistAssignment(citizen, shelter, reserved);
+        if (!reserved) {
+            // ดัชนีบอกว่าจองไม่ได้แต่ฐานข้อมูลยอมรับ: ดัชนีไม่ตรงกับฐานข้อมูล
+            shelterController.refreshCapacity(shelterId);
         }
+        return assignmentId;
+    }
 
+    /**
+     * บันทึกการจัดสรรลงฐานข้อมูล (ขั้นตอนเดียวที่ทำทีละรายการผ่าน writer connection)
+     * ถ้าไม่สำเร็จจะคืนที่ที่จองไว้ในดัชนี
+     */
+    private int persistAssignment(Citizen citizen, Shelter shelter, boolean reserved) throws SQLException {
         // สร้าง Assignment
         Assignment assignment = new Assignment();
-        assignment.setCitizenId(citizenId);
-        assignment.setShelterId(shelterId);
+        assignment.setCitizenId(citizen.getId());
+        assignment.setShelterId(shelter.getId());
         assignment.setAssignmentDate(LocalDate.now());
         assignment.setNotes(generateAssignmentNotes(citizen, shelter));
 
-        int assignmentId = dbManager.addAssignment(assignment);
-
-        // อัพเดทจำนวนคนในศูนย์พักพิง
-        shelterController.incrementOccupancy(shelterId);
+        // ฐานข้อมูลตรวจสอบความจุ, ความเสี่ยง (Business Rules) และการจัดสรรซ้ำอีกครั้ง
+        // พร้อมอัพเดทจำนวนคนใน transaction เดียวกัน
+        int assignmentId;
+        try {
+            assignmentId = dbManager.assignCitizen(assignment, citizen.hasHealthRisk());
+        } catch (SQLException | RuntimeException e) {
+            if (reserved) {
+                shelterController.getCapacityIndex().release(shelter.getId());
+            }
+            throw e;
+        }
 
+        assignment.setId(assignmentId);
+        publishAssigned(assignment, citizen, shelter);
         return assignmentId;
     }
 
-    private String generateAssignmentNotes(Citizen citizen, Shelter shelter) {
+    /**
+     * ประกาศ CitizenAssigned และ OccupancyChanged พร้อมจำนวนคนล่าสุดของศูนย์
+     */
+    private void publishAssigned(Assignment assignment, Citizen citizen, Shelter shelter) {
+        // แถวของศูนย์หลังบันทึกมาจาก UPDATE ... RETURNING: เขียนลง cache แทนการล้างแล้วอ่านใหม่
+        Shelter current = assignment.getShelter();
+        if (current != null) {
+            shelterController.shelterAssigned(current);
+        } else {
+            shelterController.invalidateShelter(shelter.getId());
+            current = new Shelter(shelter.getId(), shelter.getName(), shelter.getMaxCapacity(),
+                    shelter.getCurrentOccupancy() + 1, shelter.getRiskLevel());
+        }
+
+        assignment.setCitizen(citizen);
+        assignment.setShelter(current);
+        shelterController.getEventBus().publish(new CitizenAssigned(assignment));
+        shelterController.getEventBus().publish(new OccupancyChanged(current));
+    }
+
+    String generateAssignmentNotes(Citizen citizen, Shelter shelter) {
         StringBuilder notes = new StringBuilder();
 
         if (citizen.isPriorityGroup()) {
@@ -89,64 +133,65 @@ public class AssignmentController {
     }
 
     /**
-     * จัดสรรศูนย์พักพิงแบบอัตโนมัติ
+     * จัดสรรศูนย์พักพิงแบบอัตโนมัติ (เลือกศูนย์ที่มีที่ว่างมากที่สุดใน O(log n))
      */
     public int autoAssignShelter(int citizenId) throws SQLException {
-        Citizen citizen = dbManager.getCitizenById(citizenId);
+        return Metrics.time("assignment.autoAssignShelter", () -> doAutoAssignShelter(citizenId));
+    }
+
+    private int doAutoAssignShelter(int citizenId) throws SQLException {
+        Citizen citizen = citizenController.findCitizen(citizenId);
         if (citizen == null) {
             throw new IllegalArgumentException("ไม่พบข้อมูลประชาชน");
         }
 
-        // หาศูนย์พักพิงที่เหมาะสม
-        List<Shelter> shelters = shelterController.getAllShelters();
-        Shelter bestShelter = null;
-
+        // หาศูนย์พักพิงที่เหมาะสมจากดัชนีในหน่วยความจำ (ไม่อ่านฐานข้อมูล)
         // ถ้ามีความเสี่ยงด้านสุขภาพ ต้องเลือกศูนย์ความเสี่ยงต่ำ
-        if (citizen.hasHealthRisk()) {
-            for (Shelter shelter : shelters) {
-                if (shelter.getRiskLevel() == Shelter.RiskLevel.LOW &&
-                        shelter.canAccommodate(citizen)) {
-                    if (bestShelter == null ||
-                            shelter.getAvailableSpace() > bestShelter.getAvailableSpace()) {
-                        bestShelter = shelter;
-                    }
-                }
+        ShelterCapacityIndex index = shelterController.getCapacityIndex();
+        boolean requireLowRisk = citizen.hasHealthRisk();
+
+        for (int attempt = 0; ; ) {
+            int shelterId = index.findBestShelterId(requireLowRisk);
+            if (shelterId < 0) {
+                throw new SQLIntegrityConstraintViolationException("ไม่พบศูนย์พักพิงที่เหมาะสม");
             }
-        } else {
-            // เลือกศูนย์ที่มีที่ว่างมากที่สุด
-            for (Shelter shelter : shelters) {
-                if (shelter.canAccommodate(citizen)) {
-                    if (bestShelter == null ||
-                            shelter.getAvailableSpace() > bestShelter.getAvailableSpace()) {
-                        bestShelter = shelter;
-                    }
-                }
+            if (!index.tryReserve(shelterId, requireLowRisk)) {
+                continue; // ที่ว่างสุดท้ายถูกจองไปก่อน: หาศูนย์ใหม่
+            }
+
+            Shelter shelter = shelterController.findShelter(shelterId);
+            if (shelter == null) {
+                index.release(shelterId);
+                shelterController.refreshCapacity(shelterId);
+                continue;
             }
-        }
 
-        if (bestShelter == null) {
-            throw new SQLException("ไม่พบศูนย์พักพิงที่เหมาะสม");
+            try {
+                return persistAssignment(citizen, shelter, true);
+            } catch (SQLException e) {
+                // ดัชนีอาจไม่ตรงกับฐานข้อมูล: อ่านค่าจริงแล้วลองศูนย์ถัดไป
+                // ถ้าศูนย์ยังมีที่ว่างอยู่ แสดงว่าสาเหตุไม่ใช่ความจุ (เช่น จัดสรรซ้ำ)
+                shelterController.refreshCapacity(shelterId);
+                if (++attempt > MAX_AUTO_ASSIGN_RETRIES || index.getAvailableSpace(shelterId) > 0) {
+                    throw e;
+                }
+            }
         }
+    }
 
-        return assignShelter(citizenId, bestShelter.getId());
+    /**
+     * ตัวจัดสรรแบบกลุ่มสำหรับรายชื่อที่รอทั้งหมด
+     */
+    public BulkAssignmentEngine getBulkAssignmentEngine() {
+        return bulkAssignmentEngine;
     }
 
     /**
-     * ดึงข้อมูลการจัดสรรทั้งหมด พร้อมข้อมูล Citizen และ Shelter
+     * ดึงข้อมูลการจัดสรรทั้งหมด พร้อมข้อมูล Citizen และ Shelter (JOIN ใน query เดียว)
      */
     public List<Assignment> getAllAssignmentsWithDetails() {
         try {
-            List<Assignment> assignments = dbManager.getAllAssignments();
-
-            // เติมข้อมูล Citizen และ Shelter
-            for (Assignment assignment : assignments) {
-                Citizen citizen = dbManager.getCitizenById(assignment.getCitizenId());
-                Shelter shelter = dbManager.getShelterById(assignment.getShelterId());
-                assignment.setCitizen(citizen);
-                assignment.setShelter(shelter);
-            }
-
-            return assignments;
+            return dbManager.getAssignmentsWithDetails();
         } catch (SQLException e) {
             e.printStackTrace();
             return new ArrayList<>();
@@ -158,17 +203,7 @@ public class AssignmentController {
      */
     public List<Assignment> getAssignmentsByShelterId(int shelterId) {
         try {
-            List<Assignment> assignments = dbManager.getAssignmentsByShelterId(shelterId);
-
-            // เติมข้อมูล Citizen และ Shelter
-            for (Assignment assignment : assignments) {
-                Citizen citizen = dbManager.getCitizenById(assignment.getCitizenId());
-                Shelter shelter = dbManager.getShelterById(assignment.getShelterId());
-                assignment.setCitizen(citizen);
-                assignment.setShelter(shelter);
-            }
-
-            return assignments;
+            return dbManager.getAssignmentsWithDetailsByShelterId(shelterId);
         } catch (SQLException e) {
             e.printStackTrace();
             return new ArrayList<>();
@@ -186,4 +221,22 @@ public class AssignmentController {
             return false;
         }
     }
+
+    // ==================== Async (ไม่บล็อก Swing EDT) ====================
+
+    public CompletableFuture<Integer> assignShelterAsync(int citizenId, int shelterId) {
+        return AsyncExecutor.submit(() -> assignShelter(citizenId, shelterId));
+    }
+
+    public CompletableFuture<Integer> autoAssignShelterAsync(int citizenId) {
+        return AsyncExecutor.submit(() -> autoAssignShelter(citizenId));
+    }
+
+    public CompletableFuture<List<Assignment>> getAllAssignmentsWithDetailsAsync() {
+        return AsyncExecutor.submit(this::getAllAssignmentsWithDetails);
+    }
+
+    public CompletableFuture<List<Assignment>> getAssignmentsByShelterIdAsync(int shelterId) {
+        return AsyncExecutor.submit(() -> getAssignmentsByShelterId(shelterId));
+    }
 }
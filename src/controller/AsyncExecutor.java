@@ -0,0 +1,70 @@
+package controller;
+
+import metrics.LatencyTimer;
+import metrics.Metrics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pool กลางสำหรับเมธอด ...Async ของ controller
+ * งานฐานข้อมูลจึงไม่ทำงานบน Swing EDT (ผลลัพธ์ต้องส่งกลับ EDT เองก่อนแตะ UI)
+ * เวลารอคิวบันทึกใน executor.wait จำนวนงานในคิว/ที่กำลังทำเป็น gauge executor.queue/executor.active
+ */
+public final class AsyncExecutor {
+    private static final int THREADS = 4;
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(THREADS, THREADS,
+            0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "db-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private static final LatencyTimer WAIT = Metrics.timer("executor.wait");
+
+    static {
+        Metrics.gauge("executor.queue", () -> EXECUTOR.getQueue().size());
+        Metrics.gauge("executor.active", EXECUTOR::getActiveCount);
+    }
+
+    /**
+     * งานที่ส่งเข้า pool (โยน checked exception ได้ เช่น SQLException)
+     */
+    public interface Task<T> {
+        T call() throws Exception;
+    }
+
+    private AsyncExecutor() {
+    }
+
+    /**
+     * รันงานใน pool ถ้างานโยน exception จะ complete แบบ exceptionally ด้วย exception นั้น
+     */
+    public static <T> CompletableFuture<T> submit(Task<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long submittedNanos = System.nanoTime();
+        EXECUTOR.execute(() -> {
+            WAIT.record(submittedNanos, false);
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+    }
+}
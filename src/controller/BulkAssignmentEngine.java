@@ -0,0 +1,326 @@
+package controller;
+
+import database.DatabaseManager;
+import event.BulkDataChanged;
+import event.CitizenAssigned;
+import event.EventBus;
+import event.OccupancyChanged;
+import metrics.Metrics;
+import model.Assignment;
+import model.Citizen;
+import model.Shelter;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * จัดสรรที่พักพิงให้ประชาชนที่รอทั้งหมดในครั้งเดียว
+ * - เดินตามลำดับความสำคัญ (getCitizensSortedByPriority) และจองศูนย์จากดัชนีที่ว่างในหน่วยความจำ
+ *   ด้วย tryReserve เหมือนการจัดสรรทีละคน จึงไม่แย่งที่สุดท้ายกับการจัดสรรที่กำลังทำพร้อมกัน
+ * - บันทึกลงฐานข้อมูลเป็นชุด (transaction ละ chunkSize คน)
+ * - สั่งให้ทำงานต่อเนื่องเป็นระยะใน background ได้ เพื่อรองรับผู้ลงทะเบียนใหม่
+ * - ยกเลิกรอบที่กำลังทำได้ด้วยการ interrupt thread ที่ทำงาน (stopContinuous ทำให้เอง)
+ * - รอบเล็กประกาศ CitizenAssigned/OccupancyChanged ทุกชุดที่บันทึก รอบใหญ่ประกาศ BulkDataChanged ครั้งเดียว
+ */
+public class BulkAssignmentEngine {
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+    // ผู้รอไม่เกินจำนวนนี้ (เช่น รอบของโหมดต่อเนื่อง) จะประกาศเหตุการณ์ทีละคน
+    // ให้ WaitingList/สถิติ/View อัพเดทเฉพาะส่วนที่เปลี่ยนแทนการโหลดใหม่ทั้งหมด
+    public static final int INCREMENTAL_EVENT_LIMIT = 5000;
+
+    /**
+     * รับความคืบหน้าระหว่างการจัดสรร (เรียกจาก thread ที่ทำงาน)
+     */
+    public interface ProgressListener {
+        void onProgress(int processed, int total);
+    }
+
+    private DatabaseManager dbManager;
+    private ShelterController shelterController;
+    private CitizenController citizenController;
+    private AssignmentController assignmentController;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    // ให้ทำงานทีละรอบ แยกจาก lock ของ this ที่ใช้เปิด/ปิดโหมดต่อเนื่อง (EDT จึงไม่ต้องรอรอบที่กำลังทำ)
+    private final Object runLock = new Object();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * ใช้หยุดการอ่านรายชื่อเมื่อรอบถูกยกเลิก
+     */
+    private static final class Cancelled extends RuntimeException {
+        Cancelled() {
+            super(null, null, false, false);
+        }
+    }
+
+    public BulkAssignmentEngine(DatabaseManager dbManager,
+            ShelterController shelterController,
+            CitizenController citizenController,
+            AssignmentController assignmentController) {
+        this.dbManager = dbManager;
+        this.shelterController = shelterController;
+        this.citizenController = citizenController;
+        this.assignmentController = assignmentController;
+    }
+
+    /**
+     * จัดสรรประชาชนที่ยังไม่ได้รับการจัดสรรทั้งหมดตามลำดับความสำคัญ
+     * รายชื่อถูกอ่านแบบ streaming จึงไม่ต้องโหลดทั้งหมดไว้ในหน่วยความจำ
+     *
+     * @param listener รับความคืบหน้า (null ได้)
+     * @return ผลการจัดสรร (isComplete() = false ถ้าอ่านรายชื่อผู้รอไม่ครบหรือถูกยกเลิก)
+     */
+    public BulkAssignmentResult assignAll(ProgressListener listener) {
+        synchronized (runLock) {
+            long startNanos = System.nanoTime();
+            boolean failed = true;
+            try {
+                BulkAssignmentResult result = doAssignAll(listener);
+                failed = result.getFailure() != null;
+                return result;
+            } finally {
+                Metrics.timer("bulkAssignment.assignAll").record(startNanos, failed);
+            }
+        }
+    }
+
+    private BulkAssignmentResult doAssignAll(ProgressListener listener) {
+        long start = System.currentTimeMillis();
+        BulkAssignmentResult result = new BulkAssignmentResult();
+        // ใช้แสดงความคืบหน้าเท่านั้น (จำนวนจริงนับระหว่างวน)
+        int expected = citizenController.countUnassignedCitizens();
+        boolean incremental = expected <= INCREMENTAL_EVENT_LIMIT;
+
+        // ใช้ชื่อ/ความเสี่ยงของศูนย์สำหรับหมายเหตุเท่านั้น ที่ว่างอ่านจากดัชนีซึ่งอัพเดทตามการจัดสรรทุกทาง
+        // (ไม่โหลดดัชนีใหม่ เพราะจะล้างที่ที่การจัดสรรทีละคนจองไว้แต่ยังไม่ commit)
+        Map<Integer, Shelter> shelters = new HashMap<>();
+        for (Shelter shelter : shelterController.getAllShelters()) {
+            shelters.put(shelter.getId(), shelter);
+        }
+        ShelterCapacityIndex index = shelterController.getCapacityIndex();
+
+        List<Assignment> pending = new ArrayList<>();
+        List<Citizen> pendingCitizens = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        int[] processed = { 0 };
+
+        boolean cancelled = false;
+        try {
+            dbManager.forEachUnassignedCitizen(true, citizen -> {
+                if (Thread.interrupted()) {
+                    throw new Cancelled();
+                }
+                // จองที่ในดัชนีทันที แล้วค่อยบันทึกจริงเป็นชุด
+                int shelterId = reserve(index, citizen.hasHealthRisk());
+                Shelter shelter = shelterId < 0 ? null : shelterFor(shelterId, shelters);
+                if (shelterId >= 0 && shelter == null) {
+                    // ศูนย์ถูกลบออกจากฐานข้อมูลแล้ว
+                    index.release(shelterId);
+                    shelterController.refreshCapacity(shelterId);
+                    shelterId = -1;
+                }
+                if (shelterId < 0) {
+                    result.addUnplaceable(citizen);
+                } else {
+                    Assignment assignment = new Assignment();
+                    assignment.setCitizenId(citizen.getId());
+                    assignment.setShelterId(shelterId);
+                    assignment.setAssignmentDate(today);
+                    assignment.setNotes(assignmentController.generateAssignmentNotes(citizen, shelter));
+                    pending.add(assignment);
+                    pendingCitizens.add(citizen);
+                }
+
+                processed[0]++;
+                if (pending.size() >= chunkSize) {
+                    flush(pending, pendingCitizens, result, incremental);
+                }
+                if (listener != null && processed[0] % chunkSize == 0) {
+                    listener.onProgress(processed[0], Math.max(expected, processed[0]));
+                }
+            });
+        } catch (SQLException e) {
+            // บันทึกคนที่จองไว้แล้ว แต่แจ้งผู้เรียกว่ายังมีผู้รอที่ไม่ได้พิจารณา
+            e.printStackTrace();
+            result.setFailure(e.getMessage());
+        } catch (Cancelled e) {
+            // ล้างสถานะ interrupt ไว้ก่อน ให้บันทึกคนที่จองไว้แล้วได้ แล้วค่อยคืนสถานะตอนจบ
+            cancelled = true;
+            result.setCancelled();
+        }
+
+        flush(pending, pendingCitizens, result, incremental);
+        if (listener != null) {
+            listener.onProgress(processed[0], processed[0]);
+        }
+
+        result.setTotalCandidates(processed[0]);
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        if (result.getPlacedCount() > 0 && !incremental) {
+            shelterController.getEventBus().publish(new BulkDataChanged("จัดสรรแบบกลุ่ม"));
+        }
+        if (cancelled) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    /**
+     * จองที่ว่าง 1 ที่ในศูนย์ที่ดีที่สุด ถ้าที่สุดท้ายถูกจองไปก่อนจะหาศูนย์ใหม่ (เหมือน autoAssignShelter)
+     *
+     * @return id ของศูนย์ที่จองได้ หรือ -1 ถ้าไม่มีศูนย์ที่เหมาะสม
+     */
+    private static int reserve(ShelterCapacityIndex index, boolean requireLowRisk) {
+        while (true) {
+            int shelterId = index.findBestShelterId(requireLowRisk);
+            if (shelterId < 0 || index.tryReserve(shelterId, requireLowRisk)) {
+                return shelterId;
+            }
+        }
+    }
+
+    // ศูนย์ที่เพิ่มหลังเริ่มรอบยังไม่อยู่ในรายการ: อ่านผ่าน cache ครั้งเดียวแล้วจำไว้
+    private Shelter shelterFor(int shelterId, Map<Integer, Shelter> shelters) throws SQLException {
+        Shelter shelter = shelters.get(shelterId);
+        if (shelter == null) {
+            shelter = shelterController.findShelter(shelterId);
+            if (shelter != null) {
+                shelters.put(shelterId, shelter);
+            }
+        }
+        return shelter;
+    }
+
+    private void flush(List<Assignment> pending, List<Citizen> citizens, BulkAssignmentResult result,
+            boolean incremental) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        try {
+            // แถวของศูนย์หลังบันทึกมาจาก UPDATE ... RETURNING: เขียนลง cache แทนการล้างแล้วอ่านใหม่
+            Map<Integer, Shelter> updated = dbManager.addAssignmentsBatch(pending);
+            for (Shelter shelter : updated.values()) {
+                shelterController.shelterAssigned(shelter);
+            }
+            result.addPlaced(pending.size());
+            if (incremental) {
+                publishAssigned(pending, citizens, updated);
+            }
+        } catch (SQLException e) {
+            // ดัชนีไม่ตรงกับฐานข้อมูล (หรือมีคนในชุดถูกจัดสรรจากที่อื่นแล้ว): คืนที่ที่จองไว้
+            // อ่านค่าจริงเฉพาะศูนย์ในชุดนี้ แล้วจัดสรรชุดนี้ทีละคน
+            ShelterCapacityIndex index = shelterController.getCapacityIndex();
+            Set<Integer> touched = new HashSet<>();
+            for (Assignment assignment : pending) {
+                index.release(assignment.getShelterId());
+                touched.add(assignment.getShelterId());
+            }
+            for (int shelterId : touched) {
+                shelterController.refreshCapacity(shelterId);
+            }
+            for (Citizen citizen : citizens) {
+                try {
+                    assignmentController.autoAssignShelter(citizen.getId());
+                    result.addPlaced(1);
+                } catch (SQLException | IllegalArgumentException ex) {
+                    if (!assignmentController.isAssigned(citizen.getId())) {
+                        result.addUnplaceable(citizen);
+                    }
+                }
+            }
+        }
+
+        pending.clear();
+        citizens.clear();
+    }
+
+    /**
+     * ประกาศ CitizenAssigned ทีละคน และ OccupancyChanged ศูนย์ละครั้งพร้อมจำนวนคนล่าสุดของชุดที่บันทึกแล้ว
+     *
+     * @param changed แถวของศูนย์หลังบันทึกชุดนี้ (จาก addAssignmentsBatch)
+     */
+    private void publishAssigned(List<Assignment> assignments, List<Citizen> citizens, Map<Integer, Shelter> changed) {
+        EventBus eventBus = shelterController.getEventBus();
+        for (int i = 0; i < assignments.size(); i++) {
+            Assignment assignment = assignments.get(i);
+            assignment.setCitizen(citizens.get(i));
+            assignment.setShelter(changed.get(assignment.getShelterId()));
+            eventBus.publish(new CitizenAssigned(assignment));
+        }
+        for (Shelter shelter : changed.values()) {
+            eventBus.publish(new OccupancyChanged(shelter));
+        }
+    }
+
+    // ==================== Continuous mode ====================
+
+    /**
+     * เริ่มจัดสรรอัตโนมัติต่อเนื่องทุก intervalMillis (สำหรับผู้ลงทะเบียนใหม่)
+     *
+     * @param onRun เรียกเมื่อรอบนั้นจัดสรรได้อย่างน้อย 1 คน (เรียกจาก background thread)
+     */
+    public synchronized void startContinuous(long intervalMillis, Consumer<BulkAssignmentResult> onRun) {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bulk-assignment");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (citizenController.countUnassignedCitizens() == 0) {
+                    return;
+                }
+                BulkAssignmentResult result = assignAll(null);
+                if (result.getFailure() != null) {
+                    System.err.println("จัดสรรต่อเนื่อง: " + result);
+                }
+                if (onRun != null && result.getPlacedCount() > 0) {
+                    onRun.accept(result);
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * หยุดโหมดต่อเนื่องโดยไม่รอรอบที่กำลังทำ (รอบนั้นถูก interrupt และหยุดหลังบันทึกชุดที่จองไว้)
+     */
+    public synchronized void stopContinuous() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public synchronized boolean isContinuousRunning() {
+        return scheduler != null;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize ต้องมากกว่า 0");
+        }
+        this.chunkSize = chunkSize;
+    }
+}
@@ -0,0 +1,91 @@
+package controller;
+
+import model.Citizen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * สรุปผลการจัดสรรแบบกลุ่ม (จำนวนที่จัดสรรได้ และรายชื่อที่ไม่มีศูนย์รองรับ)
+ */
+public class BulkAssignmentResult {
+    private int totalCandidates;
+    private int placedCount;
+    private final List<Citizen> unplaceable = new ArrayList<>();
+    private long elapsedMillis;
+    // null = อ่านรายชื่อผู้รอครบ
+    private String failure;
+    private boolean cancelled;
+
+    public int getTotalCandidates() {
+        return totalCandidates;
+    }
+
+    void setTotalCandidates(int totalCandidates) {
+        this.totalCandidates = totalCandidates;
+    }
+
+    public int getPlacedCount() {
+        return placedCount;
+    }
+
+    void addPlaced(int count) {
+        placedCount += count;
+    }
+
+    public List<Citizen> getUnplaceable() {
+        return Collections.unmodifiableList(unplaceable);
+    }
+
+    void addUnplaceable(Citizen citizen) {
+        unplaceable.add(citizen);
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * อ่านรายชื่อผู้รอได้ครบหรือไม่ (false = หยุดกลางคัน ยังมีผู้รอที่ไม่ได้ถูกพิจารณา)
+     */
+    public boolean isComplete() {
+        return failure == null && !cancelled;
+    }
+
+    /**
+     * สาเหตุที่หยุดกลางคัน (null ถ้าครบ)
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    void setFailure(String failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * ถูกยกเลิกระหว่างทำงาน (เช่น ปิดโหมดต่อเนื่อง) คนที่จองไว้แล้วยังถูกบันทึก
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void setCancelled() {
+        this.cancelled = true;
+    }
+
+    @Override
+    public String toString() {
+        String summary = String.format("จัดสรรสำเร็จ %d จาก %d คน, ไม่มีศูนย์รองรับ %d คน (%d ms)",
+                placedCount, totalCandidates, unplaceable.size(), elapsedMillis);
+        if (failure != null) {
+            return summary + " - หยุดกลางคัน: " + failure;
+        }
+        return cancelled ? summary + " - ถูกยกเลิก" : summary;
+    }
+}
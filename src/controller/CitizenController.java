@@ -1,22 +1,107 @@
 package controller;
 
 import database.DatabaseManager;
+import event.CitizenRegistered;
+import event.EventBus;
+import metrics.Metrics;
 import model.Citizen;
 
+import java.io.IOException;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controller สำหรับจัดการ Citizen
  */
 public class CitizenController {
+    /**
+     * ลำดับความสำคัญแบบเดียวกับ ORDER BY priority_rank, id ในฐานข้อมูล (เทียบ key แบบ long ครั้งเดียว)
+     * ใช้แทรกแถวใหม่ในตารางที่เรียงไว้แล้วโดยไม่ต้อง query ใหม่
+     */
+    public static final Comparator<Citizen> PRIORITY_ORDER = Comparator.comparingLong(Citizen::getPrioritySortKey);
+
     private DatabaseManager dbManager;
+    private EventBus eventBus;
+    // null = เรียงจากฐานข้อมูลทุกครั้ง (ดู enableWaitingList)
+    private volatile WaitingList waitingList;
+    // งานโหลด WaitingList เบื้องหลัง (null = ยังไม่ได้เปิดใช้)
+    private CompletableFuture<WaitingList> waitingListLoading;
+
+    // ข้อมูลประชาชนไม่ถูกแก้ไขหลังลงทะเบียน จึงไม่ต้องล้าง cache ระหว่างใช้งาน
+    private final ReadThroughCache<Integer, Citizen> citizenCache =
+            new ReadThroughCache<>("citizens", Integer.getInteger("shelter.cache.citizens", 10000));
 
     public CitizenController(DatabaseManager dbManager) {
+        this(dbManager, new EventBus());
+    }
+
+    public CitizenController(DatabaseManager dbManager, EventBus eventBus) {
         this.dbManager = dbManager;
+        this.eventBus = eventBus;
+    }
+
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * เก็บรายชื่อผู้รอที่เรียงตามลำดับความสำคัญไว้ในหน่วยความจำตลอดเวลา
+     * getCitizensSortedByPriority จะอ่านจากรายการนี้แทนการ query ฐานข้อมูล
+     */
+    public void enableWaitingList() {
+        try {
+            enableWaitingListAsync(null).join();
+        } catch (CompletionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * เปิดใช้ WaitingList โดยโหลดรายชื่อเบื้องหลัง (ไม่บล็อกการเริ่มโปรแกรม)
+     * ระหว่างโหลด การอ่านแบบแบ่งหน้ายังอ่านจากฐานข้อมูล ส่วนการอ่านทั้งหมดจะรอให้โหลดเสร็จ
+     *
+     * @param snapshot ถ้ามีรายชื่อผู้รอในไฟล์จะโหลดจากไฟล์ (เร็วกว่า query) ผู้เรียกต้องตรวจกับฐานข้อมูลภายหลัง
+     *                 ด้วย WaitingList.merge(..., true)
+     */
+    public synchronized CompletableFuture<WaitingList> enableWaitingListAsync(WorkingSetSnapshot snapshot) {
+        if (waitingListLoading != null) {
+            return waitingListLoading;
+        }
+
+        WaitingList list = new WaitingList(dbManager, eventBus);
+        waitingListLoading = AsyncExecutor.submit(() -> {
+            boolean restored = false;
+            if (snapshot != null && snapshot.hasWaitingCitizens()) {
+                try {
+                    list.merge(snapshot::forEachWaitingCitizen, false);
+                    restored = true;
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            if (!restored) {
+                try {
+                    list.merge(handler -> dbManager.forEachUnassignedCitizen(false, handler), true);
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+            waitingList = list;
+            return list;
+        });
+        return waitingListLoading;
+    }
+
+    /**
+     * รายชื่อผู้รอในหน่วยความจำ (null ถ้ายังไม่ได้เปิดใช้)
+     */
+    public WaitingList getWaitingList() {
+        return waitingList;
     }
 
     /**
@@ -24,6 +109,11 @@ public class CitizenController {
      */
     public int registerCitizen(String name, int age, String healthCondition, Citizen.CitizenType type)
             throws SQLException {
+        return Metrics.time("citizen.registerCitizen", () -> doRegisterCitizen(name, age, healthCondition, type));
+    }
+
+    private int doRegisterCitizen(String name, int age, String healthCondition, Citizen.CitizenType type)
+            throws SQLException {
         // Validation
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("กรุณาระบุชื่อ");
@@ -39,7 +129,11 @@ public class CitizenController {
         citizen.setType(type);
         citizen.setRegistrationDate(LocalDate.now());
 
-        return dbManager.addCitizen(citizen);
+        int id = dbManager.addCitizen(citizen);
+        citizen.setId(id);
+        citizenCache.put(id, citizen);
+        eventBus.publish(new CitizenRegistered(citizen));
+        return id;
     }
 
     /**
@@ -67,20 +161,18 @@ public class CitizenController {
     }
 
     /**
-     * ดึงข้อมูลประชาชนที่ยังไม่ได้รับการจัดสรร
+     * ดึงข้อมูลประชาชนที่ยังไม่ได้รับการจัดสรร (anti-join ใน query เดียว)
      */
     public List<Citizen> getUnassignedCitizens() {
-        try {
-            List<Citizen> allCitizens = dbManager.getAllCitizens();
-            List<Citizen> unassigned = new ArrayList<>();
-
-            for (Citizen citizen : allCitizens) {
-                if (!dbManager.isAssigned(citizen.getId())) {
-                    unassigned.add(citizen);
-                }
-            }
+        WaitingList list = waitingList != null ? waitingList : awaitWaitingList();
+        if (list != null) {
+            List<Citizen> citizens = new ArrayList<>(list.getCitizens());
+            citizens.sort(Comparator.comparingInt(Citizen::getId));
+            return citizens;
+        }
 
-            return unassigned;
+        try {
+            return dbManager.getUnassignedCitizens(false, 0, 0);
         } catch (SQLException e) {
             e.printStackTrace();
             return new ArrayList<>();
@@ -92,53 +184,80 @@ public class CitizenController {
      * เด็กและผู้สูงอายุได้รับการจัดสรรก่อน
      */
     public List<Citizen> getCitizensSortedByPriority() {
-        List<Citizen> citizens = getUnassignedCitizens();
-
-        // เรียงลำดับตามความสำคัญ
-        citizens.sort(new Comparator<Citizen>() {
-            @Override
-            public int compare(Citizen c1, Citizen c2) {
-                // ลำดับความสำคัญ: เด็ก/ผู้สูงอายุ > กลุ่มเสี่ยง > VIP > ทั่วไป
-                boolean p1 = c1.isPriorityGroup();
-                boolean p2 = c2.isPriorityGroup();
-
-                if (p1 && !p2)
-                    return -1;
-                if (!p1 && p2)
-                    return 1;
-
-                // ถ้าความสำคัญเท่ากัน เรียงตาม type
-                int typeCompare = getTypePriority(c1.getType()) - getTypePriority(c2.getType());
-                if (typeCompare != 0)
-                    return typeCompare;
-
-                // ถ้า type เท่ากัน เรียงตามอายุ (เด็กและผู้สูงอายุก่อน)
-                if (c1.getAge() < 18 && c2.getAge() >= 18)
-                    return -1;
-                if (c1.getAge() >= 18 && c2.getAge() < 18)
-                    return 1;
-                if (c1.getAge() >= 60 && c2.getAge() < 60)
-                    return -1;
-                if (c1.getAge() < 60 && c2.getAge() >= 60)
-                    return 1;
-
-                return 0;
-            }
-        });
+        return getCitizensSortedByPriority(0, 0);
+    }
+
+    /**
+     * จัดเรียงประชาชนตามลำดับความสำคัญแบบแบ่งหน้า (limit = 0 คือทั้งหมด)
+     * ลำดับ: เด็ก/ผู้สูงอายุ > กลุ่มเสี่ยง > VIP > ทั่วไป (ORDER BY priority_rank หรือจาก WaitingList)
+     */
+    public List<Citizen> getCitizensSortedByPriority(int offset, int limit) {
+        WaitingList list = waitingList;
+        if (list == null && limit == 0) {
+            list = awaitWaitingList();
+        }
+        if (list != null) {
+            return list.getCitizens(offset, limit);
+        }
 
-        return citizens;
+        try {
+            return dbManager.getUnassignedCitizens(true, offset, limit);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
     }
 
-    private int getTypePriority(Citizen.CitizenType type) {
-        switch (type) {
-            case AT_RISK:
-                return 1;
-            case VIP:
-                return 2;
-            case GENERAL:
-                return 3;
-            default:
-                return 4;
+    // รอ WaitingList ที่กำลังโหลด (อ่านจากไฟล์ snapshot เร็วกว่า query รายชื่อทั้งหมด) หรือ null ถ้าไม่ได้เปิดใช้
+    private WaitingList awaitWaitingList() {
+        CompletableFuture<WaitingList> loading;
+        synchronized (this) {
+            loading = waitingListLoading;
+        }
+        if (loading == null) {
+            return null;
+        }
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * จำนวนประชาชนทั้งหมด
+     */
+    public int countAllCitizens() {
+        try {
+            return dbManager.countCitizens();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * จำนวนประชาชนที่ยังไม่ได้รับการจัดสรร
+     */
+    public int countUnassignedCitizens() {
+        try {
+            return dbManager.countUnassignedCitizens();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * จำนวนเด็ก/ผู้สูงอายุที่ยังไม่ได้รับการจัดสรร
+     */
+    public int countUnassignedPriorityCitizens() {
+        try {
+            return dbManager.countUnassignedPriorityCitizens();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
         }
     }
 
@@ -147,10 +266,115 @@ public class CitizenController {
      */
     public Citizen getCitizenById(int id) {
         try {
-            return dbManager.getCitizenById(id);
+            return findCitizen(id);
         } catch (SQLException e) {
             e.printStackTrace();
             return null;
         }
     }
+
+    /**
+     * อ่านประชาชนผ่าน cache (object ที่ได้ใช้ร่วมกัน ห้ามแก้ไข)
+     */
+    Citizen findCitizen(int id) throws SQLException {
+        return citizenCache.get(id, dbManager::getCitizenById);
+    }
+
+    public ReadThroughCache<Integer, Citizen> getCitizenCache() {
+        return citizenCache;
+    }
+
+    // ==================== Paging ====================
+
+    /**
+     * จำนวนประชาชนตามประเภท (null = ทั้งหมด)
+     */
+    public int countCitizens(Citizen.CitizenType type) {
+        try {
+            return dbManager.countCitizens(type);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * ดึงประชาชนหน้าถัดไปต่อจาก afterId (keyset pagination, type = null คือทั้งหมด)
+     */
+    public List<Citizen> getCitizensAfterId(Citizen.CitizenType type, int afterId, int limit) {
+        try {
+            return dbManager.getCitizensAfterId(type, afterId, limit);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * id ของประชาชนแถวที่ offset (เรียงตาม id) หรือ -1 ถ้าไม่พบ
+     */
+    public int findCitizenIdAtOffset(Citizen.CitizenType type, int offset) {
+        try {
+            return dbManager.findCitizenIdAtOffset(type, offset);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * ดึงประชาชนหนึ่งหน้า (เรียงตาม id)
+     *
+     * @param afterId id สุดท้ายของหน้าก่อนหน้า หรือ -1 ถ้าไม่ทราบ (จะหาจาก offset แทน)
+     * @param offset  ลำดับแถวแรกของหน้า ใช้เมื่อ afterId = -1
+     */
+    public List<Citizen> getCitizenPage(Citizen.CitizenType type, int afterId, int offset, int limit) {
+        if (afterId < 0) {
+            afterId = offset > 0 ? findCitizenIdAtOffset(type, offset - 1) : 0;
+            if (afterId < 0) {
+                return new ArrayList<>();
+            }
+        }
+        return getCitizensAfterId(type, afterId, limit);
+    }
+
+    // ==================== Async (ไม่บล็อก Swing EDT) ====================
+
+    public CompletableFuture<Integer> registerCitizenAsync(String name, int age, String healthCondition,
+            Citizen.CitizenType type) {
+        return AsyncExecutor.submit(() -> registerCitizen(name, age, healthCondition, type));
+    }
+
+    public CompletableFuture<List<Citizen>> getAllCitizensAsync() {
+        return AsyncExecutor.submit(this::getAllCitizens);
+    }
+
+    public CompletableFuture<List<Citizen>> getCitizensByTypeAsync(Citizen.CitizenType type) {
+        return AsyncExecutor.submit(() -> getCitizensByType(type));
+    }
+
+    public CompletableFuture<List<Citizen>> getUnassignedCitizensAsync() {
+        return AsyncExecutor.submit(this::getUnassignedCitizens);
+    }
+
+    public CompletableFuture<List<Citizen>> getCitizensSortedByPriorityAsync() {
+        return AsyncExecutor.submit(() -> getCitizensSortedByPriority());
+    }
+
+    public CompletableFuture<List<Citizen>> getCitizenPageAsync(Citizen.CitizenType type, int afterId,
+            int offset, int limit) {
+        return AsyncExecutor.submit(() -> getCitizenPage(type, afterId, offset, limit));
+    }
+
+    public CompletableFuture<Integer> countCitizensAsync(Citizen.CitizenType type) {
+        return AsyncExecutor.submit(() -> countCitizens(type));
+    }
+
+    public CompletableFuture<Integer> countUnassignedCitizensAsync() {
+        return AsyncExecutor.submit(this::countUnassignedCitizens);
+    }
+
+    public CompletableFuture<Integer> countUnassignedPriorityCitizensAsync() {
+        return AsyncExecutor.submit(this::countUnassignedPriorityCitizens);
+    }
 }
@@ -0,0 +1,294 @@
+package controller;
+
+import database.BatchResult;
+import database.DatabaseManager;
+import event.BulkDataChanged;
+import metrics.Metrics;
+import model.Citizen;
+import model.Shelter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Controller สำหรับนำเข้าข้อมูลจำนวนมากจากไฟล์ CSV (UTF-8)
+ * - ประชาชน: name,age,health_condition,type
+ * - ศูนย์พักพิง: name,max_capacity,risk_level
+ * แถวแรกที่ขึ้นต้นด้วย "name" หรือ "ชื่อ" จะถือเป็น header
+ */
+public class ImportController {
+    private DatabaseManager dbManager;
+    private ShelterController shelterController;
+
+    public ImportController(DatabaseManager dbManager, ShelterController shelterController) {
+        this.dbManager = dbManager;
+        this.shelterController = shelterController;
+    }
+
+    /**
+     * นำเข้าประชาชนจากไฟล์ CSV
+     */
+    public ImportReport importCitizensCsv(File file) throws IOException, SQLException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return importCitizensCsv(reader);
+        }
+    }
+
+    public ImportReport importCitizensCsv(Reader reader) throws IOException, SQLException {
+        // จับเวลาเองเพราะ Metrics.time ส่งต่อ checked exception ได้ชนิดเดียว
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            ImportReport report = readCitizensCsv(reader);
+            failed = false;
+            return report;
+        } finally {
+            Metrics.timer("import.importCitizensCsv").record(startNanos, failed);
+        }
+    }
+
+    private ImportReport readCitizensCsv(Reader reader) throws IOException, SQLException {
+        ImportReport report = new ImportReport();
+        List<Citizen> citizens = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+
+        int totalRows = 0;
+        for (CsvRow row : readRows(reader)) {
+            totalRows++;
+            try {
+                String name = row.get(0);
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("กรุณาระบุชื่อ");
+                }
+                int age = parseInt(row.get(1), "อายุ");
+                if (age <= 0) {
+                    throw new IllegalArgumentException("กรุณาระบุอายุที่ถูกต้อง");
+                }
+
+                Citizen citizen = new Citizen();
+                citizen.setName(name);
+                citizen.setAge(age);
+                citizen.setHealthCondition(row.get(2));
+                citizen.setType(parseCitizenType(row.get(3)));
+                citizen.setRegistrationDate(today);
+
+                citizens.add(citizen);
+                lineNumbers.add(row.lineNumber);
+            } catch (IllegalArgumentException e) {
+                report.addError(row.lineNumber, e.getMessage());
+            }
+        }
+
+        BatchResult result = dbManager.addCitizensBatch(citizens);
+        for (Map.Entry<Integer, String> rejected : result.getRejected().entrySet()) {
+            report.addError(lineNumbers.get(rejected.getKey()), rejected.getValue());
+        }
+
+        report.setTotalRows(totalRows);
+        report.setImportedCount(result.getInsertedCount());
+        report.sortErrors();
+        if (report.getImportedCount() > 0) {
+            shelterController.getEventBus().publish(new BulkDataChanged("นำเข้า CSV"));
+        }
+        return report;
+    }
+
+    /**
+     * นำเข้าศูนย์พักพิงจากไฟล์ CSV
+     */
+    public ImportReport importSheltersCsv(File file) throws IOException, SQLException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return importSheltersCsv(reader);
+        }
+    }
+
+    public ImportReport importSheltersCsv(Reader reader) throws IOException, SQLException {
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            ImportReport report = readSheltersCsv(reader);
+            failed = false;
+            return report;
+        } finally {
+            Metrics.timer("import.importSheltersCsv").record(startNanos, failed);
+        }
+    }
+
+    private ImportReport readSheltersCsv(Reader reader) throws IOException, SQLException {
+        ImportReport report = new ImportReport();
+        List<Shelter> shelters = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+
+        int totalRows = 0;
+        for (CsvRow row : readRows(reader)) {
+            totalRows++;
+            try {
+                String name = row.get(0);
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("กรุณาระบุชื่อศูนย์พักพิง");
+                }
+                int maxCapacity = parseInt(row.get(1), "ความจุ");
+                if (maxCapacity <= 0) {
+                    throw new IllegalArgumentException("กรุณาระบุความจุที่ถูกต้อง");
+                }
+
+                Shelter shelter = new Shelter();
+                shelter.setName(name);
+                shelter.setMaxCapacity(maxCapacity);
+                shelter.setRiskLevel(parseRiskLevel(row.get(2)));
+                shelter.setCurrentOccupancy(0);
+
+                shelters.add(shelter);
+                lineNumbers.add(row.lineNumber);
+            } catch (IllegalArgumentException e) {
+                report.addError(row.lineNumber, e.getMessage());
+            }
+        }
+
+        BatchResult result = dbManager.addSheltersBatch(shelters);
+        if (result.getInsertedCount() > 0) {
+            shelterController.reloadCapacityIndex();
+        }
+        for (Map.Entry<Integer, String> rejected : result.getRejected().entrySet()) {
+            report.addError(lineNumbers.get(rejected.getKey()), rejected.getValue());
+        }
+
+        report.setTotalRows(totalRows);
+        report.setImportedCount(result.getInsertedCount());
+        report.sortErrors();
+        if (report.getImportedCount() > 0) {
+            shelterController.getEventBus().publish(new BulkDataChanged("นำเข้า CSV"));
+        }
+        return report;
+    }
+
+    // ==================== Async (ไม่บล็อก Swing EDT) ====================
+
+    public CompletableFuture<ImportReport> importCitizensCsvAsync(File file) {
+        return AsyncExecutor.submit(() -> importCitizensCsv(file));
+    }
+
+    public CompletableFuture<ImportReport> importSheltersCsvAsync(File file) {
+        return AsyncExecutor.submit(() -> importSheltersCsv(file));
+    }
+
+    // ==================== CSV parsing ====================
+
+    private static class CsvRow {
+        private final int lineNumber;
+        private final List<String> fields;
+
+        CsvRow(int lineNumber, List<String> fields) {
+            this.lineNumber = lineNumber;
+            this.fields = fields;
+        }
+
+        String get(int index) {
+            return index < fields.size() ? fields.get(index).trim() : "";
+        }
+    }
+
+    private List<CsvRow> readRows(Reader reader) throws IOException {
+        List<CsvRow> rows = new ArrayList<>();
+        BufferedReader in = new BufferedReader(reader);
+
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+
+            List<String> fields = parseLine(line);
+            if (lineNumber == 1 && isHeader(fields.get(0))) {
+                continue;
+            }
+            rows.add(new CsvRow(lineNumber, fields));
+        }
+
+        return rows;
+    }
+
+    private boolean isHeader(String firstField) {
+        String field = firstField.trim();
+        return field.equalsIgnoreCase("name") || field.equals("ชื่อ");
+    }
+
+    /**
+     * แยก field ใน 1 บรรทัด รองรับค่าที่อยู่ในเครื่องหมาย "..." และ "" ภายใน
+     */
+    private List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inQuotes = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    inQuotes = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+
+        return fields;
+    }
+
+    private int parseInt(String value, String fieldName) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(fieldName + "ไม่ใช่ตัวเลข: " + value);
+        }
+    }
+
+    private Citizen.CitizenType parseCitizenType(String value) {
+        if (value.isEmpty()) {
+            return Citizen.CitizenType.GENERAL;
+        }
+        for (Citizen.CitizenType type : Citizen.CitizenType.values()) {
+            if (type.name().equalsIgnoreCase(value) || type.getDisplayName().equals(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("ประเภทประชาชนไม่ถูกต้อง: " + value);
+    }
+
+    private Shelter.RiskLevel parseRiskLevel(String value) {
+        for (Shelter.RiskLevel level : Shelter.RiskLevel.values()) {
+            if (level.name().equalsIgnoreCase(value) || level.getDisplayName().equals(value)) {
+                return level;
+            }
+        }
+        throw new IllegalArgumentException("ระดับความเสี่ยงไม่ถูกต้อง: " + value);
+    }
+}
@@ -0,0 +1,74 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * สรุปผลการนำเข้าข้อมูลจากไฟล์ CSV พร้อมข้อผิดพลาดรายแถว
+ */
+public class ImportReport {
+    private int totalRows;
+    private int importedCount;
+    private final List<RowError> errors = new ArrayList<>();
+
+    /**
+     * ข้อผิดพลาดของแถวหนึ่งในไฟล์ (lineNumber นับจาก 1 รวม header)
+     */
+    public static class RowError {
+        private final int lineNumber;
+        private final String message;
+
+        public RowError(int lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "บรรทัด " + lineNumber + ": " + message;
+        }
+    }
+
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    void setTotalRows(int totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    void setImportedCount(int importedCount) {
+        this.importedCount = importedCount;
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    void addError(int lineNumber, String message) {
+        errors.add(new RowError(lineNumber, message));
+    }
+
+    void sortErrors() {
+        errors.sort((e1, e2) -> Integer.compare(e1.getLineNumber(), e2.getLineNumber()));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("นำเข้าสำเร็จ %d จาก %d แถว (ผิดพลาด %d แถว)",
+                importedCount, totalRows, errors.size());
+    }
+}
@@ -0,0 +1,136 @@
+package controller;
+
+import metrics.Metrics;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+
+/**
+ * Cache แบบ read-through จำกัดขนาด (LRU) สำหรับ entity ตาม id หรือผลลัพธ์ของ query
+ * - ถ้าไม่มีใน cache จะโหลดผ่าน loader แล้วเก็บไว้ (ไม่เก็บค่า null)
+ * - controller ต้องเรียก invalidate ทุกครั้งที่แก้ข้อมูลที่อยู่ใน cache
+ * - object ที่คืนไปถูกใช้ร่วมกัน ผู้เรียกห้ามแก้ไข
+ * - สถิติเปิดดูได้เป็น gauge cache.&lt;name&gt;.hits/misses/evictions/size
+ */
+public class ReadThroughCache<K, V> {
+    /**
+     * โหลดค่าจากฐานข้อมูลเมื่อไม่พบใน cache
+     */
+    public interface Loader<K, V> {
+        V load(K key) throws SQLException;
+    }
+
+    private final String name;
+    private final Map<K, V> entries;
+    // เพิ่มทุกครั้งที่ invalidate: ค่าที่โหลดมาก่อน invalidate จะไม่ถูกเก็บ
+    private long version;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ReadThroughCache(String name, int capacity) {
+        this.name = name;
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        Metrics.gauge("cache." + name + ".hits", this::getHits);
+        Metrics.gauge("cache." + name + ".misses", this::getMisses);
+        Metrics.gauge("cache." + name + ".evictions", this::getEvictions);
+        Metrics.gauge("cache." + name + ".size", this::size);
+    }
+
+    /**
+     * ดึงค่าจาก cache ถ้าไม่มีจะโหลดด้วย loader (โหลดนอก lock จึงไม่บล็อกการอ่าน key อื่น)
+     */
+    public V get(K key, Loader<K, V> loader) throws SQLException {
+        long loadVersion;
+        synchronized (this) {
+            V value = entries.get(key);
+            if (value != null) {
+                hits.incrementAndGet();
+                return value;
+            }
+            loadVersion = version;
+        }
+
+        misses.incrementAndGet();
+        V value = loader.load(key);
+        if (value != null) {
+            synchronized (this) {
+                if (loadVersion == version) {
+                    entries.put(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * เก็บค่าล่าสุดที่เพิ่งบันทึก/อ่านจากฐานข้อมูล
+     */
+    public synchronized void put(K key, V value) {
+        version++;
+        entries.put(key, value);
+    }
+
+    /**
+     * เก็บค่าที่เพิ่งบันทึก ถ้าค่าใน cache ไม่ใหม่กว่า (ใช้เมื่อหลาย thread เขียนค่าของ key เดียวกันพร้อมกัน
+     * และอาจเรียกไม่ตรงลำดับ commit)
+     *
+     * @param newer true ถ้าค่าแรกใหม่กว่าค่าที่สอง
+     */
+    public synchronized void putIfNewer(K key, V value, BiPredicate<V, V> newer) {
+        V current = entries.get(key);
+        if (current == null || !newer.test(current, value)) {
+            put(key, value);
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        version++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        version++;
+        entries.clear();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return name + "[size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses() +
+                ", evictions=" + getEvictions() + "]";
+    }
+}
@@ -0,0 +1,218 @@
+package controller;
+
+import model.Shelter;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * ดัชนีที่ว่างของศูนย์พักพิงในหน่วยความจำ แยกตาม RiskLevel
+ * แต่ละกลุ่มเรียงตามที่ว่างมากไปน้อย (เท่ากันเรียงตาม id) จึงหาศูนย์ที่ดีที่สุดได้ใน O(log n)
+ * โดยไม่ต้องอ่านฐานข้อมูล ต้องอัพเดททุกครั้งที่จำนวนคนในศูนย์เปลี่ยน
+ *
+ * ใช้งานจากหลาย thread ได้: การอ่านไม่ต้องล็อก ส่วนการเปลี่ยนค่าล็อกเฉพาะ stripe ของศูนย์นั้น
+ * การจองที่ในศูนย์ต่างกันจึงไม่รอกัน
+ */
+public class ShelterCapacityIndex {
+    // ต้องเป็นกำลังของ 2 (ใช้ id & (LOCK_STRIPES - 1) เลือก lock)
+    private static final int LOCK_STRIPES = 64;
+
+    private static final Comparator<Entry> BY_AVAILABLE_SPACE = (e1, e2) -> {
+        int compare = Integer.compare(e2.getAvailableSpace(), e1.getAvailableSpace());
+        return compare != 0 ? compare : Integer.compare(e1.shelterId, e2.shelterId);
+    };
+
+    private final Map<Shelter.RiskLevel, ConcurrentSkipListSet<Entry>> partitions = new EnumMap<>(Shelter.RiskLevel.class);
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * ข้อมูลความจุของศูนย์หนึ่งแห่ง (immutable: เปลี่ยนค่าด้วยการสร้าง entry ใหม่)
+     */
+    private static final class Entry {
+        private final int shelterId;
+        private final Shelter.RiskLevel riskLevel;
+        private final int maxCapacity;
+        private final int occupancy;
+
+        Entry(int shelterId, Shelter.RiskLevel riskLevel, int maxCapacity, int occupancy) {
+            this.shelterId = shelterId;
+            this.riskLevel = riskLevel;
+            this.maxCapacity = maxCapacity;
+            this.occupancy = occupancy;
+        }
+
+        int getAvailableSpace() {
+            return maxCapacity - occupancy;
+        }
+    }
+
+    public ShelterCapacityIndex() {
+        for (Shelter.RiskLevel level : Shelter.RiskLevel.values()) {
+            partitions.put(level, new ConcurrentSkipListSet<>(BY_AVAILABLE_SPACE));
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    private Object lockFor(int shelterId) {
+        return locks[shelterId & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * โหลดข้อมูลศูนย์พักพิงทั้งหมดใหม่ (ศูนย์ที่ไม่อยู่ในรายการจะถูกลบออก)
+     */
+    public void load(List<Shelter> shelters) {
+        Set<Integer> ids = new HashSet<>();
+        for (Shelter shelter : shelters) {
+            put(shelter);
+            ids.add(shelter.getId());
+        }
+        for (Integer shelterId : entries.keySet()) {
+            if (!ids.contains(shelterId)) {
+                remove(shelterId);
+            }
+        }
+    }
+
+    /**
+     * เพิ่มหรือแทนที่ข้อมูลศูนย์พักพิง
+     */
+    public void put(Shelter shelter) {
+        synchronized (lockFor(shelter.getId())) {
+            replace(new Entry(shelter.getId(), shelter.getRiskLevel(),
+                    shelter.getMaxCapacity(), shelter.getCurrentOccupancy()));
+        }
+    }
+
+    /**
+     * อัพเดทจำนวนคนในศูนย์พักพิง
+     */
+    public void updateOccupancy(int shelterId, int occupancy) {
+        synchronized (lockFor(shelterId)) {
+            Entry entry = entries.get(shelterId);
+            if (entry != null) {
+                replace(new Entry(shelterId, entry.riskLevel, entry.maxCapacity, occupancy));
+            }
+        }
+    }
+
+    /**
+     * เพิ่ม/ลดจำนวนคนในศูนย์พักพิง
+     */
+    public void adjustOccupancy(int shelterId, int delta) {
+        synchronized (lockFor(shelterId)) {
+            Entry entry = entries.get(shelterId);
+            if (entry != null) {
+                replace(new Entry(shelterId, entry.riskLevel, entry.maxCapacity, entry.occupancy + delta));
+            }
+        }
+    }
+
+    /**
+     * จองที่ว่าง 1 ที่ในศูนย์พักพิง ถ้ายังไม่เต็ม (และเป็นศูนย์ความเสี่ยงต่ำ ถ้า requireLowRisk)
+     * ถ้าบันทึกลงฐานข้อมูลไม่สำเร็จ ต้องเรียก release() คืนที่
+     *
+     * @return false ถ้าจองไม่ได้ตามข้อมูลในดัชนี
+     */
+    public boolean tryReserve(int shelterId, boolean requireLowRisk) {
+        synchronized (lockFor(shelterId)) {
+            Entry entry = entries.get(shelterId);
+            if (entry == null || entry.getAvailableSpace() <= 0
+                    || (requireLowRisk && entry.riskLevel != Shelter.RiskLevel.LOW)) {
+                return false;
+            }
+            replace(new Entry(shelterId, entry.riskLevel, entry.maxCapacity, entry.occupancy + 1));
+            return true;
+        }
+    }
+
+    /**
+     * คืนที่ที่จองไว้ด้วย tryReserve()
+     */
+    public void release(int shelterId) {
+        adjustOccupancy(shelterId, -1);
+    }
+
+    public void remove(int shelterId) {
+        synchronized (lockFor(shelterId)) {
+            Entry entry = entries.remove(shelterId);
+            if (entry != null) {
+                partitions.get(entry.riskLevel).remove(entry);
+            }
+        }
+    }
+
+    // ต้องถือ lock ของศูนย์นั้นอยู่
+    private void replace(Entry entry) {
+        Entry old = entries.put(entry.shelterId, entry);
+        if (old != null && old.riskLevel == entry.riskLevel && BY_AVAILABLE_SPACE.compare(old, entry) == 0) {
+            return; // ลำดับในกลุ่มไม่เปลี่ยน
+        }
+
+        // เพิ่มตัวใหม่ก่อนลบตัวเก่า ผู้อ่านที่ไม่ล็อกจึงไม่เห็นศูนย์หายไปชั่วขณะ
+        partitions.get(entry.riskLevel).add(entry);
+        if (old != null) {
+            partitions.get(old.riskLevel).remove(old);
+        }
+    }
+
+    /**
+     * หาศูนย์พักพิงที่มีที่ว่างมากที่สุด (ผู้มีความเสี่ยงด้านสุขภาพเลือกได้เฉพาะศูนย์ความเสี่ยงต่ำ)
+     * ไม่ล็อก ผลลัพธ์จึงอาจเปลี่ยนไปแล้วเมื่อนำไปใช้ ต้องจองด้วย tryReserve() อีกครั้ง
+     *
+     * @return id ของศูนย์พักพิง หรือ -1 ถ้าไม่มีศูนย์ที่เหมาะสม
+     */
+    public int findBestShelterId(boolean requireLowRisk) {
+        Entry best = null;
+
+        if (requireLowRisk) {
+            best = first(Shelter.RiskLevel.LOW);
+        } else {
+            for (Shelter.RiskLevel level : Shelter.RiskLevel.values()) {
+                Entry candidate = first(level);
+                if (candidate != null && (best == null || BY_AVAILABLE_SPACE.compare(candidate, best) < 0)) {
+                    best = candidate;
+                }
+            }
+        }
+
+        return best != null && best.getAvailableSpace() > 0 ? best.shelterId : -1;
+    }
+
+    private Entry first(Shelter.RiskLevel level) {
+        // ใช้ iterator แทน first() เพราะกลุ่มอาจว่างลงระหว่างตรวจสอบ
+        Iterator<Entry> iterator = partitions.get(level).iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * ที่ว่างของศูนย์พักพิงตามข้อมูลในดัชนี (-1 ถ้าไม่พบ)
+     */
+    public int getAvailableSpace(int shelterId) {
+        Entry entry = entries.get(shelterId);
+        return entry != null ? entry.getAvailableSpace() : -1;
+    }
+
+    /**
+     * ข้อมูลในดัชนีตรงกับศูนย์พักพิงนี้หรือไม่ (ความเสี่ยง ความจุ และจำนวนคน)
+     */
+    public boolean matches(Shelter shelter) {
+        Entry entry = entries.get(shelter.getId());
+        return entry != null && entry.riskLevel == shelter.getRiskLevel()
+                && entry.maxCapacity == shelter.getMaxCapacity()
+                && entry.occupancy == shelter.getCurrentOccupancy();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
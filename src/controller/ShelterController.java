@@ -1,26 +1,54 @@
 package controller;
 
 import database.DatabaseManager;
+import event.EventBus;
+import event.OccupancyChanged;
+import event.ShelterAdded;
+import metrics.Metrics;
 import model.Shelter;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller สำหรับจัดการ Shelter
  */
 public class ShelterController {
     private DatabaseManager dbManager;
+    // volatile: อ่านได้โดยไม่ต้องล็อก controller ทุกครั้งที่จัดสรร
+    private volatile ShelterCapacityIndex capacityIndex;
+
+    private EventBus eventBus;
+
+    // cache ของศูนย์พักพิงตาม id และผลของ query รายการ (key = ชื่อ query)
+    private final ReadThroughCache<Integer, Shelter> shelterCache =
+            new ReadThroughCache<>("shelters", Integer.getInteger("shelter.cache.shelters", 1024));
+    private final ReadThroughCache<String, List<Shelter>> shelterQueryCache =
+            new ReadThroughCache<>("shelter-queries", Integer.getInteger("shelter.cache.shelterQueries", 16));
 
     public ShelterController(DatabaseManager dbManager) {
+        this(dbManager, new EventBus());
+    }
+
+    public ShelterController(DatabaseManager dbManager, EventBus eventBus) {
         this.dbManager = dbManager;
+        this.eventBus = eventBus;
+    }
+
+    public EventBus getEventBus() {
+        return eventBus;
     }
 
     /**
      * เพิ่มศูนย์พักพิงใหม่
      */
     public int addShelter(String name, int maxCapacity, Shelter.RiskLevel riskLevel) throws SQLException {
+        return Metrics.time("shelter.addShelter", () -> doAddShelter(name, maxCapacity, riskLevel));
+    }
+
+    private int doAddShelter(String name, int maxCapacity, Shelter.RiskLevel riskLevel) throws SQLException {
         // Validation
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("กรุณาระบุชื่อศูนย์พักพิง");
@@ -35,7 +63,15 @@ public class ShelterController {
         shelter.setRiskLevel(riskLevel);
         shelter.setCurrentOccupancy(0);
 
-        return dbManager.addShelter(shelter);
+        int id = dbManager.addShelter(shelter);
+        shelter.setId(id);
+        shelterQueryCache.invalidateAll();
+        ShelterCapacityIndex index = loadedCapacityIndex();
+        if (index != null) {
+            index.put(shelter);
+        }
+        eventBus.publish(new ShelterAdded(shelter));
+        return id;
     }
 
     /**
@@ -43,7 +79,7 @@ public class ShelterController {
      */
     public List<Shelter> getAllShelters() {
         try {
-            return dbManager.getAllShelters();
+            return new ArrayList<>(findAllShelters());
         } catch (SQLException e) {
             e.printStackTrace();
             return new ArrayList<>();
@@ -54,32 +90,40 @@ public class ShelterController {
      * ดึงข้อมูลศูนย์พักพิงที่ยังมีที่ว่าง
      */
     public List<Shelter> getAvailableShelters() {
-        List<Shelter> allShelters = getAllShelters();
-        List<Shelter> available = new ArrayList<>();
-
-        for (Shelter shelter : allShelters) {
-            if (!shelter.isFull()) {
-                available.add(shelter);
-            }
+        try {
+            return new ArrayList<>(shelterQueryCache.get("available", key -> {
+                List<Shelter> available = new ArrayList<>();
+                for (Shelter shelter : findAllShelters()) {
+                    if (!shelter.isFull()) {
+                        available.add(shelter);
+                    }
+                }
+                return available;
+            }));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
         }
-
-        return available;
     }
 
     /**
      * ดึงข้อมูลศูนย์พักพิงตามระดับความเสี่ยง
      */
     public List<Shelter> getSheltersByRiskLevel(Shelter.RiskLevel riskLevel) {
-        List<Shelter> allShelters = getAllShelters();
-        List<Shelter> filtered = new ArrayList<>();
-
-        for (Shelter shelter : allShelters) {
-            if (shelter.getRiskLevel() == riskLevel) {
-                filtered.add(shelter);
-            }
+        try {
+            return new ArrayList<>(shelterQueryCache.get("risk:" + riskLevel.name(), key -> {
+                List<Shelter> filtered = new ArrayList<>();
+                for (Shelter shelter : findAllShelters()) {
+                    if (shelter.getRiskLevel() == riskLevel) {
+                        filtered.add(shelter);
+                    }
+                }
+                return filtered;
+            }));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
         }
-
-        return filtered;
     }
 
     /**
@@ -87,7 +131,7 @@ public class ShelterController {
      */
     public Shelter getShelterById(int id) {
         try {
-            return dbManager.getShelterById(id);
+            return findShelter(id);
         } catch (SQLException e) {
             e.printStackTrace();
             return null;
@@ -109,22 +153,191 @@ public class ShelterController {
 
         shelter.setCurrentOccupancy(newOccupancy);
         dbManager.updateShelter(shelter);
+        invalidateShelter(shelterId);
+
+        ShelterCapacityIndex index = loadedCapacityIndex();
+        if (index != null) {
+            index.updateOccupancy(shelterId, newOccupancy);
+        }
+        eventBus.publish(new OccupancyChanged(shelter));
     }
 
     /**
-     * เพิ่มจำนวนคนในศูนย์พักพิง
+     * เพิ่มจำนวนคนในศูนย์พักพิง (UPDATE แบบมีเงื่อนไข ไม่อ่านค่าเดิมก่อน)
      */
     public void incrementOccupancy(int shelterId) throws SQLException {
-        Shelter shelter = dbManager.getShelterById(shelterId);
-        if (shelter == null) {
-            throw new IllegalArgumentException("ไม่พบศูนย์พักพิง");
+        if (!dbManager.incrementShelterOccupancy(shelterId)) {
+            if (dbManager.getShelterById(shelterId) == null) {
+                throw new IllegalArgumentException("ไม่พบศูนย์พักพิง");
+            }
+            throw new IllegalArgumentException("ศูนย์พักพิงเต็มแล้ว");
         }
+        occupancyChanged(shelterId, 1);
+        publishOccupancyChanged(shelterId);
+    }
 
-        if (shelter.isFull()) {
-            throw new IllegalArgumentException("ศูนย์พักพิงเต็มแล้ว");
+    /**
+     * อ่านจำนวนคนล่าสุดของศูนย์พักพิงแล้วประกาศ OccupancyChanged
+     */
+    void publishOccupancyChanged(int shelterId) {
+        Shelter shelter = getShelterById(shelterId);
+        if (shelter != null) {
+            eventBus.publish(new OccupancyChanged(shelter));
         }
+    }
 
-        shelter.setCurrentOccupancy(shelter.getCurrentOccupancy() + 1);
-        dbManager.updateShelter(shelter);
+    // ==================== Async (ไม่บล็อก Swing EDT) ====================
+
+    public CompletableFuture<List<Shelter>> getAllSheltersAsync() {
+        return AsyncExecutor.submit(this::getAllShelters);
+    }
+
+    public CompletableFuture<Integer> addShelterAsync(String name, int maxCapacity, Shelter.RiskLevel riskLevel) {
+        return AsyncExecutor.submit(() -> addShelter(name, maxCapacity, riskLevel));
+    }
+
+    // ==================== Capacity index ====================
+
+    /**
+     * ดัชนีที่ว่างของศูนย์พักพิงในหน่วยความจำ (โหลดจากฐานข้อมูลครั้งแรกที่เรียกใช้)
+     */
+    public ShelterCapacityIndex getCapacityIndex() {
+        ShelterCapacityIndex index = capacityIndex;
+        if (index != null) {
+            return index;
+        }
+
+        synchronized (this) {
+            if (capacityIndex == null) {
+                index = new ShelterCapacityIndex();
+                index.load(getAllShelters());
+                capacityIndex = index;
+            }
+            return capacityIndex;
+        }
+    }
+
+    /**
+     * สร้างดัชนีที่ว่างจากข้อมูลศูนย์พักพิงที่มีอยู่แล้ว (เช่น จาก WorkingSetSnapshot) โดยไม่อ่านฐานข้อมูล
+     * ไม่มีผลถ้าดัชนีถูกโหลดไปแล้ว ควรเรียก verifyCapacityIndex() เบื้องหลังภายหลัง
+     */
+    public synchronized void restoreCapacityIndex(List<Shelter> shelters) {
+        if (capacityIndex == null) {
+            ShelterCapacityIndex index = new ShelterCapacityIndex();
+            index.load(shelters);
+            capacityIndex = index;
+        }
+    }
+
+    /**
+     * เทียบดัชนีที่ว่างกับฐานข้อมูล แล้วอ่านใหม่เฉพาะศูนย์ที่ไม่ตรง
+     *
+     * @return จำนวนศูนย์ที่ต้องแก้ (-1 ถ้าอ่านฐานข้อมูลไม่สำเร็จ)
+     */
+    public int verifyCapacityIndex() {
+        ShelterCapacityIndex index = getCapacityIndex();
+        List<Shelter> shelters;
+        try {
+            shelters = dbManager.getAllShelters();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+
+        int fixed = 0;
+        for (Shelter shelter : shelters) {
+            if (!index.matches(shelter)) {
+                // อ่านแถวนั้นใหม่แทนการใช้ค่าที่เพิ่งอ่าน เพราะอาจมีการจัดสรรระหว่างเทียบ
+                refreshCapacity(shelter.getId());
+                fixed++;
+            }
+        }
+        return fixed;
+    }
+
+    /**
+     * โหลดดัชนีที่ว่างใหม่ทั้งหมด (เช่น หลังนำเข้าศูนย์พักพิงจำนวนมาก)
+     */
+    public void reloadCapacityIndex() {
+        invalidateShelters();
+        getCapacityIndex().load(getAllShelters());
+    }
+
+    /**
+     * อ่านข้อมูลศูนย์พักพิงหนึ่งแห่งจากฐานข้อมูลแล้วอัพเดทดัชนี
+     */
+    public void refreshCapacity(int shelterId) {
+        invalidateShelter(shelterId);
+        Shelter shelter = getShelterById(shelterId);
+        if (shelter != null) {
+            getCapacityIndex().put(shelter);
+        } else {
+            getCapacityIndex().remove(shelterId);
+        }
+    }
+
+    /**
+     * แจ้งว่าจำนวนคนในศูนย์พักพิงเปลี่ยน (หลังบันทึกลงฐานข้อมูลแล้ว)
+     */
+    void occupancyChanged(int shelterId, int delta) {
+        invalidateShelter(shelterId);
+        ShelterCapacityIndex index = loadedCapacityIndex();
+        if (index != null) {
+            index.adjustOccupancy(shelterId, delta);
+        }
+    }
+
+    // ==================== Cache ====================
+
+    /**
+     * อ่านศูนย์พักพิงผ่าน cache (object ที่ได้ใช้ร่วมกัน ห้ามแก้ไข)
+     */
+    Shelter findShelter(int id) throws SQLException {
+        return shelterCache.get(id, dbManager::getShelterById);
+    }
+
+    private List<Shelter> findAllShelters() throws SQLException {
+        return shelterQueryCache.get("all", key -> dbManager.getAllShelters());
+    }
+
+    /**
+     * ล้างข้อมูลของศูนย์ที่เปลี่ยน (ครั้งถัดไปจะอ่านใหม่จากฐานข้อมูล) และผล query รายการ
+     * ใช้ล้างแทนการเขียนค่าใหม่ลง cache เพราะการจัดสรรพร้อมกันอาจเขียนค่าเก่าทับค่าใหม่ได้
+     */
+    void invalidateShelter(int shelterId) {
+        shelterCache.invalidate(shelterId);
+        shelterQueryCache.invalidateAll();
+    }
+
+    /**
+     * เก็บแถวของศูนย์ที่เพิ่งได้จากการจัดสรร (UPDATE ... RETURNING) ลง cache แทนการล้างแล้วอ่านใหม่
+     * การจัดสรรเพิ่มจำนวนคนอย่างเดียว ค่าที่จำนวนคนน้อยกว่าจึงเป็นค่าเก่าที่มาช้า ไม่เขียนทับ
+     * (การแก้จำนวนคนโดยตรงใช้ invalidateShelter)
+     */
+    void shelterAssigned(Shelter shelter) {
+        shelterCache.putIfNewer(shelter.getId(), shelter,
+                (current, value) -> current.getCurrentOccupancy() > value.getCurrentOccupancy());
+        shelterQueryCache.invalidateAll();
+    }
+
+    /**
+     * ล้าง cache ทั้งหมด (หลังเขียนข้อมูลศูนย์พักพิงหลายแห่งโดยตรงผ่าน DatabaseManager)
+     */
+    public void invalidateShelters() {
+        shelterCache.invalidateAll();
+        shelterQueryCache.invalidateAll();
+    }
+
+    public ReadThroughCache<Integer, Shelter> getShelterCache() {
+        return shelterCache;
+    }
+
+    public ReadThroughCache<String, List<Shelter>> getShelterQueryCache() {
+        return shelterQueryCache;
+    }
+
+    // ถ้ายังไม่เคยโหลดดัชนี ไม่ต้องอัพเดท (ตอนโหลดจะอ่านค่าล่าสุดจากฐานข้อมูลอยู่แล้ว)
+    private ShelterCapacityIndex loadedCapacityIndex() {
+        return capacityIndex;
     }
 }
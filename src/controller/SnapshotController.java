@@ -0,0 +1,173 @@
+package controller;
+
+import database.DatabaseManager;
+import metrics.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * เริ่มโปรแกรมจาก WorkingSetSnapshot แทนการโหลดจากฐานข้อมูล และบันทึก snapshot เป็นระยะ/ตอนปิดโปรแกรม
+ * - ตอนเริ่ม: ตัวนับสถิติและดัชนีที่ว่างใช้ค่าจากไฟล์ทันที รายชื่อผู้รอโหลดจากไฟล์เบื้องหลัง
+ * - จากนั้นตรวจทุกส่วนกับฐานข้อมูลเบื้องหลังและแก้ค่าที่ไม่ตรง (เช่น snapshot เก่าเพราะปิดโปรแกรมไม่ปกติ)
+ */
+public class SnapshotController {
+    private DatabaseManager dbManager;
+    private CitizenController citizenController;
+    private ShelterController shelterController;
+    private StatisticsController statisticsController;
+
+    private final File file;
+    private ScheduledExecutorService scheduler;
+
+    public SnapshotController(DatabaseManager dbManager, CitizenController citizenController,
+            ShelterController shelterController, StatisticsController statisticsController) {
+        this.dbManager = dbManager;
+        this.citizenController = citizenController;
+        this.shelterController = shelterController;
+        this.statisticsController = statisticsController;
+        this.file = new File(dbManager.getConfig().getSnapshotPath());
+    }
+
+    /**
+     * อ่าน snapshot ของฐานข้อมูลนี้ (เรียกก่อนสร้าง StatisticsController)
+     *
+     * @return null ถ้าไม่มีไฟล์ อ่านไม่ได้ หรือเป็นของฐานข้อมูลอื่น (journal ไม่ตรงกัน)
+     */
+    public static WorkingSetSnapshot load(DatabaseManager dbManager) {
+        File file = new File(dbManager.getConfig().getSnapshotPath());
+        try {
+            WorkingSetSnapshot snapshot = WorkingSetSnapshot.read(file);
+            if (snapshot != null && snapshot.getJournalId() != dbManager.getJournalId()) {
+                System.out.println("snapshot ไม่ตรงกับฐานข้อมูล โหลดข้อมูลจากฐานข้อมูลแทน");
+                return null;
+            }
+            return snapshot;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // ==================== Warm start ====================
+
+    /**
+     * ใช้ snapshot กับดัชนีที่ว่างและรายชื่อผู้รอ (ตัวนับสถิติใช้ไปแล้วตอนสร้าง StatisticsController)
+     * แล้วตรวจกับฐานข้อมูลเบื้องหลัง
+     *
+     * @param snapshot    null = ไม่มี snapshot (โหลดรายชื่อผู้รอจากฐานข้อมูลเบื้องหลังถ้าเปิดใช้)
+     * @param waitingList เปิดใช้ WaitingList หรือไม่
+     * @return future ที่เสร็จเมื่อโหลดและตรวจสอบครบ
+     */
+    public CompletableFuture<Void> restore(WorkingSetSnapshot snapshot, boolean waitingList) {
+        if (snapshot != null) {
+            shelterController.restoreCapacityIndex(snapshot.getShelters());
+        }
+
+        CompletableFuture<WaitingList> loading = waitingList
+                ? citizenController.enableWaitingListAsync(snapshot)
+                : CompletableFuture.completedFuture(null);
+        if (snapshot == null) {
+            return loading.thenApply(list -> null);
+        }
+        return loading.thenCompose(list -> AsyncExecutor.submit(() -> {
+            verify(snapshot, list);
+            return null;
+        }));
+    }
+
+    private void verify(WorkingSetSnapshot snapshot, WaitingList list) throws Exception {
+        long startNanos = System.nanoTime();
+        boolean statistics = statisticsController.verify();
+        int shelters = shelterController.verifyCapacityIndex();
+        int citizens = 0;
+        if (list != null && snapshot.hasWaitingCitizens()) {
+            citizens = list.merge(handler -> dbManager.forEachUnassignedCitizen(false, handler), true);
+        }
+
+        System.out.printf("ตรวจ snapshot กับฐานข้อมูลเสร็จใน %,d ms: ตัวนับ%s, แก้ศูนย์พักพิง %d แห่ง, แก้รายชื่อผู้รอ %d รายการ%n",
+                (System.nanoTime() - startNanos) / 1_000_000, statistics ? "ตรงกัน" : "ไม่ตรง (นับใหม่แล้ว)",
+                Math.max(shelters, 0), Math.max(citizens, 0));
+    }
+
+    // ==================== Save ====================
+
+    /**
+     * บันทึกสถานะปัจจุบันลงไฟล์ รวมรายชื่อผู้รอเสมอ (จาก WaitingList ถ้าเปิดใช้ ไม่เช่นนั้นอ่านจากฐานข้อมูล)
+     *
+     * @return ขนาดไฟล์ (bytes) หรือ -1 ถ้าไม่สำเร็จ
+     */
+    public synchronized long save() {
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            long result = doSave();
+            failed = result < 0;
+            return result;
+        } finally {
+            Metrics.timer("snapshot.save").record(startNanos, failed);
+        }
+    }
+
+    private long doSave() {
+        WorkingSetSnapshot snapshot = new WorkingSetSnapshot();
+        snapshot.setSavedAt(System.currentTimeMillis());
+        snapshot.setJournalId(dbManager.getJournalId());
+        snapshot.setJournalSeq(dbManager.getJournalSeq());
+        statisticsController.saveTo(snapshot);
+
+        WaitingList list = citizenController.getWaitingList();
+        if (list != null) {
+            snapshot.setWaitingCitizens(list.getCitizens());
+        } else {
+            // ไม่ได้เปิดใช้หรือยังโหลดไม่เสร็จ: อ่านทีละแถวระหว่างเขียนไฟล์ ไม่เก็บทั้งหมดไว้ในหน่วยความจำ
+            snapshot.setWaitingCitizens(handler -> dbManager.forEachUnassignedCitizen(true, handler));
+        }
+
+        try {
+            snapshot.setShelters(dbManager.getAllShelters());
+            return snapshot.write(file);
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * บันทึก snapshot อัตโนมัติทุก intervalSeconds (0 = ไม่บันทึกเป็นระยะ)
+     */
+    public synchronized void startPeriodicSave(int intervalSeconds) {
+        if (scheduler != null || intervalSeconds <= 0) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                save();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopPeriodicSave() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,336 @@
+package controller;
+
+import database.DatabaseManager;
+import event.BulkDataChanged;
+import event.CitizenAssigned;
+import event.CitizenRegistered;
+import event.DomainEvent;
+import event.EventBus;
+import event.OccupancyChanged;
+import event.ShelterAdded;
+import model.Assignment;
+import model.Citizen;
+import model.Shelter;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ตัวนับสถิติที่อัพเดทตามเหตุการณ์ (อ่านได้ทันทีโดยไม่ต้อง query ฐานข้อมูล)
+ * - สร้างใหม่จากฐานข้อมูลตอนเริ่มต้น (หรือจาก WorkingSetSnapshot) และหลังนำเข้า/จัดสรรแบบกลุ่ม (BulkDataChanged)
+ * - ลงทะเบียน/จัดสรรทีละคนจะปรับตัวนับตาม CitizenRegistered / CitizenAssigned
+ * - เหตุการณ์ที่มาถึงระหว่างนับจากฐานข้อมูลถูกเก็บไว้แล้วเล่นซ้ำหลังการนับ (เฉพาะที่ id ใหม่กว่าจุดที่นับ)
+ */
+public class StatisticsController {
+    private DatabaseManager dbManager;
+
+    // ทุก field ด้านล่างอ่าน/เขียนภายใต้ lock ของ this
+    private int totalCitizens;
+    private int assignedCitizens;
+    private int unassignedPriorityCitizens;
+    private int unassignedHealthRiskCitizens;
+    private final Map<Citizen.CitizenType, Integer> citizensByType = new EnumMap<>(Citizen.CitizenType.class);
+    private final Map<Integer, Integer> shelterOccupancy = new HashMap<>();
+    // id ล่าสุดที่รวมอยู่ในการนับครั้งล่าสุด (เหตุการณ์ที่ id ไม่เกินค่านี้ถูกนับจากฐานข้อมูลแล้ว)
+    private int countedCitizenId;
+    private int countedAssignmentId;
+    // การนับที่กำลังอ่านฐานข้อมูลอยู่
+    private final List<Recording> recordings = new ArrayList<>();
+
+    public StatisticsController(DatabaseManager dbManager, EventBus eventBus) {
+        this(dbManager, eventBus, null);
+    }
+
+    /**
+     * เริ่มจากตัวนับใน snapshot โดยไม่ query ฐานข้อมูล (null = นับจากฐานข้อมูล)
+     * ควรเรียก verify() เบื้องหลังภายหลังเพื่อแก้ค่าที่เปลี่ยนไปหลังบันทึก snapshot
+     */
+    public StatisticsController(DatabaseManager dbManager, EventBus eventBus, WorkingSetSnapshot snapshot) {
+        this.dbManager = dbManager;
+        subscribe(eventBus);
+        if (snapshot != null) {
+            restore(snapshot);
+        } else {
+            rebuild();
+        }
+    }
+
+    private void subscribe(EventBus eventBus) {
+        eventBus.subscribe(CitizenRegistered.class, this::onEvent);
+        eventBus.subscribe(CitizenAssigned.class, this::onEvent);
+        eventBus.subscribe(ShelterAdded.class, this::onEvent);
+        eventBus.subscribe(OccupancyChanged.class, this::onEvent);
+        eventBus.subscribe(BulkDataChanged.class, event -> rebuild());
+    }
+
+    // ==================== Rebuild ====================
+
+    /**
+     * ตัวนับที่นับจากฐานข้อมูลหนึ่งครั้ง
+     */
+    private static final class Counts {
+        int total;
+        int assigned;
+        int unassignedPriority;
+        int unassignedHealthRisk;
+        int lastCitizenId;
+        int lastAssignmentId;
+        final Map<Citizen.CitizenType, Integer> byType = new EnumMap<>(Citizen.CitizenType.class);
+        final Map<Integer, Integer> occupancy = new HashMap<>();
+    }
+
+    /**
+     * เหตุการณ์ที่มาถึงระหว่างการนับหนึ่งครั้ง
+     */
+    private static final class Recording {
+        final List<DomainEvent> events = new ArrayList<>();
+    }
+
+    /**
+     * นับใหม่ทั้งหมดจากฐานข้อมูล (query แบบ GROUP BY ครั้งเดียว + ศูนย์พักพิงทุกแห่ง)
+     */
+    public void rebuild() {
+        Recording recording = startRecording();
+        Counts counts = count();
+        synchronized (this) {
+            recordings.remove(recording);
+            if (counts != null) {
+                apply(counts, recording);
+            }
+        }
+    }
+
+    /**
+     * นับใหม่จากฐานข้อมูลแล้วเทียบกับค่าที่มีอยู่ (หลังจากนี้ใช้ค่าจากฐานข้อมูล)
+     *
+     * @return true ถ้าค่าเดิมตรงกับฐานข้อมูล
+     */
+    public boolean verify() {
+        Recording recording = startRecording();
+        Counts counts = count();
+        synchronized (this) {
+            recordings.remove(recording);
+            if (counts == null) {
+                return false;
+            }
+            // เทียบหลังเล่นเหตุการณ์ซ้ำ เหตุการณ์ระหว่างนับจึงไม่ทำให้ผลไม่ตรง
+            Counts before = current();
+            apply(counts, recording);
+            return matches(before);
+        }
+    }
+
+    private synchronized Recording startRecording() {
+        Recording recording = new Recording();
+        recordings.add(recording);
+        return recording;
+    }
+
+    private Counts count() {
+        Counts counts = new Counts();
+        try {
+            dbManager.forEachCitizenCountGroup(group -> {
+                counts.total += group.getCount();
+                if (group.isAssigned()) {
+                    counts.assigned += group.getCount();
+                } else {
+                    if (group.isPriorityGroup()) {
+                        counts.unassignedPriority += group.getCount();
+                    }
+                    if (group.hasHealthRisk()) {
+                        counts.unassignedHealthRisk += group.getCount();
+                    }
+                }
+                counts.byType.merge(group.getType(), group.getCount(), Integer::sum);
+                counts.lastCitizenId = group.getLastCitizenId();
+                counts.lastAssignmentId = group.getLastAssignmentId();
+            });
+            dbManager.forEachShelter(shelter -> counts.occupancy.put(shelter.getId(), shelter.getCurrentOccupancy()));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+        return counts;
+    }
+
+    // ต้องถือ lock ของ this อยู่
+    private void apply(Counts counts, Recording recording) {
+        totalCitizens = counts.total;
+        assignedCitizens = counts.assigned;
+        unassignedPriorityCitizens = counts.unassignedPriority;
+        unassignedHealthRiskCitizens = counts.unassignedHealthRisk;
+        citizensByType.clear();
+        citizensByType.putAll(counts.byType);
+        shelterOccupancy.clear();
+        shelterOccupancy.putAll(counts.occupancy);
+        countedCitizenId = counts.lastCitizenId;
+        countedAssignmentId = counts.lastAssignmentId;
+
+        // เหตุการณ์ที่ commit หลังจุดที่นับยังไม่อยู่ในผลนับ (ที่เหลือถูกข้ามด้วย id)
+        for (DomainEvent event : recording.events) {
+            handle(event);
+        }
+    }
+
+    // ต้องถือ lock ของ this อยู่
+    private Counts current() {
+        Counts counts = new Counts();
+        counts.total = totalCitizens;
+        counts.assigned = assignedCitizens;
+        counts.unassignedPriority = unassignedPriorityCitizens;
+        counts.unassignedHealthRisk = unassignedHealthRiskCitizens;
+        counts.byType.putAll(citizensByType);
+        counts.occupancy.putAll(shelterOccupancy);
+        return counts;
+    }
+
+    // ต้องถือ lock ของ this อยู่
+    private boolean matches(Counts counts) {
+        return totalCitizens == counts.total
+                && assignedCitizens == counts.assigned
+                && unassignedPriorityCitizens == counts.unassignedPriority
+                && unassignedHealthRiskCitizens == counts.unassignedHealthRisk
+                && citizensByType.equals(counts.byType)
+                && shelterOccupancy.equals(counts.occupancy);
+    }
+
+    public CompletableFuture<Void> rebuildAsync() {
+        return AsyncExecutor.submit(() -> {
+            rebuild();
+            return null;
+        });
+    }
+
+    // ==================== Snapshot ====================
+
+    private synchronized void restore(WorkingSetSnapshot snapshot) {
+        totalCitizens = snapshot.getTotalCitizens();
+        assignedCitizens = snapshot.getAssignedCitizens();
+        unassignedPriorityCitizens = snapshot.getUnassignedPriorityCitizens();
+        unassignedHealthRiskCitizens = snapshot.getUnassignedHealthRiskCitizens();
+        citizensByType.clear();
+        citizensByType.putAll(snapshot.getCitizensByType());
+        shelterOccupancy.clear();
+        for (Shelter shelter : snapshot.getShelters()) {
+            shelterOccupancy.put(shelter.getId(), shelter.getCurrentOccupancy());
+        }
+    }
+
+    /**
+     * คัดลอกตัวนับปัจจุบันลง snapshot (ค่าทั้งหมดมาจากจุดเวลาเดียวกัน)
+     */
+    public synchronized void saveTo(WorkingSetSnapshot snapshot) {
+        snapshot.setTotalCitizens(totalCitizens);
+        snapshot.setAssignedCitizens(assignedCitizens);
+        snapshot.setUnassignedPriorityCitizens(unassignedPriorityCitizens);
+        snapshot.setUnassignedHealthRiskCitizens(unassignedHealthRiskCitizens);
+        snapshot.getCitizensByType().clear();
+        snapshot.getCitizensByType().putAll(citizensByType);
+    }
+
+    // ==================== Event handlers ====================
+
+    private synchronized void onEvent(DomainEvent event) {
+        for (Recording recording : recordings) {
+            recording.events.add(event);
+        }
+        handle(event);
+    }
+
+    // ต้องถือ lock ของ this อยู่
+    private void handle(DomainEvent event) {
+        if (event instanceof CitizenRegistered) {
+            Citizen citizen = ((CitizenRegistered) event).getCitizen();
+            if (citizen.getId() > countedCitizenId) {
+                citizenRegistered(citizen);
+            }
+        } else if (event instanceof CitizenAssigned) {
+            Assignment assignment = ((CitizenAssigned) event).getAssignment();
+            if (assignment.getId() > countedAssignmentId) {
+                citizenAssigned(assignment.getCitizen());
+            }
+        } else if (event instanceof ShelterAdded) {
+            shelterChanged(((ShelterAdded) event).getShelter());
+        } else if (event instanceof OccupancyChanged) {
+            shelterChanged(((OccupancyChanged) event).getShelter());
+        }
+    }
+
+    private void citizenRegistered(Citizen citizen) {
+        totalCitizens++;
+        citizensByType.merge(citizen.getType(), 1, Integer::sum);
+        if (citizen.isPriorityGroup()) {
+            unassignedPriorityCitizens++;
+        }
+        if (citizen.hasHealthRisk()) {
+            unassignedHealthRiskCitizens++;
+        }
+    }
+
+    private void citizenAssigned(Citizen citizen) {
+        assignedCitizens++;
+        if (citizen != null && citizen.isPriorityGroup()) {
+            unassignedPriorityCitizens--;
+        }
+        if (citizen != null && citizen.hasHealthRisk()) {
+            unassignedHealthRiskCitizens--;
+        }
+    }
+
+    private void shelterChanged(Shelter shelter) {
+        shelterOccupancy.put(shelter.getId(), shelter.getCurrentOccupancy());
+    }
+
+    // ==================== Read ====================
+
+    public synchronized int getTotalCitizens() {
+        return totalCitizens;
+    }
+
+    public synchronized int getAssignedCitizens() {
+        return assignedCitizens;
+    }
+
+    public synchronized int getUnassignedCitizens() {
+        return totalCitizens - assignedCitizens;
+    }
+
+    /**
+     * จำนวนเด็ก/ผู้สูงอายุที่ยังไม่ได้รับการจัดสรร
+     */
+    public synchronized int getUnassignedPriorityCitizens() {
+        return unassignedPriorityCitizens;
+    }
+
+    /**
+     * จำนวนผู้มีความเสี่ยงด้านสุขภาพที่ยังไม่ได้รับการจัดสรร (ต้องการศูนย์ความเสี่ยงต่ำ)
+     */
+    public synchronized int getUnassignedHealthRiskCitizens() {
+        return unassignedHealthRiskCitizens;
+    }
+
+    public synchronized int getCitizenCount(Citizen.CitizenType type) {
+        Integer count = citizensByType.get(type);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * จำนวนคนในศูนย์พักพิง (0 ถ้าไม่รู้จัก id นี้)
+     */
+    public synchronized int getShelterOccupancy(int shelterId) {
+        Integer count = shelterOccupancy.get(shelterId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * สำเนาจำนวนคนของทุกศูนย์พักพิง (key = shelter id)
+     */
+    public synchronized Map<Integer, Integer> getShelterOccupancies() {
+        return new HashMap<>(shelterOccupancy);
+    }
+}
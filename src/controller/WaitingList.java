@@ -0,0 +1,209 @@
+package controller;
+
+import database.DatabaseManager;
+import database.RowHandler;
+import event.BulkDataChanged;
+import event.CitizenAssigned;
+import event.CitizenRegistered;
+import event.EventBus;
+import metrics.Metrics;
+import model.Citizen;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * รายชื่อผู้ที่รอจัดสรรในหน่วยความจำที่เรียงตามลำดับความสำคัญอยู่ตลอดเวลา
+ * - key = Citizen.getPrioritySortKey() (long เดียว) จึงเพิ่ม/ลบได้ใน O(log n) โดยไม่ต้องเรียงใหม่
+ * - อัพเดทตาม CitizenRegistered / CitizenAssigned และโหลดใหม่เมื่อ BulkDataChanged
+ * การเพิ่มและลบเป็นแบบ idempotent: เหตุการณ์ที่มาซ้ำกับข้อมูลที่โหลดแล้วไม่ทำให้เกิดรายการซ้ำ
+ * เติมรายชื่อเบื้องหลังด้วย merge() ได้ขณะรับเหตุการณ์อยู่ (ใช้ตอนเริ่มจาก WorkingSetSnapshot)
+ */
+public class WaitingList {
+    private DatabaseManager dbManager;
+
+    private final ConcurrentSkipListMap<Long, Citizen> citizens = new ConcurrentSkipListMap<>();
+    // id -> sort key สำหรับลบตาม id
+    private final Map<Integer, Long> keys = new ConcurrentHashMap<>();
+    // merge ที่กำลังทำอยู่ (null = ไม่มี) อ่าน/เขียนภายใต้ lock ของ this
+    private Merge merge;
+
+    /**
+     * แหล่งรายชื่อผู้รอสำหรับ merge (เช่น snapshot หรือฐานข้อมูล)
+     */
+    public interface Source {
+        void forEach(RowHandler<Citizen> handler) throws Exception;
+    }
+
+    /**
+     * id ที่ถูกเพิ่ม/ลบด้วยเหตุการณ์ระหว่าง merge (ข้อมูลจาก source อาจเก่ากว่าเหตุการณ์เหล่านี้)
+     */
+    private static final class Merge {
+        final Set<Integer> added = new HashSet<>();
+        final Set<Integer> removed = new HashSet<>();
+    }
+
+    public WaitingList(DatabaseManager dbManager, EventBus eventBus) {
+        this.dbManager = dbManager;
+        eventBus.subscribe(CitizenRegistered.class, event -> add(event.getCitizen()));
+        eventBus.subscribe(CitizenAssigned.class, event -> remove(event.getAssignment().getCitizenId()));
+        eventBus.subscribe(BulkDataChanged.class, event -> reload());
+        // size() ของ ConcurrentSkipListMap ต้องนับทั้งหมด จึงใช้ขนาดของ keys แทน
+        Metrics.gauge("waitingList.size", keys::size);
+    }
+
+    /**
+     * โหลดรายชื่อที่ยังไม่ได้รับการจัดสรรทั้งหมดจากฐานข้อมูล
+     */
+    public synchronized void reload() {
+        merge = null; // ยกเลิก merge ที่ค้างอยู่
+        citizens.clear();
+        keys.clear();
+        try {
+            dbManager.forEachUnassignedCitizen(false, this::add);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized void add(Citizen citizen) {
+        if (merge != null) {
+            merge.added.add(citizen.getId());
+            merge.removed.remove(citizen.getId());
+        }
+        put(citizen);
+    }
+
+    private void put(Citizen citizen) {
+        long key = citizen.getPrioritySortKey();
+        Long previous = keys.put(citizen.getId(), key);
+        if (previous != null && previous != key) {
+            citizens.remove(previous);
+        }
+        citizens.put(key, citizen);
+    }
+
+    public synchronized void remove(int citizenId) {
+        if (merge != null) {
+            merge.removed.add(citizenId);
+        }
+        delete(citizenId);
+    }
+
+    private void delete(int citizenId) {
+        Long key = keys.remove(citizenId);
+        if (key != null) {
+            citizens.remove(key);
+        }
+    }
+
+    // ==================== Merge ====================
+
+    /**
+     * เติมรายชื่อจาก source ทีละคนโดยไม่ล้างรายการเดิม (ไม่ถือ lock ระหว่างอ่าน source)
+     * ข้ามคนที่มีอยู่แล้ว หรือถูกจัดสรรไประหว่าง merge
+     *
+     * @param prune true ถ้า source คือรายชื่อผู้รอที่ครบถ้วน (ฐานข้อมูล)
+     *              คนที่อยู่ในรายการแต่ไม่อยู่ใน source และไม่ได้มาจากเหตุการณ์ระหว่าง merge จะถูกลบ
+     * @return จำนวนรายการที่เพิ่มหรือลบ หรือ -1 ถ้าถูกยกเลิกด้วย reload()
+     */
+    public int merge(Source source, boolean prune) throws Exception {
+        Merge current = new Merge();
+        synchronized (this) {
+            merge = current;
+        }
+
+        BitSet seen = new BitSet();
+        int[] changes = new int[1];
+        try {
+            source.forEach(citizen -> {
+                seen.set(citizen.getId());
+                if (mergeOne(current, citizen)) {
+                    changes[0]++;
+                }
+            });
+            if (prune) {
+                synchronized (this) {
+                    if (merge != current) {
+                        return -1;
+                    }
+                    for (Integer id : new ArrayList<>(keys.keySet())) {
+                        if (!seen.get(id) && !current.added.contains(id)) {
+                            delete(id);
+                            changes[0]++;
+                        }
+                    }
+                }
+            }
+            return changes[0];
+        } catch (CancellationException e) {
+            return -1;
+        } finally {
+            synchronized (this) {
+                if (merge == current) {
+                    merge = null;
+                }
+            }
+        }
+    }
+
+    private synchronized boolean mergeOne(Merge current, Citizen citizen) {
+        if (merge != current) {
+            throw new CancellationException();
+        }
+        if (current.removed.contains(citizen.getId()) || keys.containsKey(citizen.getId())) {
+            return false;
+        }
+        put(citizen);
+        return true;
+    }
+
+    // ==================== Read ====================
+
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * ผู้ที่รอตามลำดับความสำคัญ (limit = 0 คือทั้งหมด)
+     */
+    public List<Citizen> getCitizens(int offset, int limit) {
+        List<Citizen> result = new ArrayList<>();
+        int skipped = 0;
+        for (Citizen citizen : citizens.values()) {
+            if (skipped++ < offset) {
+                continue;
+            }
+            if (limit > 0 && result.size() >= limit) {
+                break;
+            }
+            result.add(citizen);
+        }
+        return result;
+    }
+
+    /**
+     * ผู้ที่รอทั้งหมดตามลำดับความสำคัญ (อ่านอย่างเดียว ไม่ต้องคัดลอก สะท้อนการเปลี่ยนแปลงระหว่างวน)
+     */
+    public Collection<Citizen> getCitizens() {
+        return Collections.unmodifiableCollection(citizens.values());
+    }
+
+    /**
+     * ผู้ที่ควรได้รับการจัดสรรเป็นคนถัดไป (null ถ้าไม่มีผู้รอ)
+     */
+    public Citizen peek() {
+        Map.Entry<Long, Citizen> first = citizens.firstEntry();
+        return first != null ? first.getValue() : null;
+    }
+}
@@ -0,0 +1,335 @@
+package controller;
+
+import database.RowHandler;
+import model.Citizen;
+import model.Shelter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ไฟล์ snapshot ของข้อมูลที่ใช้งานบ่อย (ตัวนับสถิติ ศูนย์พักพิง และรายชื่อผู้รอจัดสรร)
+ * ใช้เริ่มโปรแกรมโดยไม่ต้องนับ/โหลดใหม่จากฐานข้อมูล แล้วค่อยตรวจกับฐานข้อมูลเบื้องหลัง
+ *
+ * รูปแบบไฟล์ (DataOutputStream แบบ big-endian):
+ * header (magic, version, savedAt, journalId, journalSeq) ตัวนับ จำนวนตามประเภท ศูนย์พักพิงทุกแห่ง
+ * แล้วตามด้วยผู้รอจัดสรรเรียงตามลำดับความสำคัญ (flag false = ไม่ได้บันทึก) และ END_MARKER
+ * ส่วนผู้รอจัดสรรอ่านแยกภายหลังด้วย forEachWaitingCitizen เพื่อให้การเปิดไฟล์ตอนเริ่มโปรแกรมเร็ว
+ */
+public class WorkingSetSnapshot {
+    private static final int MAGIC = 0x53485331; // "SHS1"
+    // เปลี่ยนเมื่อรูปแบบไฟล์หรือลำดับค่าใน enum เปลี่ยน (ไฟล์เวอร์ชันอื่นจะถูกข้าม)
+    private static final int VERSION = 1;
+    private static final int END_MARKER = 0x454e4421; // "END!"
+    private static final int BUFFER_BYTES = 1024 * 1024;
+
+    private long savedAt;
+    private long journalId;
+    private long journalSeq;
+    private int totalCitizens;
+    private int assignedCitizens;
+    private int unassignedPriorityCitizens;
+    private int unassignedHealthRiskCitizens;
+    private final Map<Citizen.CitizenType, Integer> citizensByType = new EnumMap<>(Citizen.CitizenType.class);
+    private List<Shelter> shelters = new ArrayList<>();
+
+    // ตอนเขียน: รายชื่อผู้รอ (null = ไม่บันทึก)
+    private WaitingList.Source waitingCitizens;
+    // ตอนอ่าน: ไฟล์และตำแหน่งเริ่มของส่วนผู้รอ
+    private File file;
+    private long waitingCitizensOffset;
+    private int waitingCitizenCount = -1;
+
+    // ==================== Write ====================
+
+    /**
+     * เขียนลงไฟล์ชั่วคราวแล้วเปลี่ยนชื่อทับไฟล์เดิม (ไฟล์ที่อ่านได้จึงสมบูรณ์เสมอ)
+     *
+     * @return ขนาดไฟล์ (bytes)
+     */
+    public long write(File target) throws IOException {
+        File temp = new File(target.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, BUFFER_BYTES))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(savedAt);
+            out.writeLong(journalId);
+            out.writeLong(journalSeq);
+
+            out.writeInt(totalCitizens);
+            out.writeInt(assignedCitizens);
+            out.writeInt(unassignedPriorityCitizens);
+            out.writeInt(unassignedHealthRiskCitizens);
+            out.writeInt(citizensByType.size());
+            for (Map.Entry<Citizen.CitizenType, Integer> entry : citizensByType.entrySet()) {
+                out.writeByte(entry.getKey().ordinal());
+                out.writeInt(entry.getValue());
+            }
+
+            out.writeInt(shelters.size());
+            for (Shelter shelter : shelters) {
+                out.writeInt(shelter.getId());
+                out.writeUTF(shelter.getName());
+                out.writeInt(shelter.getMaxCapacity());
+                out.writeInt(shelter.getCurrentOccupancy());
+                out.writeByte(shelter.getRiskLevel().ordinal());
+            }
+
+            writeWaitingCitizens(out);
+            out.writeInt(END_MARKER);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return target.length();
+    }
+
+    // จำนวนยังไม่รู้จนกว่าจะวนครบ จึงเขียนแบบ [1][citizen]... [0] แทนการเขียนจำนวนก่อน
+    private void writeWaitingCitizens(DataOutputStream out) throws IOException {
+        out.writeBoolean(waitingCitizens != null);
+        if (waitingCitizens == null) {
+            return;
+        }
+        try {
+            waitingCitizens.forEach(citizen -> {
+                try {
+                    writeWaitingCitizen(out, citizen);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("อ่านรายชื่อผู้รอไม่สำเร็จ", e);
+        }
+        out.writeBoolean(false);
+    }
+
+    private static void writeWaitingCitizen(DataOutputStream out, Citizen citizen) throws IOException {
+        out.writeBoolean(true);
+        out.writeInt(citizen.getId());
+        out.writeUTF(citizen.getName());
+        out.writeInt(citizen.getAge());
+        out.writeBoolean(citizen.getHealthCondition() != null);
+        if (citizen.getHealthCondition() != null) {
+            out.writeUTF(citizen.getHealthCondition());
+        }
+        out.writeLong(citizen.getRegistrationDate().toEpochDay());
+        out.writeByte(citizen.getType().ordinal());
+        out.writeBoolean(citizen.hasHealthRisk());
+    }
+
+    // ==================== Read ====================
+
+    /**
+     * อ่านส่วนหัว ตัวนับ และศูนย์พักพิง (ยังไม่อ่านรายชื่อผู้รอ)
+     *
+     * @return null ถ้าไม่มีไฟล์ หรือไฟล์ไม่ใช่ snapshot เวอร์ชันนี้
+     */
+    public static WorkingSetSnapshot read(File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+
+            WorkingSetSnapshot snapshot = new WorkingSetSnapshot();
+            snapshot.file = file;
+            snapshot.savedAt = in.readLong();
+            snapshot.journalId = in.readLong();
+            snapshot.journalSeq = in.readLong();
+
+            snapshot.totalCitizens = in.readInt();
+            snapshot.assignedCitizens = in.readInt();
+            snapshot.unassignedPriorityCitizens = in.readInt();
+            snapshot.unassignedHealthRiskCitizens = in.readInt();
+            Citizen.CitizenType[] types = Citizen.CitizenType.values();
+            int typeCount = in.readInt();
+            for (int i = 0; i < typeCount; i++) {
+                snapshot.citizensByType.put(types[in.readUnsignedByte()], in.readInt());
+            }
+
+            Shelter.RiskLevel[] levels = Shelter.RiskLevel.values();
+            int shelterCount = in.readInt();
+            List<Shelter> shelters = new ArrayList<>(shelterCount);
+            for (int i = 0; i < shelterCount; i++) {
+                shelters.add(new Shelter(in.readInt(), in.readUTF(), in.readInt(), in.readInt(),
+                        levels[in.readUnsignedByte()]));
+            }
+            snapshot.shelters = shelters;
+
+            // available() ของ FileInputStream ใน buffer = จำนวน byte ที่ยังไม่ได้อ่านทั้งหมด
+            snapshot.waitingCitizensOffset = file.length() - in.available();
+            if (in.readBoolean()) {
+                snapshot.waitingCitizenCount = 0;
+            }
+            return snapshot;
+        } catch (EOFException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * มีรายชื่อผู้รอจัดสรรในไฟล์หรือไม่
+     */
+    public boolean hasWaitingCitizens() {
+        return waitingCitizenCount >= 0;
+    }
+
+    /**
+     * วนรายชื่อผู้รอจัดสรรจากไฟล์ตามลำดับความสำคัญ (อ่านทีละคน ใช้หน่วยความจำคงที่)
+     *
+     * @return จำนวนที่อ่านได้
+     * @throws IOException ถ้าไฟล์ไม่สมบูรณ์ (รายการที่ส่งให้ handler ไปแล้วยังถูกต้อง)
+     */
+    public int forEachWaitingCitizen(RowHandler<Citizen> handler) throws IOException, SQLException {
+        if (!hasWaitingCitizens()) {
+            return 0;
+        }
+
+        Citizen.CitizenType[] types = Citizen.CitizenType.values();
+        int count = 0;
+        try (FileInputStream fileIn = new FileInputStream(file)) {
+            fileIn.getChannel().position(waitingCitizensOffset + 1);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn, BUFFER_BYTES));
+            while (in.readBoolean()) {
+                handler.handle(new Citizen(in.readInt(), in.readUTF(), in.readInt(),
+                        in.readBoolean() ? in.readUTF() : null, LocalDate.ofEpochDay(in.readLong()),
+                        types[in.readUnsignedByte()], in.readBoolean()));
+                count++;
+            }
+            if (in.readInt() != END_MARKER) {
+                throw new IOException("snapshot ไม่สมบูรณ์: " + file);
+            }
+        } catch (EOFException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("snapshot ไม่สมบูรณ์: " + file, e);
+        }
+        waitingCitizenCount = count;
+        return count;
+    }
+
+    // ==================== Getters and Setters ====================
+
+    public long getSavedAt() {
+        return savedAt;
+    }
+
+    public void setSavedAt(long savedAt) {
+        this.savedAt = savedAt;
+    }
+
+    /**
+     * journal ของฐานข้อมูลตอนบันทึก (0 ถ้าไม่ได้เปิดใช้) ใช้ตรวจว่าเป็นฐานข้อมูลไฟล์เดียวกัน
+     */
+    public long getJournalId() {
+        return journalId;
+    }
+
+    public void setJournalId(long journalId) {
+        this.journalId = journalId;
+    }
+
+    /**
+     * seq ล่าสุดของ journal ตอนบันทึก (ถ้าน้อยกว่าปัจจุบัน แสดงว่ามีการเขียนหลังบันทึก snapshot)
+     */
+    public long getJournalSeq() {
+        return journalSeq;
+    }
+
+    public void setJournalSeq(long journalSeq) {
+        this.journalSeq = journalSeq;
+    }
+
+    public int getTotalCitizens() {
+        return totalCitizens;
+    }
+
+    public void setTotalCitizens(int totalCitizens) {
+        this.totalCitizens = totalCitizens;
+    }
+
+    public int getAssignedCitizens() {
+        return assignedCitizens;
+    }
+
+    public void setAssignedCitizens(int assignedCitizens) {
+        this.assignedCitizens = assignedCitizens;
+    }
+
+    public int getUnassignedPriorityCitizens() {
+        return unassignedPriorityCitizens;
+    }
+
+    public void setUnassignedPriorityCitizens(int unassignedPriorityCitizens) {
+        this.unassignedPriorityCitizens = unassignedPriorityCitizens;
+    }
+
+    public int getUnassignedHealthRiskCitizens() {
+        return unassignedHealthRiskCitizens;
+    }
+
+    public void setUnassignedHealthRiskCitizens(int unassignedHealthRiskCitizens) {
+        this.unassignedHealthRiskCitizens = unassignedHealthRiskCitizens;
+    }
+
+    public Map<Citizen.CitizenType, Integer> getCitizensByType() {
+        return citizensByType;
+    }
+
+    public List<Shelter> getShelters() {
+        return shelters;
+    }
+
+    public void setShelters(List<Shelter> shelters) {
+        this.shelters = shelters;
+    }
+
+    /**
+     * รายชื่อผู้รอที่จะเขียนลงไฟล์ตามลำดับความสำคัญ (null = ไม่บันทึก)
+     */
+    public void setWaitingCitizens(Iterable<Citizen> waitingCitizens) {
+        this.waitingCitizens = waitingCitizens == null ? null : handler -> {
+            for (Citizen citizen : waitingCitizens) {
+                handler.handle(citizen);
+            }
+        };
+    }
+
+    /**
+     * อ่านรายชื่อผู้รอทีละคนระหว่างเขียนไฟล์ (เช่น จากฐานข้อมูล) โดยไม่ต้องเก็บทั้งหมดไว้ในหน่วยความจำ
+     */
+    public void setWaitingCitizens(WaitingList.Source waitingCitizens) {
+        this.waitingCitizens = waitingCitizens;
+    }
+
+    /**
+     * จำนวนผู้รอที่อ่านได้ล่าสุดจาก forEachWaitingCitizen (-1 ถ้าไม่มีในไฟล์)
+     */
+    public int getWaitingCitizenCount() {
+        return waitingCitizenCount;
+    }
+}
@@ -0,0 +1,35 @@
+package database;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ผลลัพธ์ของการเพิ่มข้อมูลแบบ batch
+ * rejected เก็บ index ของแถวใน list ที่ส่งเข้ามา พร้อมเหตุผลที่ไม่ถูกบันทึก
+ */
+public class BatchResult {
+    private int insertedCount;
+    private final Map<Integer, String> rejected = new TreeMap<>();
+
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    void addInserted(int count) {
+        insertedCount += count;
+    }
+
+    public Map<Integer, String> getRejected() {
+        return Collections.unmodifiableMap(rejected);
+    }
+
+    void reject(int index, String reason) {
+        rejected.put(index, reason);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchResult[inserted=%d, rejected=%d]", insertedCount, rejected.size());
+    }
+}
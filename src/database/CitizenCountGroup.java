@@ -0,0 +1,63 @@
+package database;
+
+import model.Citizen;
+
+/**
+ * จำนวนประชาชนหนึ่งกลุ่ม แยกตามประเภท สถานะการจัดสรร กลุ่มเด็ก/ผู้สูงอายุ และความเสี่ยงด้านสุขภาพ
+ * พร้อม id ล่าสุดของ citizens / assignments ณ จุดที่นับ (เท่ากันทุกกลุ่มในการนับครั้งเดียว)
+ * แถวที่ id ไม่เกินค่านี้ถูกนับแล้ว ผู้เรียกใช้แยกเหตุการณ์ที่เกิดหลังการนับได้ด้วย id
+ */
+public class CitizenCountGroup {
+    private final Citizen.CitizenType type;
+    private final boolean assigned;
+    private final boolean priorityGroup;
+    private final boolean healthRisk;
+    private final int count;
+    private final int lastCitizenId;
+    private final int lastAssignmentId;
+
+    public CitizenCountGroup(Citizen.CitizenType type, boolean assigned, boolean priorityGroup, boolean healthRisk,
+            int count, int lastCitizenId, int lastAssignmentId) {
+        this.type = type;
+        this.assigned = assigned;
+        this.priorityGroup = priorityGroup;
+        this.healthRisk = healthRisk;
+        this.count = count;
+        this.lastCitizenId = lastCitizenId;
+        this.lastAssignmentId = lastAssignmentId;
+    }
+
+    public Citizen.CitizenType getType() {
+        return type;
+    }
+
+    public boolean isAssigned() {
+        return assigned;
+    }
+
+    public boolean isPriorityGroup() {
+        return priorityGroup;
+    }
+
+    public boolean hasHealthRisk() {
+        return healthRisk;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getLastCitizenId() {
+        return lastCitizenId;
+    }
+
+    public int getLastAssignmentId() {
+        return lastAssignmentId;
+    }
+
+    @Override
+    public String toString() {
+        return "CitizenCountGroup[type=" + type + ", assigned=" + assigned +
+                ", priority=" + priorityGroup + ", healthRisk=" + healthRisk + ", count=" + count + "]";
+    }
+}
@@ -0,0 +1,467 @@
+package database;
+
+import metrics.LatencyTimer;
+import metrics.Metrics;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool การเชื่อมต่อ SQLite แบบ 1 writer + หลาย reader (WAL mode)
+ * - writer มีเพียง connection เดียว ใช้ร่วมกันผ่าน lock
+ * - reader เป็น connection แบบ read-only หลายตัว อ่านได้พร้อมกันโดยไม่รอ writer
+ * - งานเขียนทีละแถวส่งผ่าน WriteQueue เพื่อ commit รวมกันเป็นกลุ่ม (write / submitWrite)
+ * - ถ้าเปิด Journal: record ที่งานเขียนต่อท้ายจะถูก force ลงดิสก์ก่อน COMMIT ทุกครั้ง
+ *   งานใน write() จึง commit ด้วย synchronous = NORMAL ได้ (ข้อมูลที่หายตอนไฟดับถูก replay จาก journal)
+ *   ส่วน inTransaction ยัง commit ด้วยระดับ synchronous ตามค่าตั้งค่าเสมอ
+ *   หลัง COMMIT จะเริ่มไฟล์ journal ใหม่เมื่อใหญ่เกิน JournalRecovery.ROTATE_BYTES (afterCommit)
+ * - เมธอดที่รับชื่อการทำงาน (เช่น withReader("db.getShelterById", ...)) จับเวลาลง Metrics ด้วยชื่อนั้น
+ */
+public class ConnectionPool {
+    // SQLITE_OPEN_READONLY
+    private static final String OPEN_MODE_READONLY = "1";
+
+    private static final LatencyTimer READER_WAIT = Metrics.timer("pool.readerWait");
+    private static final LatencyTimer WRITE_LOCK_WAIT = Metrics.timer("pool.writeLockWait");
+
+    private final DatabaseConfig config;
+    private final PooledConnection writer;
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+    private final BlockingQueue<PooledConnection> idleReaders;
+    private final List<PooledConnection> allReaders = new ArrayList<>();
+    private final WriteQueue writeQueue;
+    private volatile Journal journal;
+    private JournalRecovery journalRecovery;
+    // writer ถูกลดเป็น synchronous = NORMAL หลังเปิด journal (inTransaction สลับกลับชั่วคราว)
+    private boolean relaxedSynchronous;
+
+    public ConnectionPool(DatabaseConfig config) throws SQLException {
+        this.config = config;
+
+        // writer ต้องเปิดก่อนเพื่อสร้างไฟล์และเปลี่ยนเป็น WAL
+        Connection writerConn = DriverManager.getConnection(config.getJdbcUrl());
+        applyPragmas(writerConn);
+        try (Statement stmt = writerConn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = " + checkSynchronous(config.getSynchronous()));
+        }
+        writer = new PooledConnection(writerConn, config.getStatementCacheSize());
+        writeQueue = new WriteQueue(this, writer, writeLock, config);
+
+        idleReaders = new ArrayBlockingQueue<>(config.getReadPoolSize());
+        for (int i = 0; i < config.getReadPoolSize(); i++) {
+            Properties props = new Properties();
+            props.setProperty("open_mode", OPEN_MODE_READONLY);
+            Connection reader = DriverManager.getConnection(config.getJdbcUrl(), props);
+            applyPragmas(reader);
+            PooledConnection pooled = new PooledConnection(reader, config.getStatementCacheSize());
+            allReaders.add(pooled);
+            idleReaders.add(pooled);
+        }
+        registerGauges();
+    }
+
+    // pool ล่าสุดที่เปิดเป็นเจ้าของ gauge ชื่อเหล่านี้
+    private void registerGauges() {
+        Metrics.gauge("pool.idleReaders", idleReaders::size);
+        Metrics.gauge("pool.writeLockQueue", writeLock::getQueueLength);
+        Metrics.gauge("writeQueue.depth", writeQueue::getQueuedCount);
+        Metrics.gauge("writeQueue.committedBatches", writeQueue::getCommittedBatches);
+        Metrics.gauge("writeQueue.committedTasks", writeQueue::getCommittedTasks);
+        Metrics.gauge("statementCache.hits", this::getStatementCacheHits);
+        Metrics.gauge("statementCache.misses", this::getStatementCacheMisses);
+        Metrics.gauge("statementCache.evictions", this::getStatementCacheEvictions);
+        Metrics.gauge("journal.bytes", () -> journal != null ? journal.getSize() : 0);
+        Metrics.gauge("journal.lastSeq", () -> journal != null ? journal.getLastSeq() : 0);
+    }
+
+    private void applyPragmas(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + config.getBusyTimeoutMillis());
+            stmt.execute("PRAGMA cache_size = " + config.getCacheSize());
+            stmt.execute("PRAGMA mmap_size = " + config.getMmapSize());
+        }
+    }
+
+    private static String checkSynchronous(String value) {
+        String mode = value.trim().toUpperCase();
+        switch (mode) {
+            case "OFF":
+            case "NORMAL":
+            case "FULL":
+            case "EXTRA":
+                return mode;
+            default:
+                throw new IllegalArgumentException("ค่า synchronous ไม่ถูกต้อง: " + value);
+        }
+    }
+
+    /**
+     * งานที่ทำกับ connection หนึ่งตัว
+     */
+    public interface SqlWork<T> {
+        T execute(PooledConnection conn) throws SQLException;
+    }
+
+    // ==================== Timed ====================
+
+    /**
+     * withReader ที่จับเวลาด้วยชื่อ operation (รวมเวลารอ connection)
+     */
+    public <T> T withReader(String operation, SqlWork<T> work) throws SQLException {
+        return Metrics.time(operation, () -> withReader(work));
+    }
+
+    public <T> T withWriter(String operation, SqlWork<T> work) throws SQLException {
+        return Metrics.time(operation, () -> withWriter(work));
+    }
+
+    /**
+     * write ที่จับเวลาด้วยชื่อ operation (รวมเวลารอในคิวจนถึง commit)
+     */
+    public <T> T write(String operation, SqlWork<T> work) throws SQLException {
+        return Metrics.time(operation, () -> write(work));
+    }
+
+    public <T> T inTransaction(String operation, SqlWork<T> work) throws SQLException {
+        return Metrics.time(operation, () -> inTransaction(work));
+    }
+
+    /**
+     * submitWrite ที่จับเวลาตั้งแต่ส่งเข้าคิวจนถึง commit (บันทึกเมื่อ future เสร็จ)
+     */
+    public <T> CompletableFuture<T> submitWrite(String operation, SqlWork<T> work) throws SQLException {
+        LatencyTimer timer = Metrics.timer(operation);
+        long startNanos = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = submitWrite(work);
+        } catch (SQLException | RuntimeException e) {
+            timer.record(startNanos, true);
+            throw e;
+        }
+        future.whenComplete((result, failure) -> timer.record(startNanos, failure != null));
+        return future;
+    }
+
+    // ==================== Connections ====================
+
+    /**
+     * ยืม reader connection มาทำงานอ่าน แล้วคืนเข้า pool
+     */
+    public <T> T withReader(SqlWork<T> work) throws SQLException {
+        PooledConnection conn = borrowReader();
+        try {
+            return work.execute(conn);
+        } finally {
+            idleReaders.offer(conn);
+        }
+    }
+
+    /**
+     * ทำงานเขียนผ่าน writer connection (ทีละงาน)
+     */
+    public <T> T withWriter(SqlWork<T> work) throws SQLException {
+        long startNanos = System.nanoTime();
+        writeLock.lock();
+        WRITE_LOCK_WAIT.record(startNanos, false);
+        try {
+            return work.execute(writer);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * ทำงานเขียนผ่าน WriteQueue แล้วรอจนถูก commit (งานทั้งชิ้นสำเร็จหรือถูก rollback ทั้งชิ้น)
+     * ถ้าเรียกซ้อนจากภายในงานเขียนอื่น (ถือ writer อยู่แล้ว) จะทำทันทีใน transaction เดิม
+     * รองานเริ่มได้ไม่เกิน busyTimeout ถ้าเกินจะยกเลิกงานแล้วได้ SQLTransientException
+     */
+    public <T> T write(SqlWork<T> work) throws SQLException {
+        if (writeLock.isHeldByCurrentThread()) {
+            return work.execute(writer);
+        }
+
+        CompletableFuture<T> future = submitWrite(work);
+        long timeoutMillis = config.getBusyTimeoutMillis();
+        try {
+            try {
+                return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (future.cancel(false)) {
+                    throw new SQLTransientException("รอคิวบันทึกข้อมูลนานเกินไป กรุณาลองใหม่", e);
+                }
+            }
+            // writer เริ่มทำงานนี้แล้ว: รอผลอีกไม่เกิน busyTimeout
+            try {
+                return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new SQLException("บันทึกข้อมูลใช้เวลานานเกินไป ผลการบันทึกยังไม่แน่นอน", e);
+            }
+        } catch (InterruptedException e) {
+            // งานยังอยู่ในคิวและอาจถูกบันทึกภายหลัง
+            Thread.currentThread().interrupt();
+            throw new SQLException("ถูกขัดจังหวะระหว่างรอบันทึกข้อมูล", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    /**
+     * ส่งงานเขียนเข้าคิวโดยไม่รอ future สำเร็จเมื่อข้อมูลถูก commit แล้ว
+     */
+    public <T> CompletableFuture<T> submitWrite(SqlWork<T> work) throws SQLException {
+        return writeQueue.submit(work);
+    }
+
+    public WriteQueue getWriteQueue() {
+        return writeQueue;
+    }
+
+    /**
+     * ทำงานเขียนหลายคำสั่งภายใน transaction เดียว (rollback ทั้งหมดถ้าเกิดข้อผิดพลาด)
+     */
+    public <T> T inTransaction(SqlWork<T> work) throws SQLException {
+        return withWriter(conn -> {
+            Connection raw = conn.getConnection();
+            if (relaxedSynchronous) {
+                // งานแบบ batch อาจไม่ได้บันทึกลง journal จึงต้องทนทานด้วยตัวเอง
+                setWriterSynchronous(config.getSynchronous());
+            }
+            Journal.Mark mark = markJournal();
+            raw.setAutoCommit(false);
+            T result;
+            try {
+                result = work.execute(conn);
+                syncJournal(conn, mark);
+                raw.commit();
+            } catch (Throwable e) {
+                // rollback ทั้งหมดก่อนคืน autocommit (รวม Error จาก journal) ไม่เช่นนั้น sqlite-jdbc จะ commit ให้
+                raw.rollback();
+                rollbackJournalQuietly(mark);
+                throw e;
+            } finally {
+                raw.setAutoCommit(true);
+                if (relaxedSynchronous) {
+                    setWriterSynchronous("NORMAL");
+                }
+            }
+            afterCommit();
+            return result;
+        });
+    }
+
+    // ==================== Journal ====================
+
+    /**
+     * เริ่มใช้ journal กับงานเขียนทั้งหมด (เรียกหลัง JournalRecovery replay เสร็จแล้ว)
+     */
+    void attachJournal(Journal journal, JournalRecovery recovery) throws SQLException {
+        writeLock.lock();
+        try {
+            // เริ่มไฟล์ใหม่ระหว่างทำงาน: record ทั้งหมดของไฟล์เดิมอยู่ในฐานข้อมูลแล้ว
+            Journal previous = this.journal;
+            this.journal = journal;
+            this.journalRecovery = recovery;
+            if (previous != null && previous != journal) {
+                previous.close();
+            }
+            String mode = checkSynchronous(config.getSynchronous());
+            if (mode.equals("FULL") || mode.equals("EXTRA")) {
+                setWriterSynchronous("NORMAL");
+                relaxedSynchronous = true;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * หยุดใช้ journal (เมื่อเริ่มไฟล์ใหม่ไม่สำเร็จ) แล้วกลับไป commit ด้วยระดับ synchronous ตามค่าตั้งค่า
+     */
+    void detachJournal() {
+        writeLock.lock();
+        try {
+            Journal previous = journal;
+            journal = null;
+            journalRecovery = null;
+            if (relaxedSynchronous) {
+                relaxedSynchronous = false;
+                setWriterSynchronous(config.getSynchronous());
+            }
+            if (previous != null) {
+                previous.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * เรียกหลัง COMMIT ขณะถือ writer lock: เริ่มไฟล์ journal ใหม่ถ้าใหญ่เกิน ROTATE_BYTES
+     */
+    void afterCommit() {
+        if (journalRecovery != null) {
+            journalRecovery.rotateIfFull();
+        }
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * ต่อท้าย record ใน journal ภายในงานเขียน (ไม่ทำอะไรถ้าไม่ได้เปิด journal)
+     * record จะถูกลบถ้างานนั้นถูก rollback และถูก force ลงดิสก์ก่อน COMMIT
+     */
+    public void appendJournal(byte type, byte[] payload) throws SQLException {
+        Journal current = journal;
+        if (current == null) {
+            return;
+        }
+        if (!writeLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("ต้องเขียน journal ภายในงานเขียนของ writer เท่านั้น");
+        }
+        try {
+            current.append(type, payload);
+        } catch (IOException e) {
+            throw new SQLException("บันทึก journal ไม่สำเร็จ", e);
+        }
+    }
+
+    Journal.Mark markJournal() {
+        Journal current = journal;
+        return current == null ? null : current.mark();
+    }
+
+    void rollbackJournal(Journal.Mark mark) throws SQLException {
+        if (mark == null) {
+            return;
+        }
+        try {
+            journal.rollback(mark);
+        } catch (IOException e) {
+            throw new SQLException("ย้อนกลับ journal ไม่สำเร็จ", e);
+        }
+    }
+
+    void rollbackJournalQuietly(Journal.Mark mark) {
+        try {
+            rollbackJournal(mark);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * ก่อน COMMIT: force record ใหม่ลงดิสก์ แล้วบันทึก seq ล่าสุดไว้ใน transaction เดียวกับข้อมูล
+     */
+    void syncJournal(PooledConnection conn, Journal.Mark mark) throws SQLException {
+        if (mark == null || !journal.hasAppendedSince(mark)) {
+            return;
+        }
+        journal.force();
+        PreparedStatement pstmt = conn.prepare("UPDATE journal_state SET applied_seq = ? WHERE id = 1");
+        pstmt.setLong(1, journal.getLastSeq());
+        pstmt.executeUpdate();
+    }
+
+    private void setWriterSynchronous(String mode) throws SQLException {
+        try (Statement stmt = writer.getConnection().createStatement()) {
+            stmt.execute("PRAGMA synchronous = " + checkSynchronous(mode));
+        }
+    }
+
+    private PooledConnection borrowReader() throws SQLException {
+        PooledConnection conn = idleReaders.poll();
+        if (conn != null) {
+            return conn;
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            conn = idleReaders.poll(config.getBusyTimeoutMillis(), TimeUnit.MILLISECONDS);
+            READER_WAIT.record(startNanos, conn == null);
+            if (conn == null) {
+                throw new SQLTransientException("ไม่มี connection สำหรับอ่านข้อมูลว่างภายในเวลาที่กำหนด");
+            }
+            return conn;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("ถูกขัดจังหวะระหว่างรอ connection", e);
+        }
+    }
+
+    public DatabaseConfig getConfig() {
+        return config;
+    }
+
+    // ==================== Statement cache stats ====================
+
+    public long getStatementCacheHits() {
+        long total = writer.getStatementCache().getHits();
+        for (PooledConnection reader : allReaders) {
+            total += reader.getStatementCache().getHits();
+        }
+        return total;
+    }
+
+    public long getStatementCacheMisses() {
+        long total = writer.getStatementCache().getMisses();
+        for (PooledConnection reader : allReaders) {
+            total += reader.getStatementCache().getMisses();
+        }
+        return total;
+    }
+
+    public long getStatementCacheEvictions() {
+        long total = writer.getStatementCache().getEvictions();
+        for (PooledConnection reader : allReaders) {
+            total += reader.getStatementCache().getEvictions();
+        }
+        return total;
+    }
+
+    public void close() {
+        // บันทึกงานที่ค้างในคิวให้เสร็จก่อนปิด connection
+        writeQueue.close();
+        writeLock.lock();
+        try {
+            // ปิด writer เป็นตัวสุดท้าย: SQLite จะ checkpoint WAL กลับเข้าไฟล์หลักตอนปิด connection สุดท้าย
+            // (reader แบบ read-only ทำ checkpoint ไม่ได้)
+            for (PooledConnection reader : allReaders) {
+                reader.close();
+            }
+            writer.close();
+            if (journal != null) {
+                journal.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
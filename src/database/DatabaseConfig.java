@@ -0,0 +1,216 @@
+package database;
+
+/**
+ * ค่าตั้งค่าการเชื่อมต่อ SQLite (ตำแหน่งไฟล์, ขนาด pool และ PRAGMA ต่าง ๆ)
+ * สามารถกำหนดผ่าน System properties เช่น -Dshelter.db.path=data/shelter.db
+ */
+public class DatabaseConfig {
+    public static final String DEFAULT_PATH = "shelter_system.db";
+
+    private String path;
+    private int readPoolSize;
+    private String synchronous;
+    private int cacheSize;
+    private long mmapSize;
+    private int busyTimeoutMillis;
+    private int statementCacheSize;
+    private int fetchSize;
+    private int writeQueueCapacity;
+    private int writeBatchSize;
+    private long writeBatchDelayMicros;
+    private boolean journalEnabled;
+
+    // Constructor (ค่าเริ่มต้น)
+    public DatabaseConfig() {
+        this.path = DEFAULT_PATH;
+        this.readPoolSize = 4;
+        this.synchronous = "FULL";
+        this.cacheSize = -16000; // ค่าลบ = หน่วย KiB (ประมาณ 16 MB)
+        this.mmapSize = 256L * 1024 * 1024;
+        this.busyTimeoutMillis = 5000;
+        this.statementCacheSize = 64;
+        this.fetchSize = 500;
+        this.writeQueueCapacity = 10000;
+        this.writeBatchSize = 256;
+        this.writeBatchDelayMicros = 0; // รวมเฉพาะงานที่รออยู่แล้ว ไม่หน่วงงานที่มาเดี่ยว ๆ
+        this.journalEnabled = true;
+    }
+
+    public DatabaseConfig(String path) {
+        this();
+        this.path = path;
+    }
+
+    /**
+     * อ่านค่าตั้งค่าจาก System properties (ถ้าไม่กำหนดจะใช้ค่าเริ่มต้น)
+     */
+    public static DatabaseConfig fromSystemProperties() {
+        DatabaseConfig config = new DatabaseConfig();
+        config.setPath(System.getProperty("shelter.db.path", config.getPath()));
+        config.setReadPoolSize(Integer.getInteger("shelter.db.readPoolSize", config.getReadPoolSize()));
+        config.setSynchronous(System.getProperty("shelter.db.synchronous", config.getSynchronous()));
+        config.setCacheSize(Integer.getInteger("shelter.db.cacheSize", config.getCacheSize()));
+        config.setMmapSize(Long.getLong("shelter.db.mmapSize", config.getMmapSize()));
+        config.setBusyTimeoutMillis(Integer.getInteger("shelter.db.busyTimeout", config.getBusyTimeoutMillis()));
+        config.setStatementCacheSize(Integer.getInteger("shelter.db.statementCacheSize",
+                config.getStatementCacheSize()));
+        config.setFetchSize(Integer.getInteger("shelter.db.fetchSize", config.getFetchSize()));
+        config.setWriteQueueCapacity(Integer.getInteger("shelter.db.writeQueueCapacity",
+                config.getWriteQueueCapacity()));
+        config.setWriteBatchSize(Integer.getInteger("shelter.db.writeBatchSize", config.getWriteBatchSize()));
+        config.setWriteBatchDelayMicros(Long.getLong("shelter.db.writeBatchDelayMicros",
+                config.getWriteBatchDelayMicros()));
+        config.setJournalEnabled(Boolean.parseBoolean(System.getProperty("shelter.db.journal",
+                Boolean.toString(config.isJournalEnabled()))));
+        return config;
+    }
+
+    public String getJdbcUrl() {
+        return "jdbc:sqlite:" + path;
+    }
+
+    // Getters and Setters
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public int getReadPoolSize() {
+        return readPoolSize;
+    }
+
+    public void setReadPoolSize(int readPoolSize) {
+        if (readPoolSize <= 0) {
+            throw new IllegalArgumentException("readPoolSize ต้องมากกว่า 0");
+        }
+        this.readPoolSize = readPoolSize;
+    }
+
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    public void setSynchronous(String synchronous) {
+        this.synchronous = synchronous;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    public void setMmapSize(long mmapSize) {
+        this.mmapSize = mmapSize;
+    }
+
+    public int getBusyTimeoutMillis() {
+        return busyTimeoutMillis;
+    }
+
+    public void setBusyTimeoutMillis(int busyTimeoutMillis) {
+        this.busyTimeoutMillis = busyTimeoutMillis;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        if (statementCacheSize <= 0) {
+            throw new IllegalArgumentException("statementCacheSize ต้องมากกว่า 0");
+        }
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetchSize ต้องมากกว่า 0");
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    public int getWriteQueueCapacity() {
+        return writeQueueCapacity;
+    }
+
+    public void setWriteQueueCapacity(int writeQueueCapacity) {
+        if (writeQueueCapacity <= 0) {
+            throw new IllegalArgumentException("writeQueueCapacity ต้องมากกว่า 0");
+        }
+        this.writeQueueCapacity = writeQueueCapacity;
+    }
+
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    /**
+     * จำนวนงานเขียนสูงสุดที่ commit รวมกันใน transaction เดียว
+     */
+    public void setWriteBatchSize(int writeBatchSize) {
+        if (writeBatchSize <= 0) {
+            throw new IllegalArgumentException("writeBatchSize ต้องมากกว่า 0");
+        }
+        this.writeBatchSize = writeBatchSize;
+    }
+
+    public long getWriteBatchDelayMicros() {
+        return writeBatchDelayMicros;
+    }
+
+    /**
+     * เวลาที่ writer รองานเพิ่มหลังได้งานแรกของ batch (0 = รวมเฉพาะงานที่รออยู่แล้ว)
+     */
+    public void setWriteBatchDelayMicros(long writeBatchDelayMicros) {
+        if (writeBatchDelayMicros < 0) {
+            throw new IllegalArgumentException("writeBatchDelayMicros ต้องไม่ติดลบ");
+        }
+        this.writeBatchDelayMicros = writeBatchDelayMicros;
+    }
+
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    /**
+     * บันทึกการลงทะเบียน/จัดสรรลง journal (ไฟล์ &lt;path&gt;.journal) เพื่อกู้คืนหลังไฟดับ
+     */
+    public void setJournalEnabled(boolean journalEnabled) {
+        this.journalEnabled = journalEnabled;
+    }
+
+    /**
+     * ตำแหน่งไฟล์ journal (ข้างไฟล์ฐานข้อมูล)
+     */
+    public String getJournalPath() {
+        return path + ".journal";
+    }
+
+    /**
+     * ตำแหน่งไฟล์ snapshot ของข้อมูลที่ใช้งานบ่อย สำหรับเริ่มโปรแกรมเร็ว (ข้างไฟล์ฐานข้อมูล)
+     */
+    public String getSnapshotPath() {
+        return path + ".snapshot";
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DatabaseConfig[path=%s, readers=%d, synchronous=%s, cache=%d, mmap=%d, busyTimeout=%d, statements=%d, fetchSize=%d, writeQueue=%d, writeBatch=%d/%dus, journal=%b]",
+                path, readPoolSize, synchronous, cacheSize, mmapSize, busyTimeoutMillis, statementCacheSize, fetchSize,
+                writeQueueCapacity, writeBatchSize, writeBatchDelayMicros, journalEnabled);
+    }
+}
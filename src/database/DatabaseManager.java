@@ -1,215 +1,495 @@
 package database;
 
+import metrics.Metrics;
 import model.Assignment;
 import model.Citizen;
 import model.Shelter;
 
+import java.io.IOException;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * DatabaseManager จัดการการเชื่อมต่อและ CRUD operations กับ SQLite
+ * การอ่านใช้ reader connection จาก pool ส่วนการเขียนผ่าน writer ตัวเดียว (WAL mode)
+ * การเขียนทีละแถวส่งผ่านคิวของ writer และถูก commit รวมกันเป็นกลุ่ม ส่วนงานแบบ batch ใช้ transaction ของตัวเอง
+ * PreparedStatement ถูก cache ไว้ต่อ connection จึงห้าม close statement เอง (close แค่ ResultSet)
+ * งานเขียนผ่านคิวทุกงานบันทึก record ลง Journal ด้วย (ยกเว้นการนำเข้าประชาชนแบบ batch)
+ * ทุกเมธอดจับเวลาลง Metrics ในชื่อ db.&lt;ชื่อเมธอด&gt; (งานแบบ batch นับต่อ transaction)
  */
 public class DatabaseManager {
-    private static final String DB_URL = "jdbc:sqlite:shelter_system.db";
-    private Connection connection;
+    // จำนวนแถวต่อ transaction สำหรับการเพิ่มข้อมูลแบบ batch
+    public static final int BATCH_CHUNK_SIZE = 500;
+    // จำนวน ? คงที่เท่ากับ BATCH_CHUNK_SIZE (ช่องที่เหลือเป็น NULL) เพื่อให้ใช้ statement เดียวใน StatementCache
+    private static final String REGISTERED_NAMES_SQL = registeredNamesSql(BATCH_CHUNK_SIZE);
+
+    private ConnectionPool pool;
+    private int recoveredJournalRecords;
 
     public DatabaseManager() {
+        this(DatabaseConfig.fromSystemProperties());
+    }
+
+    public DatabaseManager(DatabaseConfig config) {
         try {
             Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection(DB_URL);
+            pool = new ConnectionPool(config);
             createTables();
+            if (config.isJournalEnabled()) {
+                recoveredJournalRecords = new JournalRecovery(pool).recover();
+            }
         } catch (ClassNotFoundException | SQLException e) {
             e.printStackTrace();
         }
     }
 
     private void createTables() throws SQLException {
-        String createSheltersTable = "CREATE TABLE IF NOT EXISTS shelters (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                "name TEXT NOT NULL, " +
-                "max_capacity INTEGER NOT NULL, " +
-                "current_occupancy INTEGER DEFAULT 0, " +
-                "risk_level TEXT NOT NULL)";
-
-        String createCitizensTable = "CREATE TABLE IF NOT EXISTS citizens (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                "name TEXT NOT NULL, " +
-                "age INTEGER NOT NULL, " +
-                "health_condition TEXT, " +
-                "registration_date TEXT NOT NULL, " +
-                "type TEXT NOT NULL)";
-
-        String createAssignmentsTable = "CREATE TABLE IF NOT EXISTS assignments (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                "citizen_id INTEGER NOT NULL, " +
-                "shelter_id INTEGER NOT NULL, " +
-                "assignment_date TEXT NOT NULL, " +
-                "notes TEXT, " +
-                "FOREIGN KEY(citizen_id) REFERENCES citizens(id), " +
-                "FOREIGN KEY(shelter_id) REFERENCES shelters(id))";
-
-        Statement stmt = connection.createStatement();
-        stmt.execute(createSheltersTable);
-        stmt.execute(createCitizensTable);
-        stmt.execute(createAssignmentsTable);
-        stmt.close();
+        new SchemaMigrator().migrate(pool);
     }
 
     // ==================== Shelter CRUD ====================
 
     public int addShelter(Shelter shelter) throws SQLException {
-        String sql = "INSERT INTO shelters (name, max_capacity, current_occupancy, risk_level) VALUES (?, ?, ?, ?)";
-        PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-        pstmt.setString(1, shelter.getName());
-        pstmt.setInt(2, shelter.getMaxCapacity());
-        pstmt.setInt(3, shelter.getCurrentOccupancy());
-        pstmt.setString(4, shelter.getRiskLevel().name());
-        pstmt.executeUpdate();
-
-        ResultSet rs = pstmt.getGeneratedKeys();
-        int id = rs.next() ? rs.getInt(1) : -1;
-        pstmt.close();
-        return id;
+        return pool.write("db.addShelter", conn -> {
+            String sql = "INSERT INTO shelters (name, max_capacity, current_occupancy, risk_level) VALUES (?, ?, ?, ?)";
+            PreparedStatement pstmt = conn.prepareInsert(sql);
+            pstmt.setString(1, shelter.getName());
+            pstmt.setInt(2, shelter.getMaxCapacity());
+            pstmt.setInt(3, shelter.getCurrentOccupancy());
+            pstmt.setString(4, shelter.getRiskLevel().name());
+            pstmt.executeUpdate();
+
+            ResultSet rs = pstmt.getGeneratedKeys();
+            int id = rs.next() ? rs.getInt(1) : -1;
+            rs.close();
+            pool.appendJournal(Journal.SHELTER_SAVED, JournalCodec.shelter(new Shelter(id, shelter.getName(),
+                    shelter.getMaxCapacity(), shelter.getCurrentOccupancy(), shelter.getRiskLevel())));
+            return id;
+        });
     }
 
     public List<Shelter> getAllShelters() throws SQLException {
         List<Shelter> shelters = new ArrayList<>();
-        String sql = "SELECT * FROM shelters";
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(sql);
-
-        while (rs.next()) {
-            Shelter shelter = new Shelter(
-                    rs.getInt("id"),
-                    rs.getString("name"),
-                    rs.getInt("max_capacity"),
-                    rs.getInt("current_occupancy"),
-                    Shelter.RiskLevel.valueOf(rs.getString("risk_level")));
-            shelters.add(shelter);
-        }
-
-        rs.close();
-        stmt.close();
+        forEachShelter("db.getAllShelters", shelters::add);
         return shelters;
     }
 
+    /**
+     * มีศูนย์พักพิงอย่างน้อยหนึ่งแห่งหรือไม่ (ไม่ต้องอ่านทั้งตาราง)
+     */
+    public boolean hasShelters() throws SQLException {
+        return pool.withReader("db.hasShelters", conn -> queryInt(conn.prepare("SELECT EXISTS (SELECT 1 FROM shelters)")) != 0);
+    }
+
     public Shelter getShelterById(int id) throws SQLException {
-        String sql = "SELECT * FROM shelters WHERE id = ?";
-        PreparedStatement pstmt = connection.prepareStatement(sql);
-        pstmt.setInt(1, id);
-        ResultSet rs = pstmt.executeQuery();
+        return pool.withReader("db.getShelterById", conn -> {
+            String sql = "SELECT * FROM shelters WHERE id = ?";
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setInt(1, id);
+            ResultSet rs = pstmt.executeQuery();
+
+            Shelter shelter = null;
+            if (rs.next()) {
+                shelter = createShelterFromResultSet(rs);
+            }
 
-        Shelter shelter = null;
-        if (rs.next()) {
-            shelter = new Shelter(
-                    rs.getInt("id"),
-                    rs.getString("name"),
-                    rs.getInt("max_capacity"),
-                    rs.getInt("current_occupancy"),
-                    Shelter.RiskLevel.valueOf(rs.getString("risk_level")));
-        }
+            rs.close();
+            return shelter;
+        });
+    }
 
-        rs.close();
-        pstmt.close();
-        return shelter;
+    private Shelter createShelterFromResultSet(ResultSet rs) throws SQLException {
+        return new Shelter(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getInt("max_capacity"),
+                rs.getInt("current_occupancy"),
+                Shelter.RiskLevel.valueOf(rs.getString("risk_level")));
     }
 
     public void updateShelter(Shelter shelter) throws SQLException {
-        String sql = "UPDATE shelters SET name = ?, max_capacity = ?, current_occupancy = ?, risk_level = ? WHERE id = ?";
-        PreparedStatement pstmt = connection.prepareStatement(sql);
-        pstmt.setString(1, shelter.getName());
-        pstmt.setInt(2, shelter.getMaxCapacity());
-        pstmt.setInt(3, shelter.getCurrentOccupancy());
-        pstmt.setString(4, shelter.getRiskLevel().name());
-        pstmt.setInt(5, shelter.getId());
-        pstmt.executeUpdate();
-        pstmt.close();
+        pool.write("db.updateShelter", conn -> {
+            String sql = "UPDATE shelters SET name = ?, max_capacity = ?, current_occupancy = ?, risk_level = ? WHERE id = ?";
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setString(1, shelter.getName());
+            pstmt.setInt(2, shelter.getMaxCapacity());
+            pstmt.setInt(3, shelter.getCurrentOccupancy());
+            pstmt.setString(4, shelter.getRiskLevel().name());
+            pstmt.setInt(5, shelter.getId());
+            if (pstmt.executeUpdate() == 1) {
+                pool.appendJournal(Journal.SHELTER_SAVED, JournalCodec.shelter(shelter));
+            }
+            return null;
+        });
     }
 
-    // ==================== Citizen CRUD ====================
+    /**
+     * เพิ่มศูนย์พักพิงหลายแห่งด้วย JDBC batch (transaction ละ BATCH_CHUNK_SIZE แถว)
+     * id ที่ได้จะถูกกำหนดกลับไปยัง object แต่ละตัวหลัง chunk commit สำเร็จเท่านั้น
+     */
+    public BatchResult addSheltersBatch(List<Shelter> shelters) throws SQLException {
+        BatchResult result = new BatchResult();
+        String sql = "INSERT INTO shelters (name, max_capacity, current_occupancy, risk_level) VALUES (?, ?, ?, ?)";
 
-    public int addCitizen(Citizen citizen) throws SQLException {
-        // ตรวจสอบว่าประชาชนลงทะเบียนแล้วหรือยัง (ตาม business rule)
-        if (isCitizenRegistered(citizen.getName())) {
-            throw new SQLException("ประชาชนคนนี้ลงทะเบียนแล้ว");
+        for (int start = 0; start < shelters.size(); start += BATCH_CHUNK_SIZE) {
+            List<Shelter> chunk = shelters.subList(start, Math.min(start + BATCH_CHUNK_SIZE, shelters.size()));
+            int firstId;
+            try {
+                firstId = pool.inTransaction("db.addSheltersBatch", conn -> {
+                    PreparedStatement pstmt = conn.prepare(sql);
+                    for (Shelter shelter : chunk) {
+                        pstmt.setString(1, shelter.getName());
+                        pstmt.setInt(2, shelter.getMaxCapacity());
+                        pstmt.setInt(3, shelter.getCurrentOccupancy());
+                        pstmt.setString(4, shelter.getRiskLevel().name());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+
+                    // AUTOINCREMENT บน writer ตัวเดียว: id ภายใน batch เรียงต่อกัน
+                    int first = lastInsertRowId(conn) - chunk.size() + 1;
+                    for (int i = 0; i < chunk.size(); i++) {
+                        Shelter shelter = chunk.get(i);
+                        pool.appendJournal(Journal.SHELTER_SAVED, JournalCodec.shelter(new Shelter(first + i,
+                                shelter.getName(), shelter.getMaxCapacity(), shelter.getCurrentOccupancy(),
+                                shelter.getRiskLevel())));
+                    }
+                    return first;
+                });
+            } catch (SQLException e) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    result.reject(start + i, e.getMessage());
+                }
+                continue;
+            }
+
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId(firstId + i);
+            }
+            result.addInserted(chunk.size());
         }
 
-        String sql = "INSERT INTO citizens (name, age, health_condition, registration_date, type) VALUES (?, ?, ?, ?, ?)";
-        PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-        pstmt.setString(1, citizen.getName());
-        pstmt.setInt(2, citizen.getAge());
-        pstmt.setString(3, citizen.getHealthCondition());
-        pstmt.setString(4, citizen.getRegistrationDate().toString());
-        pstmt.setString(5, citizen.getType().name());
-        pstmt.executeUpdate();
+        return result;
+    }
 
-        ResultSet rs = pstmt.getGeneratedKeys();
+    private int lastInsertRowId(PooledConnection conn) throws SQLException {
+        ResultSet rs = conn.prepare("SELECT last_insert_rowid()").executeQuery();
         int id = rs.next() ? rs.getInt(1) : -1;
-        pstmt.close();
+        rs.close();
         return id;
     }
 
-    private boolean isCitizenRegistered(String name) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM citizens WHERE name = ?";
-        PreparedStatement pstmt = connection.prepareStatement(sql);
-        pstmt.setString(1, name);
-        ResultSet rs = pstmt.executeQuery();
-        boolean exists = rs.next() && rs.getInt(1) > 0;
-        rs.close();
-        pstmt.close();
-        return exists;
+    // ==================== Citizen CRUD ====================
+
+    public int addCitizen(Citizen citizen) throws SQLException {
+        return pool.write("db.addCitizen", conn -> {
+            // ชื่อซ้ำ (ตาม business rule) ถูกป้องกันด้วย unique index idx_citizens_name
+            String sql = "INSERT INTO citizens (name, age, health_condition, registration_date, type, health_risk, " +
+                    "priority_rank) VALUES (?, ?, ?, ?, ?, ?, ?)";
+            PreparedStatement pstmt = conn.prepareInsert(sql);
+            pstmt.setString(1, citizen.getName());
+            pstmt.setInt(2, citizen.getAge());
+            pstmt.setString(3, citizen.getHealthCondition());
+            pstmt.setString(4, citizen.getRegistrationDate().toString());
+            pstmt.setString(5, citizen.getType().name());
+            pstmt.setInt(6, citizen.hasHealthRisk() ? 1 : 0);
+            pstmt.setInt(7, citizen.getPriorityRank());
+            try {
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                if (isConstraintViolation(e)) {
+                    throw new SQLIntegrityConstraintViolationException("ประชาชนคนนี้ลงทะเบียนแล้ว", e);
+                }
+                throw e;
+            }
+
+            ResultSet rs = pstmt.getGeneratedKeys();
+            int id = rs.next() ? rs.getInt(1) : -1;
+            rs.close();
+            pool.appendJournal(Journal.CITIZEN_REGISTERED, JournalCodec.citizen(new Citizen(id, citizen.getName(),
+                    citizen.getAge(), citizen.getHealthCondition(), citizen.getRegistrationDate(),
+                    citizen.getType(), citizen.hasHealthRisk())));
+            return id;
+        });
     }
 
-    public List<Citizen> getAllCitizens() throws SQLException {
-        List<Citizen> citizens = new ArrayList<>();
-        String sql = "SELECT * FROM citizens";
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(sql);
+    private static boolean isConstraintViolation(SQLException e) {
+        // SQLITE_CONSTRAINT (19) และ extended code เช่น SQLITE_CONSTRAINT_UNIQUE (2067)
+        return (e.getErrorCode() & 0xFF) == 19;
+    }
 
-        while (rs.next()) {
-            Citizen citizen = createCitizenFromResultSet(rs);
-            citizens.add(citizen);
+    /**
+     * เพิ่มประชาชนหลายคนด้วย JDBC batch (transaction ละ BATCH_CHUNK_SIZE แถว)
+     * - ตัดชื่อซ้ำภายในรายการเดียวกัน และชื่อที่ลงทะเบียนแล้วในฐานข้อมูล (query เดียวต่อ chunk)
+     * - แถวที่ไม่ถูกบันทึกจะถูกรายงานใน BatchResult ตาม index ของ list
+     * - id ของ citizen และชื่อที่ถือว่าบันทึกแล้วจะอัพเดทหลัง chunk commit สำเร็จเท่านั้น
+     */
+    public BatchResult addCitizensBatch(List<Citizen> citizens) throws SQLException {
+        BatchResult result = new BatchResult();
+        Set<String> seenNames = new HashSet<>();
+        String sql = "INSERT INTO citizens (name, age, health_condition, registration_date, type, health_risk, " +
+                "priority_rank) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+        for (int start = 0; start < citizens.size(); start += BATCH_CHUNK_SIZE) {
+            int end = Math.min(start + BATCH_CHUNK_SIZE, citizens.size());
+            final int chunkStart = start;
+            // ผลของ chunk นี้ (ใช้เมื่อ commit สำเร็จ)
+            Map<Integer, String> duplicates = new HashMap<>();
+            Map<Integer, Integer> insertedIds = new HashMap<>();
+
+            try {
+                pool.inTransaction("db.addCitizensBatch", conn -> {
+                    duplicates.clear();
+                    insertedIds.clear();
+                    Set<String> existing = findRegisteredNames(conn, citizens.subList(chunkStart, end));
+                    Set<String> chunkNames = new HashSet<>();
+                    List<Integer> accepted = new ArrayList<>();
+                    PreparedStatement pstmt = conn.prepare(sql);
+
+                    for (int i = chunkStart; i < end; i++) {
+                        Citizen citizen = citizens.get(i);
+                        if (existing.contains(citizen.getName()) || seenNames.contains(citizen.getName())
+                                || !chunkNames.add(citizen.getName())) {
+                            duplicates.put(i, "ประชาชนคนนี้ลงทะเบียนแล้ว");
+                            continue;
+                        }
+
+                        pstmt.setString(1, citizen.getName());
+                        pstmt.setInt(2, citizen.getAge());
+                        pstmt.setString(3, citizen.getHealthCondition());
+                        pstmt.setString(4, citizen.getRegistrationDate().toString());
+                        pstmt.setString(5, citizen.getType().name());
+                        pstmt.setInt(6, citizen.hasHealthRisk() ? 1 : 0);
+                        pstmt.setInt(7, citizen.getPriorityRank());
+                        pstmt.addBatch();
+                        accepted.add(i);
+                    }
+
+                    if (!accepted.isEmpty()) {
+                        pstmt.executeBatch();
+                        int lastId = lastInsertRowId(conn);
+                        for (int i = 0; i < accepted.size(); i++) {
+                            insertedIds.put(accepted.get(i), lastId - accepted.size() + 1 + i);
+                        }
+                    }
+                    return null;
+                });
+            } catch (SQLException e) {
+                for (int i = start; i < end; i++) {
+                    result.reject(i, e.getMessage());
+                }
+                continue;
+            }
+
+            for (Map.Entry<Integer, Integer> entry : insertedIds.entrySet()) {
+                Citizen citizen = citizens.get(entry.getKey());
+                citizen.setId(entry.getValue());
+                seenNames.add(citizen.getName());
+            }
+            for (Map.Entry<Integer, String> entry : duplicates.entrySet()) {
+                result.reject(entry.getKey(), entry.getValue());
+            }
+            result.addInserted(insertedIds.size());
         }
 
-        rs.close();
-        stmt.close();
-        return citizens;
+        return result;
     }
 
-    public List<Citizen> getCitizensByType(Citizen.CitizenType type) throws SQLException {
-        List<Citizen> citizens = new ArrayList<>();
-        String sql = "SELECT * FROM citizens WHERE type = ?";
-        PreparedStatement pstmt = connection.prepareStatement(sql);
-        pstmt.setString(1, type.name());
-        ResultSet rs = pstmt.executeQuery();
+    private static String registeredNamesSql(int size) {
+        StringBuilder sql = new StringBuilder("SELECT name FROM citizens WHERE name IN (");
+        for (int i = 0; i < size; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(")").toString();
+    }
 
-        while (rs.next()) {
-            Citizen citizen = createCitizenFromResultSet(rs);
-            citizens.add(citizen);
+    private Set<String> findRegisteredNames(PooledConnection conn, List<Citizen> citizens) throws SQLException {
+        Set<String> names = new HashSet<>();
+        if (citizens.isEmpty()) {
+            return names;
         }
 
+        PreparedStatement pstmt = conn.prepare(REGISTERED_NAMES_SQL);
+        for (int i = 0; i < BATCH_CHUNK_SIZE; i++) {
+            if (i < citizens.size()) {
+                pstmt.setString(i + 1, citizens.get(i).getName());
+            } else {
+                pstmt.setNull(i + 1, Types.VARCHAR);
+            }
+        }
+        ResultSet rs = pstmt.executeQuery();
+        while (rs.next()) {
+            names.add(rs.getString(1));
+        }
         rs.close();
-        pstmt.close();
+        return names;
+    }
+
+    public List<Citizen> getAllCitizens() throws SQLException {
+        List<Citizen> citizens = new ArrayList<>();
+        forEachCitizen("db.getAllCitizens", citizens::add);
+        return citizens;
+    }
+
+    public List<Citizen> getCitizensByType(Citizen.CitizenType type) throws SQLException {
+        List<Citizen> citizens = new ArrayList<>();
+        forEachCitizenByType("db.getCitizensByType", type, citizens::add);
         return citizens;
     }
 
     public Citizen getCitizenById(int id) throws SQLException {
-        String sql = "SELECT * FROM citizens WHERE id = ?";
-        PreparedStatement pstmt = connection.prepareStatement(sql);
-        pstmt.setInt(1, id);
-        ResultSet rs = pstmt.executeQuery();
+        return pool.withReader("db.getCitizenById", conn -> {
+            String sql = "SELECT * FROM citizens WHERE id = ?";
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setInt(1, id);
+            ResultSet rs = pstmt.executeQuery();
+
+            Citizen citizen = null;
+            if (rs.next()) {
+                citizen = createCitizenFromResultSet(rs);
+            }
+
+            rs.close();
+            return citizen;
+        });
+    }
 
-        Citizen citizen = null;
-        if (rs.next()) {
-            citizen = createCitizenFromResultSet(rs);
+    public int countCitizens() throws SQLException {
+        return pool.withReader("db.countCitizens", conn -> queryInt(conn.prepare("SELECT COUNT(*) FROM citizens")));
+    }
+
+    // ==================== Citizen paging (keyset) ====================
+
+    /**
+     * จำนวนประชาชนตามประเภท (null = ทั้งหมด)
+     */
+    public int countCitizens(Citizen.CitizenType type) throws SQLException {
+        if (type == null) {
+            return countCitizens();
         }
+        return pool.withReader("db.countCitizens", conn -> {
+            PreparedStatement pstmt = conn.prepare("SELECT COUNT(*) FROM citizens WHERE type = ?");
+            pstmt.setString(1, type.name());
+            return queryInt(pstmt);
+        });
+    }
+
+    /**
+     * ดึงประชาชนหน้าถัดไปแบบ keyset (id > afterId เรียงตาม id) ใช้ primary key
+     * จึงเร็วเท่ากันทุกหน้าไม่ว่าตารางจะใหญ่แค่ไหน
+     *
+     * @param type    ประเภทที่ต้องการ (null = ทั้งหมด)
+     * @param afterId id สุดท้ายของหน้าก่อนหน้า (0 = เริ่มต้น)
+     * @param limit   จำนวนแถวสูงสุด
+     */
+    public List<Citizen> getCitizensAfterId(Citizen.CitizenType type, int afterId, int limit) throws SQLException {
+        return pool.withReader("db.getCitizensAfterId", conn -> {
+            List<Citizen> citizens = new ArrayList<>();
+            String sql = "SELECT * FROM citizens WHERE id > ?" +
+                    (type != null ? " AND type = ?" : "") +
+                    " ORDER BY id LIMIT ?";
+            PreparedStatement pstmt = conn.prepare(sql);
+            int index = 1;
+            pstmt.setInt(index++, afterId);
+            if (type != null) {
+                pstmt.setString(index++, type.name());
+            }
+            pstmt.setInt(index, limit);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                citizens.add(createCitizenFromResultSet(rs));
+            }
+
+            rs.close();
+            return citizens;
+        });
+    }
+
+    /**
+     * id ของประชาชนแถวที่ offset (เรียงตาม id) ใช้หาจุดเริ่มของหน้าเมื่อกระโดดข้ามหลายหน้า
+     * อ่านเฉพาะ index ไม่ต้องอ่านข้อมูลทั้งแถว
+     *
+     * @return id หรือ -1 ถ้า offset เกินจำนวนแถว
+     */
+    public int findCitizenIdAtOffset(Citizen.CitizenType type, int offset) throws SQLException {
+        return pool.withReader("db.findCitizenIdAtOffset", conn -> {
+            String sql = "SELECT id FROM citizens" +
+                    (type != null ? " WHERE type = ?" : "") +
+                    " ORDER BY id LIMIT 1 OFFSET ?";
+            PreparedStatement pstmt = conn.prepare(sql);
+            int index = 1;
+            if (type != null) {
+                pstmt.setString(index++, type.name());
+            }
+            pstmt.setInt(index, offset);
+            ResultSet rs = pstmt.executeQuery();
+            int id = rs.next() ? rs.getInt(1) : -1;
+            rs.close();
+            return id;
+        });
+    }
+
+    // ==================== Unassigned citizens (anti-join) ====================
+
+    // anti-join ใช้ index idx_assignments_citizen_id ตรวจสอบทีละแถวแทนการ query แยก
+    private static final String UNASSIGNED_WHERE = " WHERE NOT EXISTS " +
+            "(SELECT 1 FROM assignments a WHERE a.citizen_id = c.id)";
+
+    // ลำดับความสำคัญที่คำนวณไว้ตอนลงทะเบียน (Citizen.priorityRank) เดิน index idx_citizens_priority ได้โดยตรง
+    private static final String PRIORITY_ORDER = " ORDER BY c.priority_rank, c.id";
+
+    /**
+     * ดึงประชาชนที่ยังไม่ได้รับการจัดสรรด้วย query เดียว
+     *
+     * @param priorityOrder เรียงตามลำดับความสำคัญ (false = เรียงตาม id)
+     * @param offset        จำนวนแถวที่ข้าม
+     * @param limit         จำนวนแถวสูงสุด (0 = ทั้งหมด)
+     */
+    public List<Citizen> getUnassignedCitizens(boolean priorityOrder, int offset, int limit) throws SQLException {
+        return pool.withReader("db.getUnassignedCitizens", conn -> {
+            List<Citizen> citizens = new ArrayList<>();
+            String sql = "SELECT c.* FROM citizens c" + UNASSIGNED_WHERE +
+                    (priorityOrder ? PRIORITY_ORDER : " ORDER BY c.id") +
+                    " LIMIT ? OFFSET ?";
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setInt(1, limit > 0 ? limit : -1);
+            pstmt.setInt(2, Math.max(offset, 0));
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                citizens.add(createCitizenFromResultSet(rs));
+            }
 
+            rs.close();
+            return citizens;
+        });
+    }
+
+    public int countUnassignedCitizens() throws SQLException {
+        return pool.withReader("db.countUnassignedCitizens", conn -> queryInt(conn.prepare(
+                "SELECT COUNT(*) FROM citizens c" + UNASSIGNED_WHERE)));
+    }
+
+    /**
+     * จำนวนเด็ก/ผู้สูงอายุที่ยังไม่ได้รับการจัดสรร
+     */
+    public int countUnassignedPriorityCitizens() throws SQLException {
+        return pool.withReader("db.countUnassignedPriorityCitizens", conn -> queryInt(conn.prepare(
+                "SELECT COUNT(*) FROM citizens c" + UNASSIGNED_WHERE + " AND (c.age < 18 OR c.age >= 60)")));
+    }
+
+    private int queryInt(PreparedStatement pstmt) throws SQLException {
+        ResultSet rs = pstmt.executeQuery();
+        int value = rs.next() ? rs.getInt(1) : 0;
         rs.close();
-        pstmt.close();
-        return citizen;
+        return value;
     }
 
     private Citizen createCitizenFromResultSet(ResultSet rs) throws SQLException {
@@ -219,73 +499,210 @@ public class DatabaseManager {
                 rs.getInt("age"),
                 rs.getString("health_condition"),
                 LocalDate.parse(rs.getString("registration_date")),
-                Citizen.CitizenType.valueOf(rs.getString("type")));
+                Citizen.CitizenType.valueOf(rs.getString("type")),
+                rs.getInt("health_risk") != 0);
     }
 
     // ==================== Assignment CRUD ====================
 
     public int addAssignment(Assignment assignment) throws SQLException {
+        return pool.write("db.addAssignment", conn -> insertAssignment(conn, assignment, false));
+    }
+
+    /**
+     * จัดสรรศูนย์พักพิงแบบ atomic (งานเดียวในคิวเขียน: สำเร็จทั้งหมดหรือ rollback ทั้งหมด)
+     * - เพิ่มจำนวนคนด้วย UPDATE แบบมีเงื่อนไข (current_occupancy < max_capacity) จึงไม่มีทางเกินความจุ
+     * - unique index บน assignments(citizen_id) ป้องกันการจัดสรรซ้ำ
+     * ถ้าเงื่อนไขใดไม่ผ่าน งานนี้จะถูก rollback ทั้งหมด
+     * เมื่อสำเร็จ assignment.getShelter() คือแถวของศูนย์หลังเพิ่มจำนวนคน (ผู้เรียกไม่ต้องอ่านซ้ำ)
+     *
+     * @param requireLowRisk ต้องเป็นศูนย์ความเสี่ยงต่ำเท่านั้น (ผู้มีความเสี่ยงด้านสุขภาพ)
+     * @return id ของ assignment ที่สร้าง
+     */
+    public int assignCitizen(Assignment assignment, boolean requireLowRisk) throws SQLException {
+        return pool.write("db.assignCitizen", conn -> {
+            Shelter shelter = incrementOccupancy(conn, assignment.getShelterId(), 1, requireLowRisk);
+            if (shelter == null) {
+                throw new SQLIntegrityConstraintViolationException(describeRejectedShelter(conn, assignment.getShelterId(), requireLowRisk));
+            }
+            int id = insertAssignment(conn, assignment, true);
+            assignment.setShelter(shelter);
+            return id;
+        });
+    }
+
+    /**
+     * บันทึกการจัดสรรหลายรายการใน transaction เดียว (ใช้กับการจัดสรรแบบกลุ่ม)
+     * จำนวนคนของแต่ละศูนย์ถูกเพิ่มด้วย UPDATE แบบมีเงื่อนไขครั้งเดียวต่อศูนย์
+     * ถ้าศูนย์ใดเกินความจุหรือประชาชนคนใดถูกจัดสรรแล้ว จะ rollback ทั้ง batch
+     * (ผู้เรียกต้องตรวจสอบเงื่อนไขความเสี่ยงของศูนย์มาก่อนแล้ว)
+     *
+     * @return แถวของศูนย์ที่เปลี่ยนหลังเพิ่มจำนวนคน (key = shelter id)
+     */
+    public Map<Integer, Shelter> addAssignmentsBatch(List<Assignment> assignments) throws SQLException {
+        if (assignments.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Map<Integer, Integer> perShelter = new HashMap<>();
+        for (Assignment assignment : assignments) {
+            perShelter.merge(assignment.getShelterId(), 1, Integer::sum);
+        }
+
+        return pool.inTransaction("db.addAssignmentsBatch", conn -> {
+            Map<Integer, Shelter> updated = new HashMap<>();
+            for (Map.Entry<Integer, Integer> entry : perShelter.entrySet()) {
+                Shelter shelter = incrementOccupancy(conn, entry.getKey(), entry.getValue(), false);
+                if (shelter == null) {
+                    throw new SQLIntegrityConstraintViolationException("ศูนย์พักพิง id " + entry.getKey() + " มีที่ว่างไม่พอ");
+                }
+                updated.put(shelter.getId(), shelter);
+            }
+
+            PreparedStatement insert = conn.prepare(
+                    "INSERT INTO assignments (citizen_id, shelter_id, assignment_date, notes) VALUES (?, ?, ?, ?)");
+            for (Assignment assignment : assignments) {
+                insert.setInt(1, assignment.getCitizenId());
+                insert.setInt(2, assignment.getShelterId());
+                insert.setString(3, assignment.getAssignmentDate().toString());
+                insert.setString(4, assignment.getNotes());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+
+            int lastId = lastInsertRowId(conn);
+            for (int i = 0; i < assignments.size(); i++) {
+                assignments.get(i).setId(lastId - assignments.size() + 1 + i);
+                pool.appendJournal(Journal.CITIZEN_ASSIGNED, JournalCodec.assignment(assignments.get(i), true));
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * เพิ่มจำนวนคนในศูนย์พักพิง 1 คน ถ้ายังไม่เต็ม (คืนค่า false ถ้าเต็มหรือไม่พบ)
+     */
+    public boolean incrementShelterOccupancy(int shelterId) throws SQLException {
+        return pool.write("db.incrementShelterOccupancy", conn -> {
+            if (incrementOccupancy(conn, shelterId, 1, false) == null) {
+                return false;
+            }
+            pool.appendJournal(Journal.OCCUPANCY_ADJUSTED, JournalCodec.occupancyAdjusted(shelterId, 1));
+            return true;
+        });
+    }
+
+    /**
+     * เพิ่มจำนวนคน count คนถ้ายังไม่เกินความจุ แล้วคืนแถวหลังเปลี่ยนด้วย RETURNING (ไม่ต้อง SELECT ซ้ำ)
+     *
+     * @return null ถ้าไม่พบศูนย์ ที่ว่างไม่พอ หรือไม่ใช่ศูนย์ความเสี่ยงต่ำตามที่กำหนด
+     */
+    private Shelter incrementOccupancy(PooledConnection conn, int shelterId, int count, boolean requireLowRisk)
+            throws SQLException {
+        String sql = "UPDATE shelters SET current_occupancy = current_occupancy + ? " +
+                "WHERE id = ? AND current_occupancy + ? <= max_capacity AND (? = 0 OR risk_level = 'LOW') RETURNING *";
+        PreparedStatement pstmt = conn.prepare(sql);
+        pstmt.setInt(1, count);
+        pstmt.setInt(2, shelterId);
+        pstmt.setInt(3, count);
+        pstmt.setInt(4, requireLowRisk ? 1 : 0);
+        ResultSet rs = pstmt.executeQuery();
+        try {
+            return rs.next() ? createShelterFromResultSet(rs) : null;
+        } finally {
+            rs.close();
+        }
+    }
+
+    // countsOccupancy: งานเดียวกันได้เพิ่มจำนวนคนของศูนย์แล้ว (ใช้ตอน replay และย้อนดูจำนวนคนจาก journal)
+    private int insertAssignment(PooledConnection conn, Assignment assignment, boolean countsOccupancy)
+            throws SQLException {
         String sql = "INSERT INTO assignments (citizen_id, shelter_id, assignment_date, notes) VALUES (?, ?, ?, ?)";
-        PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        PreparedStatement pstmt = conn.prepareInsert(sql);
         pstmt.setInt(1, assignment.getCitizenId());
         pstmt.setInt(2, assignment.getShelterId());
         pstmt.setString(3, assignment.getAssignmentDate().toString());
         pstmt.setString(4, assignment.getNotes());
-        pstmt.executeUpdate();
+        try {
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            if (isConstraintViolation(e)) {
+                throw new SQLIntegrityConstraintViolationException("ประชาชนคนนี้ได้รับการจัดสรรแล้ว", e);
+            }
+            throw e;
+        }
 
         ResultSet rs = pstmt.getGeneratedKeys();
         int id = rs.next() ? rs.getInt(1) : -1;
-        pstmt.close();
+        rs.close();
+        pool.appendJournal(Journal.CITIZEN_ASSIGNED, JournalCodec.assignment(new Assignment(id,
+                assignment.getCitizenId(), assignment.getShelterId(), assignment.getAssignmentDate(),
+                assignment.getNotes()), countsOccupancy));
         return id;
     }
 
-    public List<Assignment> getAllAssignments() throws SQLException {
-        List<Assignment> assignments = new ArrayList<>();
-        String sql = "SELECT * FROM assignments";
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(sql);
-
-        while (rs.next()) {
-            Assignment assignment = createAssignmentFromResultSet(rs);
-            assignments.add(assignment);
+    // อ่านเหตุผลเฉพาะกรณีที่ UPDATE ไม่ผ่าน (ไม่อยู่ใน path ปกติ)
+    private String describeRejectedShelter(PooledConnection conn, int shelterId, boolean requireLowRisk)
+            throws SQLException {
+        PreparedStatement pstmt = conn.prepare(
+                "SELECT current_occupancy >= max_capacity, risk_level FROM shelters WHERE id = ?");
+        pstmt.setInt(1, shelterId);
+        ResultSet rs = pstmt.executeQuery();
+        try {
+            if (!rs.next()) {
+                return "ไม่พบข้อมูลศูนย์พักพิง";
+            }
+            if (rs.getBoolean(1)) {
+                return "ศูนย์พักพิงเต็มแล้ว ไม่สามารถรับเพิ่มได้";
+            }
+            if (requireLowRisk && !Shelter.RiskLevel.LOW.name().equals(rs.getString(2))) {
+                return "ผู้มีความเสี่ยงด้านสุขภาพต้องถูกจัดไปยังศูนย์ความเสี่ยงต่ำเท่านั้น";
+            }
+            return "ไม่สามารถจัดสรรศูนย์พักพิงได้";
+        } finally {
+            rs.close();
         }
+    }
 
-        rs.close();
-        stmt.close();
+    public List<Assignment> getAllAssignments() throws SQLException {
+        List<Assignment> assignments = new ArrayList<>();
+        forEachAssignment("db.getAllAssignments", assignments::add);
         return assignments;
     }
 
     public Assignment getAssignmentByCitizenId(int citizenId) throws SQLException {
-        String sql = "SELECT * FROM assignments WHERE citizen_id = ?";
-        PreparedStatement pstmt = connection.prepareStatement(sql);
-        pstmt.setInt(1, citizenId);
-        ResultSet rs = pstmt.executeQuery();
-
-        Assignment assignment = null;
-        if (rs.next()) {
-            assignment = createAssignmentFromResultSet(rs);
-        }
+        return pool.withReader("db.getAssignmentByCitizenId", conn -> {
+            String sql = "SELECT * FROM assignments WHERE citizen_id = ?";
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setInt(1, citizenId);
+            ResultSet rs = pstmt.executeQuery();
+
+            Assignment assignment = null;
+            if (rs.next()) {
+                assignment = createAssignmentFromResultSet(rs);
+            }
 
-        rs.close();
-        pstmt.close();
-        return assignment;
+            rs.close();
+            return assignment;
+        });
     }
 
     public List<Assignment> getAssignmentsByShelterId(int shelterId) throws SQLException {
-        List<Assignment> assignments = new ArrayList<>();
-        String sql = "SELECT * FROM assignments WHERE shelter_id = ?";
-        PreparedStatement pstmt = connection.prepareStatement(sql);
-        pstmt.setInt(1, shelterId);
-        ResultSet rs = pstmt.executeQuery();
-
-        while (rs.next()) {
-            Assignment assignment = createAssignmentFromResultSet(rs);
-            assignments.add(assignment);
-        }
+        return pool.withReader("db.getAssignmentsByShelterId", conn -> {
+            List<Assignment> assignments = new ArrayList<>();
+            String sql = "SELECT * FROM assignments WHERE shelter_id = ?";
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setInt(1, shelterId);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                Assignment assignment = createAssignmentFromResultSet(rs);
+                assignments.add(assignment);
+            }
 
-        rs.close();
-        pstmt.close();
-        return assignments;
+            rs.close();
+            return assignments;
+        });
     }
 
     private Assignment createAssignmentFromResultSet(ResultSet rs) throws SQLException {
@@ -297,26 +714,301 @@ public class DatabaseManager {
                 rs.getString("notes"));
     }
 
-    public boolean isAssigned(int citizenId) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM assignments WHERE citizen_id = ?";
-        PreparedStatement pstmt = connection.prepareStatement(sql);
-        pstmt.setInt(1, citizenId);
-        ResultSet rs = pstmt.executeQuery();
-        boolean exists = rs.next() && rs.getInt(1) > 0;
+    // SELECT เดียวพร้อมข้อมูล Citizen และ Shelter (แทนการ query แยกทีละแถว)
+    private static final String ASSIGNMENT_DETAILS_SQL = "SELECT a.id, a.citizen_id, a.shelter_id, a.assignment_date, a.notes, " +
+            "c.id AS c_id, c.name AS c_name, c.age, c.health_condition, c.registration_date, c.type, c.health_risk, " +
+            "s.id AS s_id, s.name AS s_name, s.max_capacity, s.current_occupancy, s.risk_level " +
+            "FROM assignments a " +
+            "LEFT JOIN citizens c ON c.id = a.citizen_id " +
+            "LEFT JOIN shelters s ON s.id = a.shelter_id";
+
+    /**
+     * ดึงการจัดสรรทั้งหมดพร้อม Citizen และ Shelter ด้วย query เดียว
+     */
+    public List<Assignment> getAssignmentsWithDetails() throws SQLException {
+        List<Assignment> assignments = new ArrayList<>();
+        forEachAssignmentWithDetails("db.getAssignmentsWithDetails", assignments::add);
+        return assignments;
+    }
+
+    /**
+     * ดึงการจัดสรรของศูนย์พักพิงหนึ่งแห่งพร้อม Citizen และ Shelter ด้วย query เดียว
+     */
+    public List<Assignment> getAssignmentsWithDetailsByShelterId(int shelterId) throws SQLException {
+        return pool.withReader("db.getAssignmentsWithDetailsByShelterId", conn -> {
+            PreparedStatement pstmt = conn.prepare(ASSIGNMENT_DETAILS_SQL + " WHERE a.shelter_id = ? ORDER BY a.id");
+            pstmt.setInt(1, shelterId);
+            return readAssignmentsWithDetails(pstmt.executeQuery());
+        });
+    }
+
+    private List<Assignment> readAssignmentsWithDetails(ResultSet rs) throws SQLException {
+        List<Assignment> assignments = new ArrayList<>();
+        // ใช้ Shelter object เดียวกันสำหรับทุกแถวที่อยู่ศูนย์เดียวกัน
+        Map<Integer, Shelter> shelters = new HashMap<>();
+
+        while (rs.next()) {
+            assignments.add(createAssignmentWithDetails(rs, shelters));
+        }
+
         rs.close();
-        pstmt.close();
-        return exists;
+        return assignments;
+    }
+
+    private Assignment createAssignmentWithDetails(ResultSet rs, Map<Integer, Shelter> shelters) throws SQLException {
+        Assignment assignment = createAssignmentFromResultSet(rs);
+
+        int citizenId = rs.getInt("c_id");
+        if (!rs.wasNull()) {
+            assignment.setCitizen(new Citizen(
+                    citizenId,
+                    rs.getString("c_name"),
+                    rs.getInt("age"),
+                    rs.getString("health_condition"),
+                    LocalDate.parse(rs.getString("registration_date")),
+                    Citizen.CitizenType.valueOf(rs.getString("type")),
+                    rs.getInt("health_risk") != 0));
+        }
+
+        int shelterId = rs.getInt("s_id");
+        if (!rs.wasNull()) {
+            Shelter shelter = shelters.get(shelterId);
+            if (shelter == null) {
+                shelter = new Shelter(
+                        shelterId,
+                        rs.getString("s_name"),
+                        rs.getInt("max_capacity"),
+                        rs.getInt("current_occupancy"),
+                        Shelter.RiskLevel.valueOf(rs.getString("risk_level")));
+                shelters.put(shelterId, shelter);
+            }
+            assignment.setShelter(shelter);
+        }
+
+        return assignment;
+    }
+
+    public boolean isAssigned(int citizenId) throws SQLException {
+        return pool.withReader("db.isAssigned", conn -> {
+            String sql = "SELECT COUNT(*) FROM assignments WHERE citizen_id = ?";
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setInt(1, citizenId);
+            ResultSet rs = pstmt.executeQuery();
+            boolean exists = rs.next() && rs.getInt(1) > 0;
+            rs.close();
+            return exists;
+        });
+    }
+
+    // ==================== Streaming ====================
+
+    // แปลงแถวปัจจุบันของ ResultSet เป็น object
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * รัน query แล้วส่งผลลัพธ์ให้ handler ทีละแถว (ใช้หน่วยความจำคงที่ไม่ว่าจะมีกี่แถว)
+     * handler ทำงานขณะถือ reader connection ไว้ จึงเห็นข้อมูล snapshot เดียวกันตลอดการวน
+     * ห้ามเรียก forEach... ซ้อนกันเกินจำนวน reader ใน pool
+     * เวลาที่จับด้วยชื่อ operation รวมเวลาที่ handler ใช้ด้วย
+     */
+    private <T> void stream(String operation, String sql, RowMapper<T> mapper, RowHandler<T> handler,
+            Object... params) throws SQLException {
+        pool.withReader(operation, conn -> {
+            PreparedStatement pstmt = conn.prepare(sql);
+            pstmt.setFetchSize(pool.getConfig().getFetchSize());
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+
+            ResultSet rs = pstmt.executeQuery();
+            try {
+                while (rs.next()) {
+                    handler.handle(mapper.map(rs));
+                }
+            } finally {
+                rs.close();
+            }
+            return null;
+        });
+    }
+
+    public void forEachShelter(RowHandler<Shelter> handler) throws SQLException {
+        forEachShelter("db.forEachShelter", handler);
+    }
+
+    // operation = ชื่อ metric ของเมธอดที่เรียก (getAll... ใช้ชื่อของตัวเอง ไม่นับซ้ำเป็น forEach...)
+    private void forEachShelter(String operation, RowHandler<Shelter> handler) throws SQLException {
+        stream(operation, "SELECT * FROM shelters", this::createShelterFromResultSet, handler);
+    }
+
+    public void forEachCitizen(RowHandler<Citizen> handler) throws SQLException {
+        forEachCitizen("db.forEachCitizen", handler);
+    }
+
+    private void forEachCitizen(String operation, RowHandler<Citizen> handler) throws SQLException {
+        stream(operation, "SELECT * FROM citizens", this::createCitizenFromResultSet, handler);
+    }
+
+    public void forEachCitizenByType(Citizen.CitizenType type, RowHandler<Citizen> handler) throws SQLException {
+        forEachCitizenByType("db.forEachCitizenByType", type, handler);
+    }
+
+    private void forEachCitizenByType(String operation, Citizen.CitizenType type, RowHandler<Citizen> handler)
+            throws SQLException {
+        stream(operation, "SELECT * FROM citizens WHERE type = ?", this::createCitizenFromResultSet, handler, type.name());
+    }
+
+    /**
+     * วนประชาชนที่ยังไม่ได้รับการจัดสรร
+     *
+     * @param priorityOrder เรียงตามลำดับความสำคัญ (false = เรียงตาม id)
+     */
+    public void forEachUnassignedCitizen(boolean priorityOrder, RowHandler<Citizen> handler) throws SQLException {
+        stream("db.forEachUnassignedCitizen", "SELECT c.* FROM citizens c" + UNASSIGNED_WHERE + (priorityOrder ? PRIORITY_ORDER : " ORDER BY c.id"),
+                this::createCitizenFromResultSet, handler);
+    }
+
+    public void forEachAssignment(RowHandler<Assignment> handler) throws SQLException {
+        forEachAssignment("db.forEachAssignment", handler);
+    }
+
+    private void forEachAssignment(String operation, RowHandler<Assignment> handler) throws SQLException {
+        stream(operation, "SELECT * FROM assignments", this::createAssignmentFromResultSet, handler);
+    }
+
+    /**
+     * วนการจัดสรรทั้งหมดพร้อม Citizen และ Shelter (JOIN ใน query เดียว)
+     */
+    public void forEachAssignmentWithDetails(RowHandler<Assignment> handler) throws SQLException {
+        forEachAssignmentWithDetails("db.forEachAssignmentWithDetails", handler);
+    }
+
+    private void forEachAssignmentWithDetails(String operation, RowHandler<Assignment> handler) throws SQLException {
+        Map<Integer, Shelter> shelters = new HashMap<>();
+        stream(operation, ASSIGNMENT_DETAILS_SQL + " ORDER BY a.id", rs -> createAssignmentWithDetails(rs, shelters), handler);
+    }
+
+    /**
+     * นับประชาชนทั้งหมดด้วย query เดียว แยกกลุ่มตามประเภท / จัดสรรแล้วหรือยัง / เด็กหรือผู้สูงอายุ /
+     * ความเสี่ยงด้านสุขภาพ (คอลัมน์ health_risk ที่บันทึกไว้)
+     */
+    public void forEachCitizenCountGroup(RowHandler<CitizenCountGroup> handler) throws SQLException {
+        stream("db.forEachCitizenCountGroup", "SELECT c.type, " +
+                "EXISTS (SELECT 1 FROM assignments a WHERE a.citizen_id = c.id) AS assigned, " +
+                "(c.age < 18 OR c.age >= 60) AS priority, c.health_risk, COUNT(*) AS total, " +
+                // อ่านใน statement เดียวกับการนับ จึงมาจาก snapshot เดียวกัน
+                "(SELECT MAX(id) FROM citizens) AS last_citizen_id, " +
+                "(SELECT MAX(id) FROM assignments) AS last_assignment_id " +
+                "FROM citizens c GROUP BY 1, 2, 3, 4",
+                rs -> new CitizenCountGroup(
+                        Citizen.CitizenType.valueOf(rs.getString("type")),
+                        rs.getInt("assigned") != 0,
+                        rs.getInt("priority") != 0,
+                        rs.getInt("health_risk") != 0,
+                        rs.getInt("total"),
+                        rs.getInt("last_citizen_id"),
+                        rs.getInt("last_assignment_id")),
+                handler);
+    }
+
+    // ==================== Journal ====================
+
+    /**
+     * จำนวน record ที่ replay จาก journal ตอนเปิดฐานข้อมูล (งานที่ยืนยันแล้วแต่ commit หายไป)
+     */
+    public int getRecoveredJournalRecords() {
+        return recoveredJournalRecords;
+    }
+
+    /**
+     * เลขประจำ journal ที่ใช้อยู่ (0 ถ้าไม่ได้เปิดใช้) ใช้ตรวจว่าไฟล์อื่นข้างฐานข้อมูลเป็นของไฟล์นี้
+     */
+    public long getJournalId() {
+        Journal journal = pool.getJournal();
+        return journal != null ? journal.getJournalId() : 0;
+    }
+
+    /**
+     * seq ของ record ล่าสุดใน journal (0 ถ้าไม่ได้เปิดใช้) เพิ่มขึ้นทุกครั้งที่มีการเขียนข้อมูล
+     */
+    public long getJournalSeq() {
+        Journal journal = pool.getJournal();
+        return journal != null ? journal.getLastSeq() : 0;
+    }
+
+    /**
+     * จำนวนคนของแต่ละศูนย์พักพิง ณ เวลาที่กำหนด อ่านจาก journal ครั้งเดียวตามลำดับ
+     * (OCCUPANCY_SNAPSHOT ตอนเริ่มไฟล์ + การเปลี่ยนแปลงทุกรายการจนถึงเวลานั้น)
+     *
+     * @return shelterId -> จำนวนคน หรือ null ถ้า journal ไม่มีข้อมูลย้อนไปถึงเวลานั้น
+     */
+    public Map<Integer, Integer> getShelterOccupancyAt(long epochMillis) throws SQLException {
+        return Metrics.time("db.getShelterOccupancyAt", () -> readShelterOccupancyAt(epochMillis));
+    }
+
+    private Map<Integer, Integer> readShelterOccupancyAt(long epochMillis) throws SQLException {
+        Journal journal = pool.getJournal();
+        if (journal == null) {
+            throw new SQLException("ไม่ได้เปิดใช้ journal");
+        }
+
+        Map<Integer, Integer> occupancy = new HashMap<>();
+        boolean[] found = new boolean[1];
+        try {
+            journal.forEach(record -> {
+                if (record.getTime() > epochMillis) {
+                    return false;
+                }
+                switch (record.getType()) {
+                    case Journal.OCCUPANCY_SNAPSHOT:
+                        occupancy.clear();
+                        occupancy.putAll(JournalCodec.readSnapshot(record.getPayload()));
+                        found[0] = true;
+                        break;
+                    case Journal.SHELTER_SAVED:
+                        Shelter shelter = JournalCodec.readShelter(record.getPayload());
+                        occupancy.put(shelter.getId(), shelter.getCurrentOccupancy());
+                        break;
+                    case Journal.CITIZEN_ASSIGNED:
+                        JournalCodec.AssignedRecord assigned = JournalCodec.readAssignment(record.getPayload());
+                        if (assigned.countsOccupancy) {
+                            occupancy.merge(assigned.assignment.getShelterId(), 1, Integer::sum);
+                        }
+                        break;
+                    case Journal.OCCUPANCY_ADJUSTED:
+                        int[] adjusted = JournalCodec.readOccupancyAdjusted(record.getPayload());
+                        occupancy.merge(adjusted[0], adjusted[1], Integer::sum);
+                        break;
+                    default:
+                        break;
+                }
+                return true;
+            });
+        } catch (IOException e) {
+            throw new SQLException("อ่าน journal ไม่สำเร็จ", e);
+        }
+        return found[0] ? occupancy : null;
     }
 
     // ==================== Utility ====================
 
+    public DatabaseConfig getConfig() {
+        return pool.getConfig();
+    }
+
+    public long getStatementCacheHits() {
+        return pool.getStatementCacheHits();
+    }
+
+    public long getStatementCacheMisses() {
+        return pool.getStatementCacheMisses();
+    }
+
     public void close() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        if (pool != null) {
+            pool.close();
         }
     }
 }
@@ -0,0 +1,401 @@
+package database;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * Journal แบบต่อท้ายอย่างเดียว (append-only) เขียนผ่าน memory-mapped file
+ * เก็บเหตุการณ์ลงทะเบียน/จัดสรรไว้ข้างไฟล์ SQLite เพื่อกู้คืนงานที่ยืนยันแล้วหลังไฟดับ
+ *
+ * รูปแบบไฟล์: header 24 bytes (magic, version, journalId, baseSeq) ตามด้วย record ต่อกัน
+ * record: [length int][crc32 int][seq long][time long][type byte][payload]
+ * - length = จำนวน byte ตั้งแต่ seq ถึงท้าย payload, crc32 คำนวณจากช่วงเดียวกัน
+ * - seq เรียงต่อกันทีละ 1 เริ่มจาก baseSeq และ time ไม่ลดลง (ใช้หาสถานะ ณ เวลาใดเวลาหนึ่ง)
+ * - ท้ายไฟล์ที่ยังไม่ได้ใช้เป็น 0 การอ่านหยุดที่ record แรกที่ไม่สมบูรณ์ (length/crc/seq ไม่ถูกต้อง)
+ *
+ * ใช้จาก writer ของ ConnectionPool เท่านั้น (ผู้เรียกต้องถือ writer lock) ยกเว้น forEach ที่อ่านได้ทุก thread
+ */
+public class Journal {
+    public static final byte CITIZEN_REGISTERED = 1;
+    public static final byte CITIZEN_ASSIGNED = 2;
+    public static final byte OCCUPANCY_SNAPSHOT = 3;
+    public static final byte SHELTER_SAVED = 4;
+    public static final byte OCCUPANCY_ADJUSTED = 5;
+
+    private static final int MAGIC = 0x53484a31; // "SHJ1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int BODY_HEADER_BYTES = 17;
+    // ขนาดช่วงที่ map ต่อครั้ง เมื่อเต็มจะ map ช่วงถัดไปต่อท้าย
+    private static final int REGION_BYTES = 8 * 1024 * 1024;
+    private static final int MAX_RECORD_BYTES = REGION_BYTES / 2;
+    // ขนาด buffer ตอนอ่านทั้งไฟล์ (record ที่ใหญ่กว่านี้จะขยาย buffer เฉพาะครั้งนั้น)
+    private static final int READ_BUFFER_BYTES = 1024 * 1024;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final long journalId;
+    private final long baseSeq;
+
+    private MappedByteBuffer region;
+    private long regionStart;
+    private volatile long position;
+    private volatile long lastSeq;
+    private long lastTime;
+    private boolean dirty;
+
+    /**
+     * ตำแหน่งสำหรับย้อนกลับ (record ที่เขียนหลัง mark จะถูกลบด้วย rollback)
+     */
+    public static final class Mark {
+        private final long position;
+        private final long lastSeq;
+        private final long lastTime;
+
+        private Mark(long position, long lastSeq, long lastTime) {
+            this.position = position;
+            this.lastSeq = lastSeq;
+            this.lastTime = lastTime;
+        }
+    }
+
+    /**
+     * record หนึ่งรายการที่อ่านจากไฟล์
+     */
+    public static final class Record {
+        private final long seq;
+        private final long time;
+        private final byte type;
+        private final byte[] payload;
+
+        Record(long seq, long time, byte type, byte[] payload) {
+            this.seq = seq;
+            this.time = time;
+            this.type = type;
+            this.payload = payload;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        /**
+         * เวลาที่เขียน (epoch millis)
+         */
+        public long getTime() {
+            return time;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    public interface RecordHandler {
+        /**
+         * @return false เพื่อหยุดอ่าน
+         */
+        boolean onRecord(Record record) throws IOException;
+    }
+
+    private Journal(File file, long journalId, long baseSeq) throws IOException {
+        this.file = file;
+        this.raf = new RandomAccessFile(file, "rw");
+        this.channel = raf.getChannel();
+        this.journalId = journalId;
+        this.baseSeq = baseSeq;
+    }
+
+    // ==================== Open / create ====================
+
+    /**
+     * เปิด journal เดิมแล้วหาตำแหน่งท้ายสุดที่สมบูรณ์
+     *
+     * @return null ถ้ายังไม่มีไฟล์หรือ header ไม่ถูกต้อง
+     */
+    public static Journal open(File file) throws IOException {
+        if (!file.exists() || file.length() < HEADER_BYTES) {
+            return null;
+        }
+
+        long journalId;
+        long baseSeq;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            journalId = in.readLong();
+            baseSeq = in.readLong();
+        }
+
+        Journal journal = new Journal(file, journalId, baseSeq);
+        long[] tail = { HEADER_BYTES };
+        journal.scan(Long.MAX_VALUE, record -> {
+            journal.lastSeq = record.seq;
+            journal.lastTime = record.time;
+            return true;
+        }, tail);
+        if (journal.lastSeq == 0) {
+            journal.lastSeq = baseSeq - 1;
+        }
+        journal.position = tail[0];
+        journal.mapRegion(journal.position);
+        return journal;
+    }
+
+    /**
+     * สร้าง journal ใหม่แทนไฟล์เดิม (เขียนไฟล์ชั่วคราวแล้วเปลี่ยนชื่อ จึงไม่มีช่วงที่ไม่มีไฟล์)
+     */
+    public static Journal create(File file, long journalId, long baseSeq) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile out = new RandomAccessFile(temp, "rw")) {
+            out.setLength(0);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(journalId);
+            out.writeLong(baseSeq);
+            out.getChannel().force(true);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        Journal journal = new Journal(file, journalId, baseSeq);
+        journal.position = HEADER_BYTES;
+        journal.lastSeq = baseSeq - 1;
+        journal.mapRegion(HEADER_BYTES);
+        return journal;
+    }
+
+    // map ช่วงใหม่เริ่มที่ start (ไฟล์ถูกขยายอัตโนมัติ) แล้ว force metadata ของขนาดไฟล์ครั้งเดียว
+    private void mapRegion(long start) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, REGION_BYTES);
+        regionStart = start;
+        channel.force(true);
+    }
+
+    // ==================== Append ====================
+
+    /**
+     * ต่อท้าย record ใหม่ (ยังไม่ถึงดิสก์จนกว่าจะเรียก force)
+     *
+     * @return seq ของ record
+     */
+    public synchronized long append(byte type, byte[] payload) throws IOException {
+        int bodyLength = BODY_HEADER_BYTES + payload.length;
+        int recordLength = RECORD_HEADER_BYTES + bodyLength;
+        if (recordLength > MAX_RECORD_BYTES) {
+            throw new IOException("record ใน journal มีขนาดใหญ่เกินไป: " + recordLength + " bytes");
+        }
+        if (position + recordLength > regionStart + REGION_BYTES) {
+            region.force();
+            mapRegion(position);
+        }
+
+        long seq = lastSeq + 1;
+        long time = Math.max(lastTime, System.currentTimeMillis());
+        ByteBuffer body = ByteBuffer.allocate(bodyLength);
+        body.putLong(seq).putLong(time).put(type).put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, bodyLength);
+
+        int offset = (int) (position - regionStart);
+        region.putInt(offset, bodyLength);
+        region.putInt(offset + 4, (int) crc.getValue());
+        for (int i = 0; i < bodyLength; i++) {
+            region.put(offset + RECORD_HEADER_BYTES + i, body.get(i));
+        }
+
+        position += recordLength;
+        lastSeq = seq;
+        lastTime = time;
+        dirty = true;
+        return seq;
+    }
+
+    /**
+     * เขียน record ที่ต่อท้ายแล้วทั้งหมดลงดิสก์ (msync)
+     */
+    public synchronized void force() {
+        if (dirty) {
+            region.force();
+            dirty = false;
+        }
+    }
+
+    public synchronized Mark mark() {
+        return new Mark(position, lastSeq, lastTime);
+    }
+
+    public synchronized boolean hasAppendedSince(Mark mark) {
+        return lastSeq != mark.lastSeq;
+    }
+
+    /**
+     * ลบ record ที่เขียนหลัง mark (ใช้เมื่อ transaction ของฐานข้อมูลไม่สำเร็จ)
+     */
+    public synchronized void rollback(Mark mark) throws IOException {
+        if (mark.lastSeq == lastSeq) {
+            return;
+        }
+
+        // ล้างเป็น 0 ทั้งช่วง: ถ้าเหลือ record เก่าที่ seq ต่อกันพอดี การอ่านครั้งหน้าจะเข้าใจผิดว่ายังใช้อยู่
+        long pos = mark.position;
+        while (pos < position) {
+            if (pos < regionStart || pos >= regionStart + REGION_BYTES) {
+                mapRegion(pos);
+            }
+            int end = (int) Math.min(position - regionStart, REGION_BYTES);
+            for (int i = (int) (pos - regionStart); i < end; i++) {
+                region.put(i, (byte) 0);
+            }
+            region.force();
+            pos = regionStart + end;
+        }
+        if (mark.position < regionStart) {
+            mapRegion(mark.position);
+        }
+        dirty = false;
+        position = mark.position;
+        lastSeq = mark.lastSeq;
+        lastTime = mark.lastTime;
+    }
+
+    // ==================== Read ====================
+
+    /**
+     * อ่านทุก record ที่สมบูรณ์ตามลำดับ (อ่านผ่าน FileChannel จึงไม่ชนกับการเขียน)
+     */
+    public void forEach(RecordHandler handler) throws IOException {
+        scan(position, handler, new long[1]);
+    }
+
+    // tail[0] = ตำแหน่งหลัง record สุดท้ายที่สมบูรณ์
+    private void scan(long end, RecordHandler handler, long[] tail) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        buffer.flip();
+        CRC32 crc = new CRC32();
+        long pos = HEADER_BYTES;
+        long expectedSeq = baseSeq;
+
+        while (pos + RECORD_HEADER_BYTES <= end) {
+            buffer = fill(buffer, pos, RECORD_HEADER_BYTES);
+            if (buffer.remaining() < RECORD_HEADER_BYTES) {
+                break;
+            }
+            int bodyLength = buffer.getInt(buffer.position());
+            if (bodyLength < BODY_HEADER_BYTES || bodyLength > MAX_RECORD_BYTES
+                    || pos + RECORD_HEADER_BYTES + bodyLength > end) {
+                break;
+            }
+
+            buffer = fill(buffer, pos, RECORD_HEADER_BYTES + bodyLength);
+            if (buffer.remaining() < RECORD_HEADER_BYTES + bodyLength) {
+                break;
+            }
+            int start = buffer.position();
+            int body = start + RECORD_HEADER_BYTES;
+            crc.reset();
+            crc.update(buffer.array(), body, bodyLength);
+            long seq = buffer.getLong(body);
+            if ((int) crc.getValue() != buffer.getInt(start + 4) || seq != expectedSeq) {
+                break;
+            }
+
+            byte[] payload = new byte[bodyLength - BODY_HEADER_BYTES];
+            System.arraycopy(buffer.array(), body + BODY_HEADER_BYTES, payload, 0, payload.length);
+            Record record = new Record(seq, buffer.getLong(body + 8), buffer.get(body + 16), payload);
+            buffer.position(body + bodyLength);
+            pos += RECORD_HEADER_BYTES + bodyLength;
+            expectedSeq++;
+            tail[0] = pos;
+            if (!handler.onRecord(record)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * ให้ buffer มีข้อมูลตั้งแต่ตำแหน่ง pos ของไฟล์อย่างน้อย length byte (ถ้าไฟล์ยาวพอ)
+     * อ่านครั้งละเต็ม buffer แทนการอ่านทีละ record จึงอ่านไฟล์ใหญ่ได้เร็ว
+     */
+    private ByteBuffer fill(ByteBuffer buffer, long pos, int length) throws IOException {
+        if (buffer.remaining() >= length) {
+            return buffer;
+        }
+        if (buffer.capacity() < length) {
+            ByteBuffer larger = ByteBuffer.allocate(length);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+
+        long readPos = pos + buffer.position();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, readPos);
+            if (read <= 0) {
+                break;
+            }
+            readPos += read;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // ==================== Info ====================
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * เลขสุ่มประจำไฟล์ ใช้ตรวจว่า journal นี้เป็นของฐานข้อมูลไฟล์เดียวกัน
+     */
+    public long getJournalId() {
+        return journalId;
+    }
+
+    public long getBaseSeq() {
+        return baseSeq;
+    }
+
+    /**
+     * seq ของ record ล่าสุด (baseSeq - 1 ถ้ายังไม่มี record)
+     */
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public boolean isEmpty() {
+        return lastSeq < baseSeq;
+    }
+
+    /**
+     * จำนวน byte ที่ใช้จริง (header + record)
+     */
+    public long getSize() {
+        return position;
+    }
+
+    public synchronized void close() {
+        force();
+        try {
+            raf.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package database;
+
+import model.Assignment;
+import model.Citizen;
+import model.Shelter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * แปลงข้อมูลเป็น payload ของ record ใน Journal และกลับ (DataOutputStream แบบ big-endian)
+ * - CITIZEN_REGISTERED: ข้อมูลประชาชนทั้งแถวรวม id ที่ได้จากฐานข้อมูล
+ * - CITIZEN_ASSIGNED: การจัดสรรหนึ่งรายการ และว่าได้เพิ่มจำนวนคนในศูนย์หรือไม่
+ * - SHELTER_SAVED: ข้อมูลศูนย์พักพิงทั้งแถว (เพิ่มหรือแก้ไข)
+ * - OCCUPANCY_ADJUSTED: เปลี่ยนจำนวนคนของศูนย์ (shelterId, delta)
+ * - OCCUPANCY_SNAPSHOT: จำนวนคนของทุกศูนย์ ณ ตอนเริ่ม journal
+ */
+final class JournalCodec {
+    private JournalCodec() {
+    }
+
+    // ==================== Encode ====================
+
+    static byte[] citizen(Citizen citizen) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(citizen.getId());
+            out.writeUTF(citizen.getName());
+            out.writeInt(citizen.getAge());
+            writeNullable(out, citizen.getHealthCondition());
+            out.writeUTF(citizen.getRegistrationDate().toString());
+            out.writeUTF(citizen.getType().name());
+            out.writeBoolean(citizen.hasHealthRisk());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] assignment(Assignment assignment, boolean countsOccupancy) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(assignment.getId());
+            out.writeInt(assignment.getCitizenId());
+            out.writeInt(assignment.getShelterId());
+            out.writeUTF(assignment.getAssignmentDate().toString());
+            writeNullable(out, assignment.getNotes());
+            out.writeBoolean(countsOccupancy);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] shelter(Shelter shelter) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(shelter.getId());
+            out.writeUTF(shelter.getName());
+            out.writeInt(shelter.getMaxCapacity());
+            out.writeInt(shelter.getCurrentOccupancy());
+            out.writeUTF(shelter.getRiskLevel().name());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] occupancyAdjusted(int shelterId, int delta) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(shelterId);
+            out.writeInt(delta);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] snapshot(Map<Integer, Integer> occupancy) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + occupancy.size() * 8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(occupancy.size());
+            for (Map.Entry<Integer, Integer> entry : occupancy.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    // ==================== Decode ====================
+
+    static Citizen readCitizen(byte[] payload) throws IOException {
+        DataInputStream in = input(payload);
+        return new Citizen(in.readInt(), in.readUTF(), in.readInt(), readNullable(in),
+                LocalDate.parse(in.readUTF()), Citizen.CitizenType.valueOf(in.readUTF()), in.readBoolean());
+    }
+
+    /**
+     * การจัดสรรที่อ่านจาก record พร้อม flag ว่านับเป็นจำนวนคนในศูนย์หรือไม่
+     */
+    static final class AssignedRecord {
+        final Assignment assignment;
+        final boolean countsOccupancy;
+
+        AssignedRecord(Assignment assignment, boolean countsOccupancy) {
+            this.assignment = assignment;
+            this.countsOccupancy = countsOccupancy;
+        }
+    }
+
+    static AssignedRecord readAssignment(byte[] payload) throws IOException {
+        DataInputStream in = input(payload);
+        Assignment assignment = new Assignment(in.readInt(), in.readInt(), in.readInt(),
+                LocalDate.parse(in.readUTF()), readNullable(in));
+        return new AssignedRecord(assignment, in.readBoolean());
+    }
+
+    static Shelter readShelter(byte[] payload) throws IOException {
+        DataInputStream in = input(payload);
+        return new Shelter(in.readInt(), in.readUTF(), in.readInt(), in.readInt(),
+                Shelter.RiskLevel.valueOf(in.readUTF()));
+    }
+
+    /**
+     * @return {shelterId, delta}
+     */
+    static int[] readOccupancyAdjusted(byte[] payload) throws IOException {
+        DataInputStream in = input(payload);
+        return new int[] { in.readInt(), in.readInt() };
+    }
+
+    static Map<Integer, Integer> readSnapshot(byte[] payload) throws IOException {
+        DataInputStream in = input(payload);
+        int count = in.readInt();
+        Map<Integer, Integer> occupancy = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            occupancy.put(in.readInt(), in.readInt());
+        }
+        return occupancy;
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static DataInputStream input(byte[] payload) {
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+}
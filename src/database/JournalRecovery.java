@@ -0,0 +1,280 @@
+package database;
+
+import model.Assignment;
+import model.Citizen;
+import model.Shelter;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * เปิด Journal ตอนเริ่มโปรแกรม (หลัง migration และก่อนงานเขียนอื่น) แล้ว replay record ที่ฐานข้อมูลยังไม่มี
+ * - record ที่ seq มากกว่า journal_state.applied_seq คืองานที่ยืนยันแล้วแต่ commit ของ SQLite หายไปตอนไฟดับ
+ * - replay ด้วย id เดิม จึงต้องทำก่อนมีงานเขียนใหม่ (id ที่หายไปอาจถูกใช้ซ้ำ)
+ * - ถ้า journal ไม่ตรงกับฐานข้อมูล (คนละไฟล์ หรือ seq ขาดช่วง) หรือใหญ่เกิน ROTATE_BYTES
+ *   จะ checkpoint ฐานข้อมูลแล้วเริ่ม journal ใหม่ด้วย OCCUPANCY_SNAPSHOT ของทุกศูนย์
+ * - ระหว่างทำงาน ConnectionPool เรียก rotateIfFull() หลัง COMMIT เพื่อเริ่มไฟล์ใหม่เมื่อใหญ่เกิน ROTATE_BYTES
+ */
+class JournalRecovery {
+    // เริ่มไฟล์ใหม่เมื่อ journal ใหญ่เกินนี้ (ข้อมูลย้อนหลังก่อนหน้าจะไม่ถูกเก็บ)
+    static final long ROTATE_BYTES = 64L * 1024 * 1024;
+
+    private final ConnectionPool pool;
+    private final File file;
+    // กำลังเริ่มไฟล์ใหม่ (งานเขียนของการเริ่มไฟล์เองก็ commit ผ่าน pool) ใช้ภายใต้ writer lock เท่านั้น
+    private boolean rotating;
+
+    JournalRecovery(ConnectionPool pool) {
+        this.pool = pool;
+        this.file = new File(pool.getConfig().getJournalPath());
+    }
+
+    /**
+     * replay ส่วนท้ายของ journal แล้วให้ pool ใช้ journal ต่อ
+     *
+     * @return จำนวน record ที่ replay เข้าฐานข้อมูล
+     */
+    int recover() throws SQLException {
+        long[] state = readState();
+        long journalId = state[0];
+        long applied = state[1];
+
+        int replayed = 0;
+        Journal journal;
+        try {
+            journal = Journal.open(file);
+            if (journal != null && journal.getJournalId() == journalId
+                    && journal.getBaseSeq() <= applied + 1 && journal.getLastSeq() >= applied) {
+                replayed = replay(journal, applied);
+            } else {
+                if (journal != null) {
+                    System.out.println("journal ไม่ตรงกับฐานข้อมูล เริ่มไฟล์ journal ใหม่");
+                    journal.close();
+                }
+                journal = null;
+            }
+
+            if (journal != null && journal.getSize() > ROTATE_BYTES) {
+                journal.close();
+                journal = null;
+            }
+            if (journal == null) {
+                journal = rotate();
+            }
+        } catch (IOException e) {
+            throw new SQLException("เปิด journal ไม่สำเร็จ: " + file, e);
+        }
+
+        pool.attachJournal(journal, this);
+        if (journal.isEmpty()) {
+            writeSnapshot();
+        }
+        return replayed;
+    }
+
+    private long[] readState() throws SQLException {
+        return pool.withReader(conn -> {
+            ResultSet rs = conn.prepare("SELECT journal_id, applied_seq FROM journal_state WHERE id = 1").executeQuery();
+            try {
+                return rs.next() ? new long[] { rs.getLong(1), rs.getLong(2) } : new long[2];
+            } finally {
+                rs.close();
+            }
+        });
+    }
+
+    // ==================== Replay ====================
+
+    private int replay(Journal journal, long applied) throws IOException, SQLException {
+        List<Journal.Record> pending = new ArrayList<>();
+        journal.forEach(record -> {
+            if (record.getSeq() > applied) {
+                pending.add(record);
+            }
+            return true;
+        });
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        pool.inTransaction(conn -> {
+            for (Journal.Record record : pending) {
+                try {
+                    apply(conn, record);
+                } catch (IOException e) {
+                    throw new SQLException("อ่าน record ใน journal ไม่สำเร็จ (seq " + record.getSeq() + ")", e);
+                }
+            }
+            // pool ยังไม่ได้ใช้ journal ตัวนี้ จึงต้องบันทึก seq เอง
+            PreparedStatement pstmt = conn.prepare("UPDATE journal_state SET applied_seq = ? WHERE id = 1");
+            pstmt.setLong(1, pending.get(pending.size() - 1).getSeq());
+            pstmt.executeUpdate();
+            return null;
+        });
+        return pending.size();
+    }
+
+    // ใช้ INSERT OR IGNORE ด้วย id เดิม: replay ซ้ำได้โดยไม่เกิดข้อมูลซ้ำ
+    private void apply(PooledConnection conn, Journal.Record record) throws IOException, SQLException {
+        switch (record.getType()) {
+            case Journal.CITIZEN_REGISTERED: {
+                Citizen citizen = JournalCodec.readCitizen(record.getPayload());
+                PreparedStatement pstmt = conn.prepare("INSERT OR IGNORE INTO citizens (id, name, age, health_condition, " +
+                        "registration_date, type, health_risk, priority_rank) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+                pstmt.setInt(1, citizen.getId());
+                pstmt.setString(2, citizen.getName());
+                pstmt.setInt(3, citizen.getAge());
+                pstmt.setString(4, citizen.getHealthCondition());
+                pstmt.setString(5, citizen.getRegistrationDate().toString());
+                pstmt.setString(6, citizen.getType().name());
+                pstmt.setInt(7, citizen.hasHealthRisk() ? 1 : 0);
+                pstmt.setInt(8, citizen.getPriorityRank());
+                pstmt.executeUpdate();
+                break;
+            }
+            case Journal.CITIZEN_ASSIGNED: {
+                JournalCodec.AssignedRecord assigned = JournalCodec.readAssignment(record.getPayload());
+                Assignment assignment = assigned.assignment;
+                PreparedStatement pstmt = conn.prepare("INSERT OR IGNORE INTO assignments (id, citizen_id, shelter_id, " +
+                        "assignment_date, notes) VALUES (?, ?, ?, ?, ?)");
+                pstmt.setInt(1, assignment.getId());
+                pstmt.setInt(2, assignment.getCitizenId());
+                pstmt.setInt(3, assignment.getShelterId());
+                pstmt.setString(4, assignment.getAssignmentDate().toString());
+                pstmt.setString(5, assignment.getNotes());
+                if (pstmt.executeUpdate() == 1 && assigned.countsOccupancy) {
+                    adjustOccupancy(conn, assignment.getShelterId(), 1);
+                }
+                break;
+            }
+            case Journal.SHELTER_SAVED: {
+                Shelter shelter = JournalCodec.readShelter(record.getPayload());
+                PreparedStatement update = conn.prepare("UPDATE shelters SET name = ?, max_capacity = ?, " +
+                        "current_occupancy = ?, risk_level = ? WHERE id = ?");
+                update.setString(1, shelter.getName());
+                update.setInt(2, shelter.getMaxCapacity());
+                update.setInt(3, shelter.getCurrentOccupancy());
+                update.setString(4, shelter.getRiskLevel().name());
+                update.setInt(5, shelter.getId());
+                if (update.executeUpdate() == 0) {
+                    PreparedStatement insert = conn.prepare("INSERT INTO shelters (id, name, max_capacity, " +
+                            "current_occupancy, risk_level) VALUES (?, ?, ?, ?, ?)");
+                    insert.setInt(1, shelter.getId());
+                    insert.setString(2, shelter.getName());
+                    insert.setInt(3, shelter.getMaxCapacity());
+                    insert.setInt(4, shelter.getCurrentOccupancy());
+                    insert.setString(5, shelter.getRiskLevel().name());
+                    insert.executeUpdate();
+                }
+                break;
+            }
+            case Journal.OCCUPANCY_ADJUSTED: {
+                int[] adjusted = JournalCodec.readOccupancyAdjusted(record.getPayload());
+                adjustOccupancy(conn, adjusted[0], adjusted[1]);
+                break;
+            }
+            default:
+                // OCCUPANCY_SNAPSHOT ใช้สำหรับย้อนดูสถานะเท่านั้น
+                break;
+        }
+    }
+
+    private void adjustOccupancy(PooledConnection conn, int shelterId, int delta) throws SQLException {
+        PreparedStatement pstmt = conn.prepare(
+                "UPDATE shelters SET current_occupancy = current_occupancy + ? WHERE id = ?");
+        pstmt.setInt(1, delta);
+        pstmt.setInt(2, shelterId);
+        pstmt.executeUpdate();
+    }
+
+    // ==================== Rotate ====================
+
+    /**
+     * เริ่ม journal ใหม่ระหว่างทำงานเมื่อไฟล์ใหญ่เกิน ROTATE_BYTES (ConnectionPool เรียกหลัง COMMIT ขณะถือ writer lock)
+     * ทำเฉพาะเมื่อ checkpoint ย้ายข้อมูลใน WAL เข้าไฟล์หลักได้ครบ (reader ที่ยังอ่าน snapshot เก่าอาจขวางอยู่)
+     * ไม่เช่นนั้นจะลองใหม่หลัง commit ครั้งถัดไป ข้อผิดพลาดไม่กระทบงานที่ commit ไปแล้ว
+     */
+    void rotateIfFull() {
+        Journal current = pool.getJournal();
+        if (rotating || current == null || current.getSize() <= ROTATE_BYTES) {
+            return;
+        }
+
+        rotating = true;
+        try {
+            if (!checkpoint("PASSIVE")) {
+                return;
+            }
+            Journal journal;
+            try {
+                journal = startJournal();
+            } catch (SQLException | IOException e) {
+                // ไฟล์บนดิสก์อาจถูกแทนแล้ว: หยุดใช้ journal ดีกว่าเขียนต่อในไฟล์ที่ไม่ได้ใช้กู้คืน
+                e.printStackTrace();
+                pool.detachJournal();
+                return;
+            }
+            pool.attachJournal(journal, this);
+            writeSnapshot();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            rotating = false;
+        }
+    }
+
+    private Journal rotate() throws SQLException, IOException {
+        // ข้อมูลที่ commit แบบ NORMAL ต้องถึงดิสก์ก่อนทิ้ง journal เดิม
+        checkpoint("TRUNCATE");
+        return startJournal();
+    }
+
+    // true ถ้าย้ายทุก frame ใน WAL เข้าไฟล์หลักแล้ว (ข้อมูลที่ commit แบบ NORMAL ถึงดิสก์ครบ)
+    private boolean checkpoint(String mode) throws SQLException {
+        return pool.withWriter(conn -> {
+            try (Statement stmt = conn.getConnection().createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(" + mode + ")")) {
+                return rs.next() && rs.getInt(1) == 0 && rs.getInt(2) == rs.getInt(3);
+            }
+        });
+    }
+
+    private Journal startJournal() throws SQLException, IOException {
+        long journalId = new SecureRandom().nextLong();
+        long baseSeq = readState()[1] + 1;
+        Journal journal = Journal.create(file, journalId, baseSeq);
+        pool.inTransaction(conn -> {
+            PreparedStatement pstmt = conn.prepare("UPDATE journal_state SET journal_id = ? WHERE id = 1");
+            pstmt.setLong(1, journalId);
+            pstmt.executeUpdate();
+            return null;
+        });
+        return journal;
+    }
+
+    // จุดเริ่มต้นของการย้อนดูจำนวนคน (seq แรกของไฟล์)
+    private void writeSnapshot() throws SQLException {
+        pool.inTransaction(conn -> {
+            Map<Integer, Integer> occupancy = new LinkedHashMap<>();
+            ResultSet rs = conn.prepare("SELECT id, current_occupancy FROM shelters ORDER BY id").executeQuery();
+            try {
+                while (rs.next()) {
+                    occupancy.put(rs.getInt(1), rs.getInt(2));
+                }
+            } finally {
+                rs.close();
+            }
+            pool.appendJournal(Journal.OCCUPANCY_SNAPSHOT, JournalCodec.snapshot(occupancy));
+            return null;
+        });
+    }
+}
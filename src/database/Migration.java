@@ -0,0 +1,43 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * การเปลี่ยนแปลง schema หนึ่งขั้น (version เรียงจากน้อยไปมาก และห้ามแก้ไขหลังเผยแพร่แล้ว)
+ */
+public class Migration {
+    private final int version;
+    private final String description;
+    private final Step step;
+
+    /**
+     * คำสั่งที่ใช้ upgrade schema (ทำงานภายใน transaction ของ migration นั้น)
+     */
+    public interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    public Migration(int version, String description, Step step) {
+        this.version = version;
+        this.description = description;
+        this.step = step;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void apply(Connection conn) throws SQLException {
+        step.apply(conn);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Migration[v%d: %s]", version, description);
+    }
+}
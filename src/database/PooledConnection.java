@@ -0,0 +1,51 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Connection ใน pool พร้อม cache ของ PreparedStatement ประจำ connection
+ */
+public class PooledConnection {
+    private final Connection connection;
+    private final StatementCache statementCache;
+
+    public PooledConnection(Connection connection, int statementCacheSize) {
+        this.connection = connection;
+        this.statementCache = new StatementCache(connection, statementCacheSize);
+    }
+
+    /**
+     * PreparedStatement จาก cache (ห้าม close เอง)
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return statementCache.get(sql, false);
+    }
+
+    /**
+     * PreparedStatement สำหรับ INSERT ที่ต้องการ generated key (ห้าม close เอง)
+     */
+    public PreparedStatement prepareInsert(String sql) throws SQLException {
+        return statementCache.get(sql, true);
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    public void close() {
+        statementCache.close();
+        try {
+            if (!connection.isClosed()) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
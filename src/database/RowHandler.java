@@ -0,0 +1,10 @@
+package database;
+
+import java.sql.SQLException;
+
+/**
+ * รับข้อมูลทีละแถวจากเมธอด forEach... ของ DatabaseManager (ไม่ต้องโหลดทั้งหมดไว้ในหน่วยความจำ)
+ */
+public interface RowHandler<T> {
+    void handle(T row) throws SQLException;
+}
@@ -0,0 +1,243 @@
+package database;
+
+import model.Citizen;
+import model.HealthRiskClassifier;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ตัวจัดการ schema แบบมี version (ตาราง schema_version)
+ * ตอนเริ่มโปรแกรมจะรัน migration ที่ยังไม่เคยรันตามลำดับ version ทีละ transaction
+ * ไฟล์ฐานข้อมูลเดิมจึง upgrade ได้ทันทีโดยไม่ต้องสร้างใหม่
+ */
+public class SchemaMigrator {
+    private final List<Migration> migrations = new ArrayList<>();
+
+    public SchemaMigrator() {
+        migrations.add(new Migration(1, "create base tables", conn -> {
+            execute(conn,
+                    "CREATE TABLE IF NOT EXISTS shelters (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            "name TEXT NOT NULL, " +
+                            "max_capacity INTEGER NOT NULL, " +
+                            "current_occupancy INTEGER DEFAULT 0, " +
+                            "risk_level TEXT NOT NULL)",
+                    "CREATE TABLE IF NOT EXISTS citizens (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            "name TEXT NOT NULL, " +
+                            "age INTEGER NOT NULL, " +
+                            "health_condition TEXT, " +
+                            "registration_date TEXT NOT NULL, " +
+                            "type TEXT NOT NULL)",
+                    "CREATE TABLE IF NOT EXISTS assignments (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            "citizen_id INTEGER NOT NULL, " +
+                            "shelter_id INTEGER NOT NULL, " +
+                            "assignment_date TEXT NOT NULL, " +
+                            "notes TEXT, " +
+                            "FOREIGN KEY(citizen_id) REFERENCES citizens(id), " +
+                            "FOREIGN KEY(shelter_id) REFERENCES shelters(id))");
+        }));
+
+        migrations.add(new Migration(2, "lookup indexes", conn -> {
+            execute(conn,
+                    "CREATE INDEX IF NOT EXISTS idx_assignments_citizen_id ON assignments(citizen_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_assignments_shelter_id ON assignments(shelter_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_citizens_type ON citizens(type)");
+        }));
+
+        migrations.add(new Migration(3, "unique citizen name", conn -> {
+            // ฐานข้อมูลเก่าอาจมีชื่อซ้ำ: คงแถวแรกไว้ ส่วนแถวถัดไปต่อท้ายชื่อด้วย id (เพิ่มลำดับถ้าชื่อนั้นมีอยู่แล้ว)
+            // และบันทึกชื่อเดิมใน citizen_name_changes เพื่อให้ผู้ดูแลตรวจสอบ/แก้กลับได้
+            execute(conn,
+                    "CREATE TABLE IF NOT EXISTS citizen_name_changes (" +
+                            "citizen_id INTEGER NOT NULL, " +
+                            "old_name TEXT NOT NULL, " +
+                            "new_name TEXT NOT NULL, " +
+                            "changed_at TEXT NOT NULL, " +
+                            "reason TEXT NOT NULL)");
+            // index ชั่วคราวสำหรับตรวจว่าชื่อใหม่ว่างอยู่ (ชื่อ "... (#id)" อาจมีคนใช้อยู่แล้ว)
+            execute(conn, "CREATE INDEX IF NOT EXISTS idx_citizens_name_v3 ON citizens(name)");
+            List<Integer> ids = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            try (Statement select = conn.createStatement()) {
+                ResultSet rs = select.executeQuery("SELECT id, name FROM citizens " +
+                        "WHERE id NOT IN (SELECT MIN(id) FROM citizens GROUP BY name) ORDER BY id");
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                    names.add(rs.getString(2));
+                }
+                rs.close();
+            }
+            try (PreparedStatement exists = conn.prepareStatement("SELECT 1 FROM citizens WHERE name = ?");
+                    PreparedStatement rename = conn.prepareStatement("UPDATE citizens SET name = ? WHERE id = ?");
+                    PreparedStatement audit = conn.prepareStatement(
+                            "INSERT INTO citizen_name_changes (citizen_id, old_name, new_name, changed_at, reason) " +
+                                    "VALUES (?, ?, ?, ?, 'migration v3: unique citizen name')")) {
+                String changedAt = LocalDateTime.now().toString();
+                for (int i = 0; i < ids.size(); i++) {
+                    int id = ids.get(i);
+                    String name = names.get(i);
+                    // เปลี่ยนทีละแถว ชื่อที่เพิ่งตั้งจึงถูกนับในการตรวจของแถวถัดไปด้วย
+                    String newName = name + " (#" + id + ")";
+                    for (int suffix = 2; isNameTaken(exists, newName); suffix++) {
+                        newName = name + " (#" + id + "-" + suffix + ")";
+                    }
+                    rename.setString(1, newName);
+                    rename.setInt(2, id);
+                    rename.executeUpdate();
+                    audit.setInt(1, id);
+                    audit.setString(2, name);
+                    audit.setString(3, newName);
+                    audit.setString(4, changedAt);
+                    audit.executeUpdate();
+                }
+            }
+            if (!ids.isEmpty()) {
+                System.out.println("เปลี่ยนชื่อประชาชนที่ซ้ำกัน " + ids.size()
+                        + " รายการ (ชื่อเดิมอยู่ในตาราง citizen_name_changes)");
+            }
+            execute(conn,
+                    "DROP INDEX idx_citizens_name_v3",
+                    "CREATE UNIQUE INDEX IF NOT EXISTS idx_citizens_name ON citizens(name)");
+        }));
+
+        migrations.add(new Migration(4, "one assignment per citizen", conn -> {
+            // การจัดสรรซ้ำจากเวอร์ชันเก่า: คงรายการแรกไว้ และคืนที่ว่างให้ศูนย์ของรายการที่ลบ
+            String duplicates = "SELECT id, shelter_id FROM assignments " +
+                    "WHERE id NOT IN (SELECT MIN(id) FROM assignments GROUP BY citizen_id)";
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("UPDATE shelters SET current_occupancy = MAX(0, current_occupancy - " +
+                        "(SELECT COUNT(*) FROM (" + duplicates + ") d WHERE d.shelter_id = shelters.id))");
+                int removed = stmt.executeUpdate("DELETE FROM assignments WHERE id IN (SELECT id FROM (" + duplicates + "))");
+                if (removed > 0) {
+                    System.out.println("ลบการจัดสรรซ้ำ " + removed + " รายการ");
+                }
+            }
+            execute(conn,
+                    "DROP INDEX IF EXISTS idx_assignments_citizen_id",
+                    "CREATE UNIQUE INDEX IF NOT EXISTS idx_assignments_citizen_id ON assignments(citizen_id)");
+        }));
+
+        migrations.add(new Migration(5, "stored health risk", conn -> {
+            // จัดกลุ่มความเสี่ยงของประชาชนที่มีอยู่แล้วครั้งเดียว (แถวใหม่คำนวณตอนลงทะเบียน)
+            execute(conn, "ALTER TABLE citizens ADD COLUMN health_risk INTEGER NOT NULL DEFAULT 0");
+            try (Statement select = conn.createStatement();
+                    PreparedStatement update = conn.prepareStatement("UPDATE citizens SET health_risk = 1 WHERE id = ?")) {
+                ResultSet rs = select.executeQuery("SELECT id, health_condition, type FROM citizens");
+                while (rs.next()) {
+                    if (HealthRiskClassifier.hasHealthRisk(rs.getString("health_condition"),
+                            Citizen.CitizenType.valueOf(rs.getString("type")))) {
+                        update.setInt(1, rs.getInt("id"));
+                        update.addBatch();
+                    }
+                }
+                rs.close();
+                update.executeBatch();
+            }
+            execute(conn, "CREATE INDEX IF NOT EXISTS idx_citizens_health_risk ON citizens(health_risk)");
+        }));
+
+        migrations.add(new Migration(6, "stored priority rank", conn -> {
+            // ใช้ Citizen.priorityRank ตัวเดียวกับตอนลงทะเบียน ลำดับใน SQL จึงตรงกับในหน่วยความจำเสมอ
+            execute(conn, "ALTER TABLE citizens ADD COLUMN priority_rank INTEGER NOT NULL DEFAULT 0");
+            try (Statement select = conn.createStatement();
+                    PreparedStatement update = conn.prepareStatement("UPDATE citizens SET priority_rank = ? WHERE id = ?")) {
+                ResultSet rs = select.executeQuery("SELECT id, age, type FROM citizens");
+                while (rs.next()) {
+                    update.setInt(1, Citizen.priorityRank(rs.getInt("age"),
+                            Citizen.CitizenType.valueOf(rs.getString("type"))));
+                    update.setInt(2, rs.getInt("id"));
+                    update.addBatch();
+                }
+                rs.close();
+                update.executeBatch();
+            }
+            execute(conn, "CREATE INDEX IF NOT EXISTS idx_citizens_priority ON citizens(priority_rank, id)");
+        }));
+
+        migrations.add(new Migration(7, "journal state", conn -> {
+            // seq ล่าสุดของ Journal ที่ฐานข้อมูลมีแล้ว (อัปเดตใน transaction เดียวกับข้อมูลเสมอ)
+            execute(conn,
+                    "CREATE TABLE IF NOT EXISTS journal_state (" +
+                            "id INTEGER PRIMARY KEY CHECK (id = 1), " +
+                            "journal_id INTEGER NOT NULL, " +
+                            "applied_seq INTEGER NOT NULL)",
+                    "INSERT OR IGNORE INTO journal_state (id, journal_id, applied_seq) VALUES (1, 0, 0)");
+        }));
+    }
+
+    public List<Migration> getMigrations() {
+        return Collections.unmodifiableList(migrations);
+    }
+
+    /**
+     * รัน migration ที่ยังไม่ได้รันทั้งหมด และคืนค่า version ล่าสุดของ schema
+     */
+    public int migrate(ConnectionPool pool) throws SQLException {
+        pool.withWriter(conn -> {
+            execute(conn.getConnection(),
+                    "CREATE TABLE IF NOT EXISTS schema_version (" +
+                            "version INTEGER PRIMARY KEY, " +
+                            "description TEXT NOT NULL, " +
+                            "applied_at TEXT NOT NULL)");
+            return null;
+        });
+
+        int current = getCurrentVersion(pool);
+        for (Migration migration : migrations) {
+            if (migration.getVersion() <= current) {
+                continue;
+            }
+
+            pool.inTransaction(conn -> {
+                migration.apply(conn.getConnection());
+
+                PreparedStatement pstmt = conn.prepare(
+                        "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)");
+                pstmt.setInt(1, migration.getVersion());
+                pstmt.setString(2, migration.getDescription());
+                pstmt.setString(3, LocalDateTime.now().toString());
+                pstmt.executeUpdate();
+                return null;
+            });
+
+            current = migration.getVersion();
+            System.out.println("ปรับปรุงฐานข้อมูล: " + migration);
+        }
+
+        return current;
+    }
+
+    public int getCurrentVersion(ConnectionPool pool) throws SQLException {
+        return pool.withWriter(conn -> {
+            ResultSet rs = conn.prepare("SELECT COALESCE(MAX(version), 0) FROM schema_version").executeQuery();
+            int version = rs.next() ? rs.getInt(1) : 0;
+            rs.close();
+            return version;
+        });
+    }
+
+    private static boolean isNameTaken(PreparedStatement exists, String name) throws SQLException {
+        exists.setString(1, name);
+        try (ResultSet rs = exists.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    private static void execute(Connection conn, String... sqls) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : sqls) {
+                stmt.execute(sql);
+            }
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package database;
+
+import metrics.LatencyTimer;
+import metrics.Metrics;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * คิวงานเขียนที่มี writer thread เดียว รวมงานที่รออยู่เป็น transaction เดียว (group commit)
+ * - งานแต่ละชิ้นอยู่ใน SAVEPOINT ของตัวเอง งานที่ผิดพลาด (เช่น ชื่อซ้ำ) ถูก rollback เฉพาะงานนั้น
+ * - future ของแต่ละงานสำเร็จหลัง COMMIT เท่านั้น จึงได้ความคงทนเท่ากับ commit ทีละงาน
+ * - รวมงานได้ไม่เกิน writeBatchSize ชิ้น และรองานเพิ่มไม่เกิน writeBatchDelayMicros หลังงานแรก
+ * - คิวมีขนาดจำกัด (writeQueueCapacity) ถ้าเต็มนานเกิน busyTimeout ผู้ส่งงานจะได้ SQLException
+ * - record ใน journal ของงานที่ถูก rollback จะถูกลบด้วย และ journal ถูก force ครั้งเดียวต่อ batch ก่อน COMMIT
+ * - งานที่โยน Error (เช่น InternalError จาก journal) ทำให้ทั้ง batch ถูก rollback แต่ writer thread ยังทำงานต่อ
+ * - ผู้รอยกเลิกงานที่ยังไม่เริ่มได้ด้วย future.cancel() งานนั้นจะถูกข้ามไป
+ */
+public class WriteQueue {
+    private static final long POLL_MILLIS = 100;
+
+    // เวลาตั้งแต่ส่งงานเข้าคิวจนเริ่ม batch และเวลาของ batch ตั้งแต่รอ lock จนถึง COMMIT
+    private static final LatencyTimer QUEUE_WAIT = Metrics.timer("writeQueue.wait");
+    private static final LatencyTimer BATCH_COMMIT = Metrics.timer("writeQueue.commit");
+
+    private final ConnectionPool pool;
+    private final PooledConnection writer;
+    private final ReentrantLock writeLock;
+    private final BlockingQueue<Task<?>> queue;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long offerTimeoutMillis;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private final AtomicLong committedBatches = new AtomicLong();
+    private final AtomicLong committedTasks = new AtomicLong();
+
+    /**
+     * งานเขียนหนึ่งชิ้นพร้อม future ที่รอผล
+     */
+    private static class Task<T> {
+        final ConnectionPool.SqlWork<T> work;
+        final AtomicBoolean started = new AtomicBoolean();
+        final CompletableFuture<T> future = new TaskFuture<>(started);
+        final long submittedNanos = System.nanoTime();
+        T result;
+        Throwable failure;
+
+        Task(ConnectionPool.SqlWork<T> work) {
+            this.work = work;
+        }
+
+        // writer จองงานก่อนทำ ถ้าผู้รอยกเลิกไปแล้วจะได้ false
+        boolean start() {
+            return started.compareAndSet(false, true);
+        }
+
+        void execute(PooledConnection conn) throws SQLException {
+            result = work.execute(conn);
+        }
+
+        void complete() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+
+    /**
+     * future ที่ยกเลิกได้เฉพาะตอนงานยังไม่ถูก writer หยิบไปทำ (งานที่เริ่มแล้วรอผลจริงเสมอ)
+     */
+    private static class TaskFuture<T> extends CompletableFuture<T> {
+        private final AtomicBoolean started;
+
+        TaskFuture(AtomicBoolean started) {
+            this.started = started;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return started.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    WriteQueue(ConnectionPool pool, PooledConnection writer, ReentrantLock writeLock, DatabaseConfig config) {
+        this.pool = pool;
+        this.writer = writer;
+        this.writeLock = writeLock;
+        this.queue = new ArrayBlockingQueue<>(config.getWriteQueueCapacity());
+        this.maxBatchSize = config.getWriteBatchSize();
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(config.getWriteBatchDelayMicros());
+        this.offerTimeoutMillis = config.getBusyTimeoutMillis();
+
+        thread = new Thread(this::run, "db-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * ส่งงานเข้าคิว future จะสำเร็จหลังงานถูก commit (หรือล้มเหลวด้วย exception ของงานนั้น)
+     */
+    public <T> CompletableFuture<T> submit(ConnectionPool.SqlWork<T> work) throws SQLException {
+        if (!running) {
+            throw new SQLException("ฐานข้อมูลถูกปิดแล้ว");
+        }
+        Task<T> task = new Task<>(work);
+        try {
+            if (!queue.offer(task, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientException("คิวงานบันทึกข้อมูลเต็ม กรุณาลองใหม่");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("ถูกขัดจังหวะระหว่างรอคิวงานบันทึก", e);
+        }
+        return task.future;
+    }
+
+    public boolean isWriterThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getCommittedBatches() {
+        return committedBatches.get();
+    }
+
+    public long getCommittedTasks() {
+        return committedTasks.get();
+    }
+
+    // ==================== Writer thread ====================
+
+    private void run() {
+        List<Task<?>> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (true) {
+                Task<?> first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+
+                batch.add(first);
+                collect(batch);
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // ถ้า thread หยุดด้วยเหตุใดก็ตาม ต้องไม่เหลืองานที่ไม่มีใครทำค้างอยู่ในคิว
+            running = false;
+            SQLException closed = new SQLException("ฐานข้อมูลถูกปิดแล้ว");
+            failAll(batch, closed);
+            failQueued(closed);
+        }
+    }
+
+    // งานที่รออยู่แล้วรวมเข้า batch ทันที จากนั้นรองานเพิ่มได้ไม่เกิน maxDelayNanos
+    private void collect(List<Task<?>> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Task<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void commit(List<Task<?>> batch) {
+        long startNanos = System.nanoTime();
+        for (Task<?> task : batch) {
+            QUEUE_WAIT.recordNanos(startNanos - task.submittedNanos, false);
+        }
+
+        writeLock.lock();
+        try {
+            // จองงานหลังได้ lock แล้ว งานที่ผู้รอยกเลิกระหว่างรอ lock จะถูกข้าม
+            batch.removeIf(task -> !task.start());
+            if (batch.isEmpty()) {
+                return;
+            }
+            Connection raw = writer.getConnection();
+            Journal.Mark mark = pool.markJournal();
+            try {
+                raw.setAutoCommit(false);
+                for (Task<?> task : batch) {
+                    executeInSavepoint(raw, task);
+                }
+                pool.syncJournal(writer, mark);
+                raw.commit();
+            } catch (Throwable e) {
+                // commit ไม่สำเร็จ: rollback ทั้ง transaction ก่อนคืน autocommit (ไม่เช่นนั้น sqlite-jdbc จะ commit ให้)
+                rollbackQuietly(raw);
+                pool.rollbackJournalQuietly(mark);
+                failAll(batch, e);
+                BATCH_COMMIT.record(startNanos, true);
+                return;
+            } finally {
+                restoreAutoCommit(raw);
+            }
+            pool.afterCommit();
+        } finally {
+            writeLock.unlock();
+        }
+
+        BATCH_COMMIT.record(startNanos, false);
+        committedBatches.incrementAndGet();
+        committedTasks.addAndGet(batch.size());
+        for (Task<?> task : batch) {
+            task.complete();
+        }
+    }
+
+    private void executeInSavepoint(Connection raw, Task<?> task) throws SQLException {
+        Savepoint savepoint = raw.setSavepoint();
+        Journal.Mark mark = pool.markJournal();
+        try {
+            task.execute(writer);
+        } catch (Throwable e) {
+            raw.rollback(savepoint);
+            pool.rollbackJournal(mark);
+            task.failure = e;
+            if (e instanceof Error) {
+                // สถานะของ connection หรือ journal ไม่แน่นอน: ยกเลิกทั้ง batch
+                throw (Error) e;
+            }
+        }
+        raw.releaseSavepoint(savepoint);
+    }
+
+    private static void rollbackQuietly(Connection raw) {
+        try {
+            raw.rollback();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void restoreAutoCommit(Connection raw) {
+        try {
+            raw.setAutoCommit(true);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void failQueued(Throwable failure) {
+        List<Task<?>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        failAll(remaining, failure);
+    }
+
+    private static void failAll(List<Task<?>> tasks, Throwable failure) {
+        for (Task<?> task : tasks) {
+            task.future.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * หยุดรับงานใหม่ บันทึกงานที่ค้างในคิวให้หมด แล้วหยุด writer thread
+     */
+    void close() {
+        running = false;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // งานที่เข้าคิวพร้อมกับการปิดพอดี
+        failQueued(new SQLException("ฐานข้อมูลถูกปิดแล้ว"));
+    }
+}
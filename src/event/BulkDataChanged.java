@@ -0,0 +1,22 @@
+package event;
+
+/**
+ * ข้อมูลเปลี่ยนจำนวนมากในครั้งเดียว (นำเข้า CSV, จัดสรรแบบกลุ่ม)
+ * ผู้รับควรโหลดข้อมูลใหม่ทั้งหมดแทนการอัพเดททีละแถว
+ */
+public class BulkDataChanged implements DomainEvent {
+    private final String reason;
+
+    public BulkDataChanged(String reason) {
+        this.reason = reason;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkDataChanged[" + reason + "]";
+    }
+}
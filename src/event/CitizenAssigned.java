@@ -0,0 +1,23 @@
+package event;
+
+import model.Assignment;
+
+/**
+ * จัดสรรศูนย์พักพิงให้ประชาชนแล้ว (Assignment มีข้อมูล Citizen และ Shelter ครบ)
+ */
+public class CitizenAssigned implements DomainEvent {
+    private final Assignment assignment;
+
+    public CitizenAssigned(Assignment assignment) {
+        this.assignment = assignment;
+    }
+
+    public Assignment getAssignment() {
+        return assignment;
+    }
+
+    @Override
+    public String toString() {
+        return "CitizenAssigned[" + assignment + "]";
+    }
+}
@@ -0,0 +1,23 @@
+package event;
+
+import model.Citizen;
+
+/**
+ * ลงทะเบียนประชาชนใหม่แล้ว
+ */
+public class CitizenRegistered implements DomainEvent {
+    private final Citizen citizen;
+
+    public CitizenRegistered(Citizen citizen) {
+        this.citizen = citizen;
+    }
+
+    public Citizen getCitizen() {
+        return citizen;
+    }
+
+    @Override
+    public String toString() {
+        return "CitizenRegistered[" + citizen + "]";
+    }
+}
@@ -0,0 +1,7 @@
+package event;
+
+/**
+ * เหตุการณ์ที่เกิดขึ้นกับข้อมูลในระบบ (ประกาศโดย controller หลังบันทึกลงฐานข้อมูลแล้ว)
+ */
+public interface DomainEvent {
+}
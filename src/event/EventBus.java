@@ -0,0 +1,58 @@
+package event;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * ส่ง DomainEvent จาก controller ไปยังผู้ที่สมัครรับ (เช่น View)
+ * ผู้รับถูกเรียกทันทีบน thread ที่ publish (View ต้องส่งต่อไป EDT เอง)
+ * สมัครรับ DomainEvent.class เพื่อรับทุกเหตุการณ์
+ */
+public class EventBus {
+    /**
+     * ผู้รับเหตุการณ์
+     */
+    public interface Listener<E extends DomainEvent> {
+        void onEvent(E event);
+    }
+
+    private final Map<Class<?>, List<Listener<?>>> listeners = new ConcurrentHashMap<>();
+
+    public <E extends DomainEvent> void subscribe(Class<E> type, Listener<? super E> listener) {
+        listeners.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public <E extends DomainEvent> void unsubscribe(Class<E> type, Listener<? super E> listener) {
+        List<Listener<?>> registered = listeners.get(type);
+        if (registered != null) {
+            registered.remove(listener);
+        }
+    }
+
+    /**
+     * ส่งเหตุการณ์ให้ผู้รับทุกรายของชนิดนั้น (ผู้รับที่ error จะไม่กระทบผู้รับรายอื่นหรือผู้ publish)
+     */
+    public void publish(DomainEvent event) {
+        deliver(event.getClass(), event);
+        if (event.getClass() != DomainEvent.class) {
+            deliver(DomainEvent.class, event);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(Class<?> type, DomainEvent event) {
+        List<Listener<?>> registered = listeners.get(type);
+        if (registered == null) {
+            return;
+        }
+        for (Listener<?> listener : registered) {
+            try {
+                ((Listener<DomainEvent>) listener).onEvent(event);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package event;
+
+import model.Shelter;
+
+/**
+ * จำนวนคนในศูนย์พักพิงเปลี่ยน (shelter คือข้อมูลล่าสุดหลังเปลี่ยน)
+ */
+public class OccupancyChanged implements DomainEvent {
+    private final Shelter shelter;
+
+    public OccupancyChanged(Shelter shelter) {
+        this.shelter = shelter;
+    }
+
+    public Shelter getShelter() {
+        return shelter;
+    }
+
+    @Override
+    public String toString() {
+        return "OccupancyChanged[" + shelter + "]";
+    }
+}
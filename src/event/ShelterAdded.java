@@ -0,0 +1,23 @@
+package event;
+
+import model.Shelter;
+
+/**
+ * เพิ่มศูนย์พักพิงใหม่แล้ว
+ */
+public class ShelterAdded implements DomainEvent {
+    private final Shelter shelter;
+
+    public ShelterAdded(Shelter shelter) {
+        this.shelter = shelter;
+    }
+
+    public Shelter getShelter() {
+        return shelter;
+    }
+
+    @Override
+    public String toString() {
+        return "ShelterAdded[" + shelter + "]";
+    }
+}
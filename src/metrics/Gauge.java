@@ -0,0 +1,25 @@
+package metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * ค่าที่อ่าน ณ เวลานั้น เช่น จำนวนงานในคิว หรือ hit ของ cache (อ่านผ่าน supplier ทุกครั้ง)
+ */
+public class Gauge implements GaugeMBean {
+    private final String name;
+    private final LongSupplier supplier;
+
+    Gauge(String name, LongSupplier supplier) {
+        this.name = name;
+        this.supplier = supplier;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getValue() {
+        return supplier.getAsLong();
+    }
+}
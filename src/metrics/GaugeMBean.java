@@ -0,0 +1,8 @@
+package metrics;
+
+/**
+ * มุมมอง JMX ของ Gauge
+ */
+public interface GaugeMBean {
+    long getValue();
+}
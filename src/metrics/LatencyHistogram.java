@@ -0,0 +1,118 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram ของเวลา (nanoseconds) แบบ log-linear ขนาดคงที่ บันทึกได้จากหลาย thread โดยไม่ล็อก
+ * - ช่วงละกำลังของ 2 แบ่งเป็น 16 ช่องเท่ากัน ค่า percentile จึงคลาดเคลื่อนไม่เกิน 1/16 (~6%)
+ * - ค่า 0-15 ns เก็บแยกช่องละค่า ค่าสูงสุดที่เก็บได้คือ Long.MAX_VALUE
+ * - การบันทึกหนึ่งครั้ง = increment 3 ตัว (ช่อง, จำนวน, ผลรวม) และ CAS ของค่าสูงสุดเมื่อเกินค่าเดิม
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (64 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        sumNanos.add(nanos);
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    // ช่องของค่า: ตัดเหลือ 4 bit ถัดจาก bit สูงสุด
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        int sub = (int) (nanos >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    // ค่าสูงสุดที่อยู่ในช่องนี้
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + sub) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        long n = count.sum();
+        return n > 0 ? (double) sumNanos.sum() / n : 0;
+    }
+
+    /**
+     * ค่าที่ quantile นี้ (เช่น 0.99) ใช้ค่าสูงสุดของช่องที่ตกอยู่ (ไม่เกินค่าสูงสุดที่บันทึกไว้)
+     */
+    public long getPercentileNanos(double quantile) {
+        return getPercentilesNanos(quantile)[0];
+    }
+
+    /**
+     * หลาย quantile จากข้อมูลชุดเดียวกัน (quantile ต้องเรียงจากน้อยไปมาก)
+     */
+    public long[] getPercentilesNanos(double... quantiles) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+
+        long[] result = new long[quantiles.length];
+        if (total == 0) {
+            return result;
+        }
+
+        long max = maxNanos.get();
+        int bucket = 0;
+        long seen = snapshot[0];
+        for (int q = 0; q < quantiles.length; q++) {
+            long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+            while (seen < rank && bucket < BUCKETS - 1) {
+                seen += snapshot[++bucket];
+            }
+            result[q] = Math.min(highestValueIn(bucket), max);
+        }
+        return result;
+    }
+
+    /**
+     * ล้างค่าทั้งหมด (ค่าที่บันทึกพร้อมกับการล้างอาจถูกนับหรือไม่ก็ได้)
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sumNanos.reset();
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,118 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * เวลาและจำนวนครั้งของการทำงานหนึ่งชนิด (เช่น db.getShelterById) พร้อมจำนวนครั้งที่ล้มเหลว
+ * สร้างผ่าน Metrics.timer(name) เท่านั้น
+ */
+public class LatencyTimer implements LatencyTimerMBean {
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final String name;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    LatencyTimer(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * บันทึกเวลาตั้งแต่ startNanos (ค่าจาก System.nanoTime()) ถึงตอนนี้
+     *
+     * @param failed การทำงานครั้งนี้โยน exception หรือไม่
+     */
+    public void record(long startNanos, boolean failed) {
+        recordNanos(System.nanoTime() - startNanos, failed);
+    }
+
+    /**
+     * บันทึกเวลาที่วัดไว้แล้ว (nanoseconds)
+     */
+    public void recordNanos(long nanos, boolean failed) {
+        histogram.record(nanos);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * จับเวลางานที่คืนค่า (exception ที่โยนออกมาถูกนับเป็น error แล้วโยนต่อ)
+     */
+    public <T, E extends Exception> T time(Metrics.Call<T, E> call) throws E {
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = call.call();
+            failed = false;
+            return result;
+        } finally {
+            record(startNanos, failed);
+        }
+    }
+
+    /**
+     * จับเวลางานที่ไม่คืนค่า
+     */
+    public <E extends Exception> void run(Metrics.Run<E> run) throws E {
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            run.run();
+            failed = false;
+        } finally {
+            record(startNanos, failed);
+        }
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    // ==================== JMX ====================
+
+    @Override
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return histogram.getMeanNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return histogram.getPercentileNanos(0.5) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return histogram.getPercentileNanos(0.99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return histogram.getPercentileNanos(0.999) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return histogram.getMaxNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public void reset() {
+        histogram.reset();
+        errors.reset();
+    }
+}
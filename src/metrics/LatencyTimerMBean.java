@@ -0,0 +1,22 @@
+package metrics;
+
+/**
+ * มุมมอง JMX ของ LatencyTimer (เวลาเป็น microseconds)
+ */
+public interface LatencyTimerMBean {
+    long getCount();
+
+    long getErrors();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
@@ -0,0 +1,186 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * ที่เก็บ metric กลางของโปรแกรม: LatencyTimer ต่อการทำงาน และ Gauge ของคิว/cache
+ * - ชื่อ metric ใช้รูปแบบ กลุ่ม.การทำงาน เช่น db.getShelterById, citizen.registerCitizen, writeQueue.depth
+ * - เปิดดูผ่าน JMX (domain "shelter") หลังเรียก startJmx() หรือพิมพ์เป็นตารางเป็นระยะด้วย startDump()
+ */
+public final class Metrics {
+    private static final String JMX_DOMAIN = "shelter";
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final ConcurrentMap<String, LatencyTimer> TIMERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Gauge> GAUGES = new ConcurrentHashMap<>();
+
+    // null = ยังไม่ได้เปิด JMX
+    private static volatile MBeanServer mbeanServer;
+    private static ScheduledExecutorService dumpScheduler;
+
+    /**
+     * งานที่จับเวลา (โยน checked exception ได้ ชนิดเดียวกับงานเดิม)
+     */
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    public interface Run<E extends Exception> {
+        void run() throws E;
+    }
+
+    private Metrics() {
+    }
+
+    // ==================== Registry ====================
+
+    /**
+     * timer ของชื่อนี้ (สร้างครั้งแรกที่เรียก หลังจากนั้นคืนตัวเดิม)
+     */
+    public static LatencyTimer timer(String name) {
+        LatencyTimer timer = TIMERS.get(name);
+        if (timer != null) {
+            return timer;
+        }
+        timer = TIMERS.computeIfAbsent(name, LatencyTimer::new);
+        register("Latency", name, timer);
+        return timer;
+    }
+
+    /**
+     * จับเวลางานด้วย timer ของชื่อนี้
+     */
+    public static <T, E extends Exception> T time(String name, Call<T, E> call) throws E {
+        return timer(name).time(call);
+    }
+
+    public static <E extends Exception> void run(String name, Run<E> run) throws E {
+        timer(name).run(run);
+    }
+
+    /**
+     * ลงทะเบียน gauge (ชื่อซ้ำจะแทนที่ตัวเดิม เช่น เมื่อสร้าง DatabaseManager ใหม่)
+     */
+    public static void gauge(String name, LongSupplier supplier) {
+        Gauge gauge = new Gauge(name, supplier);
+        GAUGES.put(name, gauge);
+        register("Gauge", name, gauge);
+    }
+
+    public static Map<String, LatencyTimer> getTimers() {
+        return new TreeMap<>(TIMERS);
+    }
+
+    public static Map<String, Gauge> getGauges() {
+        return new TreeMap<>(GAUGES);
+    }
+
+    // ==================== JMX ====================
+
+    /**
+     * ลงทะเบียน metric ทั้งหมด (และที่สร้างภายหลัง) เป็น MBean ใน platform MBeanServer
+     * ชื่อ: shelter:type=Latency,name=... และ shelter:type=Gauge,name=...
+     */
+    public static synchronized void startJmx() {
+        if (mbeanServer != null) {
+            return;
+        }
+        mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (LatencyTimer timer : TIMERS.values()) {
+            register("Latency", timer.getName(), timer);
+        }
+        for (Gauge gauge : GAUGES.values()) {
+            register("Gauge", gauge.getName(), gauge);
+        }
+    }
+
+    private static void register(String type, String name, Object mbean) {
+        MBeanServer server = mbeanServer;
+        if (server == null) {
+            return;
+        }
+        try {
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+            synchronized (Metrics.class) {
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+                server.registerMBean(mbean, objectName);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // ==================== Text dump ====================
+
+    /**
+     * ตาราง timer ที่มีการเรียกแล้ว (เวลาเป็น µs) ตามด้วยค่า gauge ทั้งหมด
+     */
+    public static String report() {
+        StringBuilder out = new StringBuilder();
+        out.append("==== metrics ").append(LocalDateTime.now().format(TIME_FORMAT)).append(" ====\n");
+        out.append(String.format("%-42s %10s %7s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "mean", "p50", "p99", "p999", "max"));
+        for (LatencyTimer timer : getTimers().values()) {
+            LatencyHistogram histogram = timer.getHistogram();
+            long count = histogram.getCount();
+            if (count == 0) {
+                continue;
+            }
+            long[] percentiles = histogram.getPercentilesNanos(0.5, 0.99, 0.999);
+            out.append(String.format("%-42s %,10d %,7d %,10.1f %,10.1f %,10.1f %,10.1f %,10.1f%n",
+                    timer.getName(), count, timer.getErrors(), histogram.getMeanNanos() / 1000.0,
+                    percentiles[0] / 1000.0, percentiles[1] / 1000.0, percentiles[2] / 1000.0,
+                    histogram.getMaxNanos() / 1000.0));
+        }
+        for (Gauge gauge : getGauges().values()) {
+            out.append(String.format("%-42s %,10d%n", gauge.getName(), gauge.getValue()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * พิมพ์ report() ทุก intervalSeconds (0 = ไม่พิมพ์)
+     */
+    public static synchronized void startDump(int intervalSeconds, PrintStream out) {
+        if (dumpScheduler != null || intervalSeconds <= 0) {
+            return;
+        }
+
+        dumpScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumpScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                out.print(report());
+                out.flush();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public static synchronized void stopDump() {
+        if (dumpScheduler != null) {
+            dumpScheduler.shutdownNow();
+            dumpScheduler = null;
+        }
+    }
+}
@@ -12,6 +12,10 @@ public class Citizen {
     private String healthCondition;
     private LocalDate registrationDate;
     private CitizenType type;
+    // คำนวณจากสภาวะสุขภาพและประเภทเมื่อมีการกำหนดค่า (ไม่ต้องตรวจข้อความทุกครั้งที่เรียก)
+    private boolean healthRisk;
+    // ลำดับความสำคัญ (ค่าน้อย = จัดสรรก่อน) คำนวณใหม่เมื่ออายุหรือประเภทเปลี่ยน
+    private int priorityRank;
 
     public enum CitizenType {
         GENERAL("ทั่วไป"),
@@ -33,6 +37,7 @@ public class Citizen {
     public Citizen() {
         this.registrationDate = LocalDate.now();
         this.type = CitizenType.GENERAL;
+        this.priorityRank = priorityRank(age, type);
     }
 
     public Citizen(int id, String name, int age, String healthCondition,
@@ -43,6 +48,23 @@ public class Citizen {
         this.healthCondition = healthCondition;
         this.registrationDate = registrationDate;
         this.type = type;
+        this.healthRisk = HealthRiskClassifier.hasHealthRisk(healthCondition, type);
+        this.priorityRank = priorityRank(age, type);
+    }
+
+    /**
+     * สร้างจากข้อมูลในฐานข้อมูล โดยใช้ผลการจัดกลุ่มความเสี่ยงที่บันทึกไว้แล้ว
+     */
+    public Citizen(int id, String name, int age, String healthCondition,
+            LocalDate registrationDate, CitizenType type, boolean healthRisk) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+        this.healthCondition = healthCondition;
+        this.registrationDate = registrationDate;
+        this.type = type;
+        this.healthRisk = healthRisk;
+        this.priorityRank = priorityRank(age, type);
     }
 
     // Getters and Setters
@@ -68,6 +90,7 @@ public class Citizen {
 
     public void setAge(int age) {
         this.age = age;
+        this.priorityRank = priorityRank(age, type);
     }
 
     public String getHealthCondition() {
@@ -76,6 +99,7 @@ public class Citizen {
 
     public void setHealthCondition(String healthCondition) {
         this.healthCondition = healthCondition;
+        this.healthRisk = HealthRiskClassifier.hasHealthRisk(healthCondition, type);
     }
 
     public LocalDate getRegistrationDate() {
@@ -92,6 +116,8 @@ public class Citizen {
 
     public void setType(CitizenType type) {
         this.type = type;
+        this.healthRisk = HealthRiskClassifier.hasHealthRisk(healthCondition, type);
+        this.priorityRank = priorityRank(age, type);
     }
 
     // Business logic methods
@@ -101,9 +127,48 @@ public class Citizen {
     }
 
     public boolean hasHealthRisk() {
-        return type == CitizenType.AT_RISK ||
-                (healthCondition != null && !healthCondition.trim().isEmpty() &&
-                        !healthCondition.equalsIgnoreCase("ปกติ"));
+        return healthRisk;
+    }
+
+    public int getPriorityRank() {
+        return priorityRank;
+    }
+
+    /**
+     * key สำหรับเรียงตามลำดับความสำคัญด้วยการเทียบ long ครั้งเดียว
+     * 32 bit บน = priorityRank, 32 bit ล่าง = id (ลงทะเบียนก่อนได้ก่อน)
+     */
+    public long getPrioritySortKey() {
+        return sortKey(priorityRank, id);
+    }
+
+    public static long sortKey(int priorityRank, int id) {
+        return ((long) priorityRank << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /**
+     * ลำดับความสำคัญ 0-23 (ค่าน้อย = จัดสรรก่อน) รวมเกณฑ์ทั้งหมดไว้ในตัวเลขเดียว:
+     * เด็ก/ผู้สูงอายุ > อื่น ๆ, แล้วกลุ่มเสี่ยง > VIP > ทั่วไป, แล้วเด็ก > ผู้สูงอายุ > อื่น ๆ
+     * ค่านี้ถูกบันทึกในคอลัมน์ citizens.priority_rank เพื่อใช้ ORDER BY ผ่าน index
+     */
+    public static int priorityRank(int age, CitizenType type) {
+        int group = age < 18 || age >= 60 ? 0 : 1;
+        int typeRank = 3;
+        if (type != null) {
+            switch (type) {
+                case AT_RISK:
+                    typeRank = 0;
+                    break;
+                case VIP:
+                    typeRank = 1;
+                    break;
+                case GENERAL:
+                    typeRank = 2;
+                    break;
+            }
+        }
+        int ageBand = age < 18 ? 0 : age >= 60 ? 1 : 2;
+        return (group * 4 + typeRank) * 3 + ageBand;
     }
 
     @Override
@@ -0,0 +1,53 @@
+package model;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * จัดกลุ่มความเสี่ยงด้านสุขภาพจากสภาวะสุขภาพ (ข้อความอิสระ) และประเภทประชาชน
+ * คำนวณครั้งเดียวตอนลงทะเบียน/นำเข้า แล้วบันทึกในคอลัมน์ citizens.health_risk
+ *
+ * มีความเสี่ยงเมื่อ: เป็นกลุ่มเสี่ยง (AT_RISK) หรือระบุสภาวะสุขภาพที่ไม่อยู่ในรายการคำว่า "ปกติ"
+ * รายการคำกำหนดได้ผ่าน System property shelter.health.normalTerms (คั่นด้วย ,)
+ */
+public final class HealthRiskClassifier {
+    private static final Set<String> NORMAL_TERMS = parseTerms(
+            System.getProperty("shelter.health.normalTerms", "ปกติ"));
+
+    private HealthRiskClassifier() {
+    }
+
+    public static boolean hasHealthRisk(String healthCondition, Citizen.CitizenType type) {
+        if (type == Citizen.CitizenType.AT_RISK) {
+            return true;
+        }
+        if (healthCondition == null) {
+            return false;
+        }
+
+        String normalized = normalize(healthCondition);
+        return !normalized.isEmpty() && !NORMAL_TERMS.contains(normalized);
+    }
+
+    public static Set<String> getNormalTerms() {
+        return Collections.unmodifiableSet(NORMAL_TERMS);
+    }
+
+    private static Set<String> parseTerms(String terms) {
+        Set<String> result = new HashSet<>();
+        for (String term : terms.split(",")) {
+            String normalized = normalize(term);
+            if (!normalized.isEmpty()) {
+                result.add(normalized);
+            }
+        }
+        return result;
+    }
+
+    // เทียบแบบไม่สนตัวพิมพ์เล็ก/ใหญ่และช่องว่างหัวท้าย (เหมือน equalsIgnoreCase เดิม)
+    private static String normalize(String term) {
+        return term.trim().toLowerCase(Locale.ROOT);
+    }
+}
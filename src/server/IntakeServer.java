@@ -0,0 +1,557 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import controller.AssignmentController;
+import controller.CitizenController;
+import controller.ShelterController;
+import controller.StatisticsController;
+import model.Assignment;
+import model.Citizen;
+import model.Shelter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransientException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP/JSON API สำหรับเครื่องลงทะเบียนหลายเครื่อง (โหมด headless: Main --server)
+ * ใช้ HTTP server ของ JDK และ virtual thread ต่อ request เมื่อรันบน Java 21+
+ * (Java รุ่นก่อนหน้าใช้ thread pool ขนาด shelter.server.threads แทน)
+ *
+ * งานเขียน (POST) ต้องได้ permit จาก semaphore ก่อนถึง writer ของ SQLite
+ * ถ้ารอเกิน shelter.server.writeTimeoutMs จะตอบ 503 ให้ client ลองใหม่ แทนที่จะต่อคิวไม่จำกัด
+ *
+ * Endpoint:
+ * - GET  /api/citizens?type=&amp;waiting=true&amp;offset=&amp;limit=  /api/citizens/{id}
+ * - POST /api/citizens {"name", "age", "healthCondition", "type"}
+ * - GET  /api/shelters?available=true&amp;risk=LOW  /api/shelters/{id}
+ * - POST /api/shelters {"name", "maxCapacity", "riskLevel"}
+ * - GET  /api/assignments?shelterId=
+ * - POST /api/assignments {"citizenId", "shelterId"} (ไม่ระบุ shelterId = จัดสรรอัตโนมัติ)
+ * - GET  /api/stats, /health
+ */
+public class IntakeServer {
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    // result code หลักของ SQLite (8 bit ล่างของ extended code)
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+    private static final int SQLITE_CONSTRAINT = 19;
+
+    private CitizenController citizenController;
+    private ShelterController shelterController;
+    private AssignmentController assignmentController;
+    private StatisticsController statisticsController;
+
+    private final Semaphore writePermits;
+    private final long writeTimeoutMillis;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private boolean virtualThreads;
+
+    public IntakeServer(CitizenController citizenController, ShelterController shelterController,
+            AssignmentController assignmentController, StatisticsController statisticsController) {
+        this.citizenController = citizenController;
+        this.shelterController = shelterController;
+        this.assignmentController = assignmentController;
+        this.statisticsController = statisticsController;
+        this.writePermits = new Semaphore(Integer.getInteger("shelter.server.maxWriters", 256), true);
+        this.writeTimeoutMillis = Long.getLong("shelter.server.writeTimeoutMs", 2000L);
+    }
+
+    // ==================== Lifecycle ====================
+
+    /**
+     * เริ่ม server (port = 0 คือให้ระบบเลือก port ว่าง)
+     */
+    public synchronized void start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("server เริ่มทำงานแล้ว");
+        }
+
+        // ส่ง header และ body ทันทีโดยไม่รอ ACK (Nagle + delayed ACK ทำให้ทุก response ช้าไปประมาณ 40 ms)
+        // ต้องตั้งก่อนสร้าง HttpServer ตัวแรกของ JVM
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/api/citizens", exchange -> handle(exchange, this::citizens));
+        server.createContext("/api/shelters", exchange -> handle(exchange, this::shelters));
+        server.createContext("/api/assignments", exchange -> handle(exchange, this::assignments));
+        server.createContext("/api/stats", exchange -> handle(exchange, this::stats));
+        server.createContext("/health", exchange -> handle(exchange,
+                request -> Response.ok(new Json.Builder().field("status", "ok").build())));
+
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(1);
+        executor.shutdown();
+        server = null;
+    }
+
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * จำนวน request ที่ตอบ 503 เพราะรอ permit ของงานเขียนไม่ทัน
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * virtual thread ต่อ request (Java 21+) ผ่าน reflection เพื่อให้ยัง compile แบบ Java 8 ได้
+     */
+    private ExecutorService newRequestExecutor() {
+        try {
+            Object virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            virtualThreads = true;
+            return (ExecutorService) virtual;
+        } catch (ReflectiveOperationException e) {
+            virtualThreads = false;
+        }
+
+        return Executors.newFixedThreadPool(Integer.getInteger("shelter.server.threads", 64), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "intake-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    // ==================== Request handling ====================
+
+    private interface Endpoint {
+        Response handle(Request request) throws Exception;
+    }
+
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        requestCount.incrementAndGet();
+        Response response;
+        try {
+            Request request = new Request(exchange);
+            if (request.isWrite()) {
+                response = handleWrite(endpoint, request);
+            } else {
+                response = endpoint.handle(request);
+            }
+        } catch (IllegalArgumentException e) {
+            response = Response.error(400, e.getMessage());
+        } catch (SQLException e) {
+            response = sqlError(e);
+        } catch (Exception e) {
+            e.printStackTrace();
+            response = Response.error(500, "เกิดข้อผิดพลาดภายใน server");
+        }
+        send(exchange, response);
+    }
+
+    /**
+     * 409 เฉพาะข้อมูลขัดกับกฎ (ลงทะเบียนซ้ำ ศูนย์เต็ม ไม่มีศูนย์ที่เหมาะสม)
+     * ฐานข้อมูลไม่ว่าง/คิวเต็มตอบ 503 พร้อม Retry-After ส่วนข้อผิดพลาดอื่น (I/O, journal) ตอบ 500
+     */
+    private static Response sqlError(SQLException e) {
+        int code = e.getErrorCode() & 0xFF;
+        if (e instanceof SQLIntegrityConstraintViolationException || code == SQLITE_CONSTRAINT) {
+            return Response.error(409, e.getMessage());
+        }
+        if (e instanceof SQLTransientException || code == SQLITE_BUSY || code == SQLITE_LOCKED) {
+            return Response.error(503, "ฐานข้อมูลไม่ว่าง กรุณาลองใหม่").header("Retry-After", "1");
+        }
+        e.printStackTrace();
+        return Response.error(500, "เกิดข้อผิดพลาดของฐานข้อมูล");
+    }
+
+    private Response handleWrite(Endpoint endpoint, Request request) throws Exception {
+        if (!writePermits.tryAcquire(writeTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            rejectedCount.incrementAndGet();
+            return Response.error(503, "ระบบมีงานบันทึกค้างอยู่มาก กรุณาลองใหม่").header("Retry-After", "1");
+        }
+        try {
+            return endpoint.handle(request);
+        } finally {
+            writePermits.release();
+        }
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        for (Map.Entry<String, String> header : response.headers.entrySet()) {
+            exchange.getResponseHeaders().set(header.getKey(), header.getValue());
+        }
+        exchange.sendResponseHeaders(response.status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // ==================== Citizens ====================
+
+    private Response citizens(Request request) throws Exception {
+        String id = request.pathId();
+        if (request.isWrite()) {
+            if (id != null) {
+                return Response.error(405, "ไม่รองรับ method นี้");
+            }
+            Map<String, Object> body = request.jsonBody();
+            String type = optionalString(body, "type");
+            int citizenId = citizenController.registerCitizen(
+                    requiredString(body, "name"),
+                    requiredInt(body, "age"),
+                    optionalString(body, "healthCondition"),
+                    type != null ? parseEnum(Citizen.CitizenType.class, type) : Citizen.CitizenType.GENERAL);
+            return Response.created(new Json.Builder().field("id", citizenId).build());
+        }
+        if (!request.isRead()) {
+            return Response.error(405, "ไม่รองรับ method นี้");
+        }
+
+        if (id != null) {
+            Citizen citizen = citizenController.getCitizenById(parseId(id));
+            return citizen != null ? Response.ok(toJson(citizen)) : Response.error(404, "ไม่พบข้อมูลประชาชน");
+        }
+
+        int offset = request.intParam("offset", 0);
+        int limit = Math.min(request.intParam("limit", DEFAULT_LIMIT), MAX_LIMIT);
+        List<Citizen> citizens;
+        if (Boolean.parseBoolean(request.param("waiting"))) {
+            // ผู้ที่รอจัดสรรตามลำดับความสำคัญ
+            citizens = citizenController.getCitizensSortedByPriority(offset, limit);
+        } else {
+            String type = request.param("type");
+            citizens = citizenController.getCitizenPage(
+                    type != null ? parseEnum(Citizen.CitizenType.class, type) : null, -1, offset, limit);
+        }
+
+        StringBuilder json = new StringBuilder("[");
+        for (Citizen citizen : citizens) {
+            json.append(json.length() > 1 ? "," : "").append(toJson(citizen));
+        }
+        return Response.ok(json.append(']').toString());
+    }
+
+    private static String toJson(Citizen citizen) {
+        return new Json.Builder()
+                .field("id", citizen.getId())
+                .field("name", citizen.getName())
+                .field("age", citizen.getAge())
+                .field("healthCondition", citizen.getHealthCondition())
+                .field("registrationDate", String.valueOf(citizen.getRegistrationDate()))
+                .field("type", citizen.getType().name())
+                .field("priorityGroup", citizen.isPriorityGroup())
+                .field("healthRisk", citizen.hasHealthRisk())
+                .build();
+    }
+
+    // ==================== Shelters ====================
+
+    private Response shelters(Request request) throws Exception {
+        String id = request.pathId();
+        if (request.isWrite()) {
+            if (id != null) {
+                return Response.error(405, "ไม่รองรับ method นี้");
+            }
+            Map<String, Object> body = request.jsonBody();
+            String riskLevel = optionalString(body, "riskLevel");
+            int shelterId = shelterController.addShelter(
+                    requiredString(body, "name"),
+                    requiredInt(body, "maxCapacity"),
+                    riskLevel != null ? parseEnum(Shelter.RiskLevel.class, riskLevel) : Shelter.RiskLevel.LOW);
+            return Response.created(new Json.Builder().field("id", shelterId).build());
+        }
+        if (!request.isRead()) {
+            return Response.error(405, "ไม่รองรับ method นี้");
+        }
+
+        if (id != null) {
+            Shelter shelter = shelterController.getShelterById(parseId(id));
+            return shelter != null ? Response.ok(toJson(shelter)) : Response.error(404, "ไม่พบข้อมูลศูนย์พักพิง");
+        }
+
+        String risk = request.param("risk");
+        List<Shelter> shelters;
+        if (risk != null) {
+            shelters = shelterController.getSheltersByRiskLevel(parseEnum(Shelter.RiskLevel.class, risk));
+        } else if (Boolean.parseBoolean(request.param("available"))) {
+            shelters = shelterController.getAvailableShelters();
+        } else {
+            shelters = shelterController.getAllShelters();
+        }
+
+        StringBuilder json = new StringBuilder("[");
+        for (Shelter shelter : shelters) {
+            json.append(json.length() > 1 ? "," : "").append(toJson(shelter));
+        }
+        return Response.ok(json.append(']').toString());
+    }
+
+    private static String toJson(Shelter shelter) {
+        return new Json.Builder()
+                .field("id", shelter.getId())
+                .field("name", shelter.getName())
+                .field("maxCapacity", shelter.getMaxCapacity())
+                .field("currentOccupancy", shelter.getCurrentOccupancy())
+                .field("availableSpace", shelter.getAvailableSpace())
+                .field("riskLevel", shelter.getRiskLevel().name())
+                .build();
+    }
+
+    // ==================== Assignments ====================
+
+    private Response assignments(Request request) throws Exception {
+        if (request.pathId() != null) {
+            return Response.error(404, "ไม่พบ endpoint");
+        }
+        if (request.isWrite()) {
+            Map<String, Object> body = request.jsonBody();
+            int citizenId = requiredInt(body, "citizenId");
+            int assignmentId = body.get("shelterId") != null
+                    ? assignmentController.assignShelter(citizenId, requiredInt(body, "shelterId"))
+                    : assignmentController.autoAssignShelter(citizenId);
+            return Response.created(new Json.Builder().field("id", assignmentId).build());
+        }
+        if (!request.isRead()) {
+            return Response.error(405, "ไม่รองรับ method นี้");
+        }
+
+        String shelterId = request.param("shelterId");
+        if (shelterId == null) {
+            throw new IllegalArgumentException("กรุณาระบุ shelterId");
+        }
+        StringBuilder json = new StringBuilder("[");
+        for (Assignment assignment : assignmentController.getAssignmentsByShelterId(parseId(shelterId))) {
+            json.append(json.length() > 1 ? "," : "").append(new Json.Builder()
+                    .field("id", assignment.getId())
+                    .field("citizenId", assignment.getCitizenId())
+                    .field("shelterId", assignment.getShelterId())
+                    .field("assignmentDate", String.valueOf(assignment.getAssignmentDate()))
+                    .field("notes", assignment.getNotes())
+                    .build());
+        }
+        return Response.ok(json.append(']').toString());
+    }
+
+    // ==================== Statistics ====================
+
+    private Response stats(Request request) {
+        if (!request.isRead()) {
+            return Response.error(405, "ไม่รองรับ method นี้");
+        }
+        return Response.ok(new Json.Builder()
+                .field("totalCitizens", statisticsController.getTotalCitizens())
+                .field("assignedCitizens", statisticsController.getAssignedCitizens())
+                .field("unassignedCitizens", statisticsController.getUnassignedCitizens())
+                .field("unassignedPriorityCitizens", statisticsController.getUnassignedPriorityCitizens())
+                .field("unassignedHealthRiskCitizens", statisticsController.getUnassignedHealthRiskCitizens())
+                .field("requests", requestCount.get())
+                .field("rejectedWrites", rejectedCount.get())
+                .build());
+    }
+
+    // ==================== Parameters ====================
+
+    private static String requiredString(Map<String, Object> body, String name) {
+        String value = optionalString(body, name);
+        if (value == null) {
+            throw new IllegalArgumentException("กรุณาระบุ " + name);
+        }
+        return value;
+    }
+
+    private static String optionalString(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    private static int requiredInt(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (value instanceof Long && (Long) value == ((Long) value).intValue()) {
+            return ((Long) value).intValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt(((String) value).trim());
+            } catch (NumberFormatException e) {
+                // ตอบข้อความเดียวกับกรณีชนิดข้อมูลไม่ถูกต้องด้านล่าง
+            }
+        }
+        throw new IllegalArgumentException("กรุณาระบุ " + name + " เป็นจำนวนเต็ม");
+    }
+
+    private static int parseId(String id) {
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("id ไม่ถูกต้อง: " + id);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("ค่า " + value + " ไม่ถูกต้องสำหรับ " + type.getSimpleName());
+        }
+    }
+
+    /**
+     * ข้อมูลของ request หนึ่งครั้ง (path, query string และ body)
+     */
+    private static class Request {
+        private final HttpExchange exchange;
+        private final String method;
+        private final Map<String, String> params = new HashMap<>();
+
+        Request(HttpExchange exchange) throws UnsupportedEncodingException {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod().toUpperCase();
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query != null) {
+                for (String pair : query.split("&")) {
+                    int eq = pair.indexOf('=');
+                    if (eq > 0) {
+                        params.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"),
+                                URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+                    }
+                }
+            }
+        }
+
+        boolean isRead() {
+            return "GET".equals(method);
+        }
+
+        boolean isWrite() {
+            return "POST".equals(method);
+        }
+
+        /**
+         * ส่วนของ path ต่อจาก context เช่น /api/citizens/42 -> "42" (null ถ้าไม่มี)
+         */
+        String pathId() {
+            String path = exchange.getRequestURI().getPath();
+            String rest = path.substring(exchange.getHttpContext().getPath().length());
+            while (rest.startsWith("/")) {
+                rest = rest.substring(1);
+            }
+            while (rest.endsWith("/")) {
+                rest = rest.substring(0, rest.length() - 1);
+            }
+            return rest.isEmpty() ? null : rest;
+        }
+
+        String param(String name) {
+            return params.get(name);
+        }
+
+        int intParam(String name, int defaultValue) {
+            String value = params.get(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            int parsed;
+            try {
+                parsed = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(name + " ต้องเป็นจำนวนเต็ม");
+            }
+            if (parsed < 0) {
+                throw new IllegalArgumentException(name + " ต้องไม่ติดลบ");
+            }
+            return parsed;
+        }
+
+        Map<String, Object> jsonBody() throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            try (InputStream in = exchange.getRequestBody()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (body.size() + read > MAX_BODY_BYTES) {
+                        throw new IllegalArgumentException("ข้อมูลที่ส่งมามีขนาดใหญ่เกินไป");
+                    }
+                    body.write(buffer, 0, read);
+                }
+            }
+            return Json.parseObject(new String(body.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * ผลลัพธ์ที่จะส่งกลับ (body เป็น JSON เสมอ)
+     */
+    private static class Response {
+        private final int status;
+        private final String body;
+        private final Map<String, String> headers = new HashMap<>();
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response ok(String body) {
+            return new Response(200, body);
+        }
+
+        static Response created(String body) {
+            return new Response(201, body);
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, new Json.Builder().field("error", message).build());
+        }
+
+        Response header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSON แบบง่ายสำหรับ IntakeServer (ไม่ต้องพึ่ง library ภายนอก)
+ * - อ่านได้เฉพาะ object ชั้นเดียวที่มีค่าเป็น string, number, boolean หรือ null
+ * - เขียนด้วย Json.Builder ทีละ field
+ */
+public final class Json {
+    private final String text;
+    private int pos;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    // ==================== Parse ====================
+
+    /**
+     * แปลง {"name": "...", "age": 30} เป็น Map (number เป็น Long หรือ Double)
+     */
+    public static Map<String, Object> parseObject(String text) {
+        Json parser = new Json(text == null ? "" : text);
+        Map<String, Object> result = parser.readObject();
+        parser.skipWhitespace();
+        if (parser.pos != parser.text.length()) {
+            throw parser.error();
+        }
+        return result;
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return result;
+        }
+
+        while (true) {
+            skipWhitespace();
+            String key = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            result.put(key, readValue());
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                return result;
+            }
+            if (c != ',') {
+                throw error();
+            }
+        }
+    }
+
+    private Object readValue() {
+        char c = peek();
+        if (c == '"') {
+            return readString();
+        }
+        if (text.startsWith("true", pos)) {
+            pos += 4;
+            return Boolean.TRUE;
+        }
+        if (text.startsWith("false", pos)) {
+            pos += 5;
+            return Boolean.FALSE;
+        }
+        if (text.startsWith("null", pos)) {
+            pos += 4;
+            return null;
+        }
+        if (c == '-' || (c >= '0' && c <= '9')) {
+            return readNumber();
+        }
+        throw error();
+    }
+
+    private String readString() {
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+
+            char escaped = next();
+            switch (escaped) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    if (pos + 4 > text.length()) {
+                        throw error();
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error();
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    sb.append(escaped); // " \ /
+            }
+        }
+    }
+
+    private Number readNumber() {
+        int start = pos;
+        while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+            pos++;
+        }
+        String number = text.substring(start, pos);
+        try {
+            if (number.indexOf('.') >= 0 || number.indexOf('e') >= 0 || number.indexOf('E') >= 0) {
+                return Double.parseDouble(number);
+            }
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw error();
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private char peek() {
+        if (pos >= text.length()) {
+            throw error();
+        }
+        return text.charAt(pos);
+    }
+
+    private char next() {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    private void expect(char c) {
+        if (next() != c) {
+            throw error();
+        }
+    }
+
+    private IllegalArgumentException error() {
+        return new IllegalArgumentException("รูปแบบ JSON ไม่ถูกต้อง (ตำแหน่ง " + pos + ")");
+    }
+
+    // ==================== Write ====================
+
+    public static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * สร้าง JSON object ทีละ field
+     */
+    public static class Builder {
+        private final StringBuilder sb = new StringBuilder("{");
+
+        public Builder field(String name, String value) {
+            return raw(name, quote(value));
+        }
+
+        public Builder field(String name, long value) {
+            return raw(name, Long.toString(value));
+        }
+
+        public Builder field(String name, double value) {
+            return raw(name, Double.toString(value));
+        }
+
+        public Builder field(String name, boolean value) {
+            return raw(name, Boolean.toString(value));
+        }
+
+        /**
+         * ใส่ค่าที่เป็น JSON อยู่แล้ว (เช่น object หรือ array ที่สร้างไว้)
+         */
+        public Builder raw(String name, String json) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append(quote(name)).append(':').append(json);
+            return this;
+        }
+
+        public String build() {
+            return sb.toString() + "}";
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package tools;
+
+import controller.AssignmentController;
+import controller.CitizenController;
+import controller.ShelterCapacityIndex;
+import controller.ShelterController;
+import database.DatabaseConfig;
+import database.DatabaseManager;
+import model.Assignment;
+import model.Citizen;
+import model.Shelter;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ทดสอบการจัดสรรพร้อมกันจากหลาย thread บนฐานข้อมูลชั่วคราว
+ * ตรวจว่าไม่มีศูนย์ใดเกิน maxCapacity, ไม่มีประชาชนถูกจัดสรรซ้ำ,
+ * ผู้มีความเสี่ยงด้านสุขภาพอยู่เฉพาะศูนย์ความเสี่ยงต่ำ และดัชนีที่ว่างตรงกับฐานข้อมูล
+ *
+ * วิธีใช้: java -cp "bin;lib/*" tools.AssignmentStressCheck [threads] [shelters] [citizens]
+ * คืนค่า exit code 1 ถ้าพบข้อผิดพลาด
+ */
+public class AssignmentStressCheck {
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int shelterCount = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int citizenCount = args.length > 2 ? Integer.parseInt(args[2]) : 3000;
+
+        File dbFile = File.createTempFile("shelter-stress", ".db");
+        dbFile.delete();
+        DatabaseManager dbManager = new DatabaseManager(new DatabaseConfig(dbFile.getPath()));
+        try {
+            int violations = run(dbManager, threads, shelterCount, citizenCount);
+            if (violations > 0) {
+                System.out.println("ไม่ผ่าน: พบข้อผิดพลาด " + violations + " รายการ");
+                System.exit(1);
+            }
+            System.out.println("ผ่าน");
+        } finally {
+            dbManager.close();
+            for (String suffix : new String[] { "", "-wal", "-shm", ".journal" }) {
+                new File(dbFile.getPath() + suffix).delete();
+            }
+        }
+    }
+
+    private static int run(DatabaseManager dbManager, int threads, int shelterCount, int citizenCount)
+            throws Exception {
+        CitizenController citizenController = new CitizenController(dbManager);
+        ShelterController shelterController = new ShelterController(dbManager);
+        AssignmentController assignmentController = new AssignmentController(
+                dbManager, shelterController, citizenController);
+
+        // ความจุรวมน้อยกว่าจำนวนประชาชน เพื่อให้ทุกศูนย์ถูกแย่งจนเต็ม
+        Random random = new Random(42);
+        Shelter.RiskLevel[] levels = Shelter.RiskLevel.values();
+        List<Integer> shelterIds = new ArrayList<>();
+        for (int i = 0; i < shelterCount; i++) {
+            int capacity = Math.max(1, citizenCount / shelterCount / 2 + random.nextInt(20));
+            shelterIds.add(shelterController.addShelter("ศูนย์ทดสอบ " + (i + 1), capacity, levels[i % levels.length]));
+        }
+
+        List<Citizen> citizens = new ArrayList<>();
+        for (int i = 0; i < citizenCount; i++) {
+            Citizen citizen = new Citizen();
+            citizen.setName("ผู้ทดสอบ " + (i + 1));
+            citizen.setAge(random.nextInt(90));
+            citizen.setHealthCondition(random.nextInt(4) == 0 ? "โรคหัวใจ" : "ปกติ");
+            citizens.add(citizen);
+        }
+        dbManager.addCitizensBatch(citizens);
+
+        // ทุกคนถูกส่งเข้ามา 2 ครั้ง (อัตโนมัติ และเลือกศูนย์เองแบบสุ่ม) พร้อมกันจากทุก thread
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (Citizen citizen : citizens) {
+            int manualShelterId = shelterIds.get(random.nextInt(shelterIds.size()));
+            futures.add(executor.submit(() -> {
+                start.await();
+                attempt(() -> assignmentController.autoAssignShelter(citizen.getId()), succeeded, rejected);
+                return null;
+            }));
+            futures.add(executor.submit(() -> {
+                start.await();
+                attempt(() -> assignmentController.assignShelter(citizen.getId(), manualShelterId), succeeded, rejected);
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        executor.shutdown();
+
+        System.out.printf("threads=%d, ศูนย์=%d, ประชาชน=%d: สำเร็จ %d, ถูกปฏิเสธ %d (%d ms, %.0f ครั้ง/วินาที)%n",
+                threads, shelterCount, citizenCount, succeeded.get(), rejected.get(), elapsedMillis,
+                futures.size() * 1000.0 / Math.max(1, elapsedMillis));
+
+        System.out.println(citizenController.getCitizenCache());
+        System.out.println(shelterController.getShelterCache());
+        return verify(dbManager, shelterController, assignmentController, succeeded.get());
+    }
+
+    private interface Task {
+        void run() throws SQLException;
+    }
+
+    private static void attempt(Task task, AtomicInteger succeeded, AtomicInteger rejected) {
+        try {
+            task.run();
+            succeeded.incrementAndGet();
+        } catch (SQLException | IllegalArgumentException e) {
+            rejected.incrementAndGet();
+        }
+    }
+
+    private static int verify(DatabaseManager dbManager, ShelterController shelterController,
+            AssignmentController assignmentController, int succeeded) throws SQLException {
+        int violations = 0;
+
+        List<Assignment> assignments = assignmentController.getAllAssignmentsWithDetails();
+        Set<Integer> assignedCitizens = new HashSet<>();
+        for (Assignment assignment : assignments) {
+            if (!assignedCitizens.add(assignment.getCitizenId())) {
+                System.out.println("จัดสรรซ้ำ: citizen id " + assignment.getCitizenId());
+                violations++;
+            }
+            if (assignment.getCitizen().hasHealthRisk()
+                    && assignment.getShelter().getRiskLevel() != Shelter.RiskLevel.LOW) {
+                System.out.println("ผิดเงื่อนไขความเสี่ยง: " + assignment);
+                violations++;
+            }
+        }
+        if (assignments.size() != succeeded) {
+            System.out.println("จำนวนที่สำเร็จ " + succeeded + " ไม่ตรงกับฐานข้อมูล " + assignments.size());
+            violations++;
+        }
+
+        ShelterCapacityIndex index = shelterController.getCapacityIndex();
+        for (Shelter shelter : dbManager.getAllShelters()) {
+            int assigned = dbManager.getAssignmentsByShelterId(shelter.getId()).size();
+            if (shelter.getCurrentOccupancy() > shelter.getMaxCapacity()) {
+                System.out.println("เกินความจุ: " + shelter);
+                violations++;
+            }
+            if (assigned != shelter.getCurrentOccupancy()) {
+                System.out.println("จำนวนคนไม่ตรงกับการจัดสรร: " + shelter + " (จัดสรร " + assigned + ")");
+                violations++;
+            }
+            Shelter cached = shelterController.getShelterById(shelter.getId());
+            if (cached == null || cached.getCurrentOccupancy() != shelter.getCurrentOccupancy()) {
+                System.out.println("cache ไม่ตรงกับฐานข้อมูล: " + shelter + " (cache " + cached + ")");
+                violations++;
+            }
+            if (index.getAvailableSpace(shelter.getId()) != shelter.getAvailableSpace()) {
+                System.out.println("ดัชนีไม่ตรงกับฐานข้อมูล: " + shelter
+                        + " (ดัชนี " + index.getAvailableSpace(shelter.getId()) + ")");
+                violations++;
+            }
+        }
+
+        return violations;
+    }
+}
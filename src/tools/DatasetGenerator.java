@@ -0,0 +1,276 @@
+package tools;
+
+import database.BatchResult;
+import database.DatabaseConfig;
+import database.DatabaseManager;
+import model.Citizen;
+import model.Shelter;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * สร้างข้อมูลจำลองแบบกำหนด seed ได้ (seed เดียวกันได้ข้อมูลชุดเดียวกันทุกครั้ง)
+ * ใช้ทั้งเป็นข้อมูลตัวอย่างตอนเปิดโปรแกรมครั้งแรก และสร้างข้อมูลขนาดใหญ่สำหรับวัดประสิทธิภาพ
+ *
+ * การกระจายของข้อมูล:
+ * - อายุ: เด็ก 20%, วัยทำงาน 62%, ผู้สูงอายุ 18%
+ * - ประเภท: กลุ่มเสี่ยง 15%, VIP 2%, ทั่วไป 83%
+ * - สภาวะสุขภาพ: กลุ่มเสี่ยงมีโรคเสมอ, ผู้สูงอายุมีโรค 45%, อื่นๆ 10%
+ * - ศูนย์พักพิง: ความเสี่ยงต่ำ 40%, กลาง 40%, สูง 20% ความจุรวมประมาณ capacityRatio เท่าของจำนวนประชาชน
+ *
+ * วิธีใช้: java -cp "bin;lib/*" tools.DatasetGenerator &lt;db file&gt; [shelters] [citizens] [seed]
+ * เช่น tools.DatasetGenerator disaster.db 5000 2000000
+ */
+public class DatasetGenerator {
+    // ข้อมูลตัวอย่างตอนเปิดโปรแกรมครั้งแรก (ศูนย์พักพิง > 5 แห่ง, ประชาชน ≥ 30 คน, ยังไม่มีการจัดสรร)
+    public static final int SAMPLE_SHELTERS = 8;
+    public static final int SAMPLE_CITIZENS = 35;
+    public static final long DEFAULT_SEED = 2568L;
+
+    // จำนวนประชาชนที่สร้างใน memory ต่อรอบก่อนส่งเข้า addCitizensBatch
+    private static final int CITIZEN_CHUNK_SIZE = 10000;
+    private static final int MIN_CAPACITY = 1;
+    private static final int REGISTRATION_DAYS = 14;
+
+    private static final String[] BOY_NAMES = {
+            "สมชาย", "วิชัย", "ประเสริฐ", "ธนา", "สมศักดิ์", "อนุชา", "กิตติ", "วีระ", "ชัยวัฒน์", "ประดิษฐ์",
+            "สมพร", "วิรัช", "สมบัติ", "ประสิทธิ์", "ธีรพงษ์", "ณัฐวุฒิ", "พงศกร", "ศุภชัย", "อภิชาติ", "เกียรติศักดิ์"
+    };
+    private static final String[] GIRL_NAMES = {
+            "สมหมาย", "นิภา", "มาลี", "สุดา", "จิตรา", "จันทร์", "ประไพ", "บุญมี", "พิมพ์ใจ", "กรรณิการ์",
+            "วารี", "นิดา", "จริยา", "พรทิพย์", "แสง", "รัตนา", "อรุณี", "สุภาพร", "วันเพ็ญ", "ปิยะนุช"
+    };
+    private static final String[] SURNAMES = {
+            "ใจดี", "แสงทอง", "มั่นคง", "รุ่งเรือง", "ศรีสุข", "สวัสดี", "เจริญ", "สมบูรณ์", "รักษาดี", "ทองคำ",
+            "บุญมา", "แก้วกาญจนา", "ศรีวงศ์", "พรหมมา", "อินทร์แก้ว", "จันทร์เพ็ญ", "สุขสวัสดิ์", "วงศ์ใหญ่",
+            "ทองดี", "มีสุข", "ปัญญาดี", "ชัยมงคล", "ศักดิ์สิทธิ์", "บุญเรือง", "คงสมบูรณ์"
+    };
+    private static final String[] CONDITIONS = {
+            "เบาหวาน", "ความดันโลหิตสูง", "โรคหัวใจ", "โรคหอบหืด", "ไข้หวัด", "ไข้สูง", "โรคข้อเข่า",
+            "โรคไต", "ตั้งครรภ์", "ผู้พิการ", "โรคเรื้อรัง", "ติดเตียง"
+    };
+    private static final String[] SHELTER_PLACES = {
+            "โรงเรียน", "วัด", "หอประชุมเทศบาล", "สนามกีฬา", "ศาลาประชาคม", "โรงพยาบาลชุมชน", "อาคารอเนกประสงค์",
+            "มหาวิทยาลัย"
+    };
+    private static final String[] VILLAGES = {
+            "บ้านสวน", "บ้านเหนือ", "บ้านใต้", "ป่าแดง", "หนองบัว", "ท่าช้าง", "บ้านใหม่", "โนนสูง", "ดอนตูม",
+            "บางกร่าง", "ทุ่งรวงทอง", "หัวฝาย"
+    };
+
+    private DatabaseManager dbManager;
+    private final Random random;
+    private double capacityRatio = 0.9;
+
+    public DatasetGenerator(DatabaseManager dbManager, long seed) {
+        this.dbManager = dbManager;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * ความจุรวมของศูนย์พักพิงเทียบกับจำนวนประชาชน (ค่าเริ่มต้น 0.9 = มีคนรอจัดสรรประมาณ 10%)
+     */
+    public void setCapacityRatio(double capacityRatio) {
+        if (capacityRatio <= 0) {
+            throw new IllegalArgumentException("สัดส่วนความจุต้องมากกว่า 0");
+        }
+        this.capacityRatio = capacityRatio;
+    }
+
+    /**
+     * สร้างศูนย์พักพิงและประชาชนตามจำนวนที่กำหนด (ยังไม่มีการจัดสรร)
+     * คืนค่าจำนวนประชาชนที่บันทึกได้
+     */
+    public int generate(int shelterCount, int citizenCount) throws SQLException {
+        if (shelterCount < 1 || citizenCount < 0) {
+            throw new IllegalArgumentException("จำนวนศูนย์พักพิงต้องมีอย่างน้อย 1 แห่ง และจำนวนประชาชนต้องไม่ติดลบ");
+        }
+
+        generateShelters(shelterCount, (long) Math.ceil(citizenCount * capacityRatio));
+        return generateCitizens(citizenCount);
+    }
+
+    // ==================== Shelters ====================
+
+    public List<Shelter> generateShelters(int count, long totalCapacity) throws SQLException {
+        double averageCapacity = (double) totalCapacity / count;
+        List<Shelter> shelters = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Shelter shelter = new Shelter();
+            shelter.setName(shelterName(i));
+            // ความจุ 50% - 150% ของค่าเฉลี่ย
+            int capacity = (int) Math.round(averageCapacity * (0.5 + random.nextDouble()));
+            shelter.setMaxCapacity(Math.max(MIN_CAPACITY, capacity));
+            shelter.setRiskLevel(riskLevel(i));
+            shelters.add(shelter);
+        }
+
+        BatchResult result = dbManager.addSheltersBatch(shelters);
+        if (!result.getRejected().isEmpty()) {
+            throw new SQLException("บันทึกศูนย์พักพิงไม่สำเร็จ: " + result.getRejected().values().iterator().next());
+        }
+        return shelters;
+    }
+
+    // กระจายแบบสลับกัน (ต่ำ, ต่ำ, กลาง, กลาง, สูง) เพื่อให้มีศูนย์ความเสี่ยงต่ำเสมอแม้มีไม่กี่แห่ง
+    private static Shelter.RiskLevel riskLevel(int index) {
+        switch (index % 5) {
+            case 0:
+            case 1:
+                return Shelter.RiskLevel.LOW;
+            case 2:
+            case 3:
+                return Shelter.RiskLevel.MEDIUM;
+            default:
+                return Shelter.RiskLevel.HIGH;
+        }
+    }
+
+    private static String shelterName(int index) {
+        int combinations = SHELTER_PLACES.length * VILLAGES.length;
+        String name = "ศูนย์พักพิง" + SHELTER_PLACES[index % SHELTER_PLACES.length]
+                + VILLAGES[(index / SHELTER_PLACES.length) % VILLAGES.length];
+        return index < combinations ? name : name + " " + (index / combinations + 1);
+    }
+
+    // ==================== Citizens ====================
+
+    public int generateCitizens(int count) throws SQLException {
+        long startNanos = System.nanoTime();
+        int inserted = 0;
+
+        for (int start = 0; start < count; start += CITIZEN_CHUNK_SIZE) {
+            int end = Math.min(start + CITIZEN_CHUNK_SIZE, count);
+            List<Citizen> chunk = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                chunk.add(newCitizen(i));
+            }
+
+            BatchResult result = dbManager.addCitizensBatch(chunk);
+            inserted += result.getInsertedCount();
+            if (count > CITIZEN_CHUNK_SIZE && end % (CITIZEN_CHUNK_SIZE * 10) == 0) {
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                System.out.printf("  ประชาชน %,d / %,d คน (%,d ms)%n", end, count, elapsed);
+            }
+        }
+
+        return inserted;
+    }
+
+    private Citizen newCitizen(int index) {
+        int age = randomAge();
+        boolean female = random.nextBoolean();
+        Citizen.CitizenType type = randomType();
+
+        Citizen citizen = new Citizen();
+        citizen.setName(citizenName(index, age, female));
+        citizen.setAge(age);
+        citizen.setType(type);
+        citizen.setHealthCondition(randomHealthCondition(age, type));
+        citizen.setRegistrationDate(LocalDate.now().minusDays(random.nextInt(REGISTRATION_DAYS)));
+        return citizen;
+    }
+
+    private int randomAge() {
+        int band = random.nextInt(100);
+        if (band < 20) {
+            return 1 + random.nextInt(17);
+        }
+        if (band < 82) {
+            return 18 + random.nextInt(42);
+        }
+        return 60 + random.nextInt(36);
+    }
+
+    private Citizen.CitizenType randomType() {
+        int value = random.nextInt(100);
+        if (value < 15) {
+            return Citizen.CitizenType.AT_RISK;
+        }
+        if (value < 17) {
+            return Citizen.CitizenType.VIP;
+        }
+        return Citizen.CitizenType.GENERAL;
+    }
+
+    private String randomHealthCondition(int age, Citizen.CitizenType type) {
+        int chance = type == Citizen.CitizenType.AT_RISK ? 100 : age >= 60 ? 45 : 10;
+        if (random.nextInt(100) < chance) {
+            return CONDITIONS[random.nextInt(CONDITIONS.length)];
+        }
+        return "ปกติ";
+    }
+
+    // ชื่อ + นามสกุลไม่ซ้ำกันตาม index (ชื่อซ้ำถูกปฏิเสธโดย unique index ของฐานข้อมูล)
+    private static String citizenName(int index, int age, boolean female) {
+        String[] firstNames = female ? GIRL_NAMES : BOY_NAMES;
+        int combinations = firstNames.length * SURNAMES.length;
+        String title = age < 15 ? (female ? "เด็กหญิง" : "เด็กชาย") : (female ? "นางสาว" : "นาย");
+
+        String name = title + firstNames[index % firstNames.length] + " "
+                + SURNAMES[(index / firstNames.length) % SURNAMES.length];
+        return index < combinations ? name : name + " " + (index / combinations + 1);
+    }
+
+    // ==================== Sample data ====================
+
+    /**
+     * เพิ่มข้อมูลตัวอย่างเมื่อฐานข้อมูลยังไม่มีศูนย์พักพิง (เรียกก่อนสร้าง controller)
+     */
+    public static void createSampleDataIfEmpty(DatabaseManager dbManager) {
+        try {
+            if (dbManager.hasShelters()) {
+                System.out.println("ข้อมูลตัวอย่างมีอยู่แล้ว");
+                return;
+            }
+
+            System.out.println("กำลังสร้างข้อมูลตัวอย่าง...");
+            int citizens = new DatasetGenerator(dbManager, DEFAULT_SEED).generate(SAMPLE_SHELTERS, SAMPLE_CITIZENS);
+            System.out.println("สร้างศูนย์พักพิง " + SAMPLE_SHELTERS + " แห่ง");
+            System.out.println("สร้างประชาชน " + citizens + " คน");
+            System.out.println("ข้อมูลตัวอย่างพร้อมใช้งาน!");
+        } catch (SQLException e) {
+            System.err.println("เกิดข้อผิดพลาดในการสร้างข้อมูลตัวอย่าง: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // ==================== Command line ====================
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("วิธีใช้: tools.DatasetGenerator <db file> [shelters] [citizens] [seed]");
+            System.exit(1);
+        }
+
+        String path = args[0];
+        int shelterCount = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int citizenCount = args.length > 2 ? Integer.parseInt(args[2]) : 2000000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+
+        DatabaseManager dbManager = new DatabaseManager(new DatabaseConfig(path));
+        try {
+            // ข้อมูลต้องสร้างบนฐานข้อมูลว่างเท่านั้น ผลลัพธ์จึงทำซ้ำได้ตาม seed
+            if (!dbManager.getAllShelters().isEmpty() || dbManager.countCitizens() > 0) {
+                System.out.println("ฐานข้อมูล " + new File(path).getAbsolutePath() + " มีข้อมูลอยู่แล้ว");
+                System.exit(1);
+            }
+
+            System.out.printf("สร้างศูนย์พักพิง %,d แห่ง ประชาชน %,d คน (seed=%d)%n", shelterCount, citizenCount, seed);
+            long startNanos = System.nanoTime();
+            int inserted = new DatasetGenerator(dbManager, seed).generate(shelterCount, citizenCount);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+            System.out.printf("บันทึกประชาชน %,d คน ใน %,d ms (%.0f คน/วินาที)%n",
+                    inserted, elapsed, inserted * 1000.0 / Math.max(1, elapsed));
+        } finally {
+            dbManager.close();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package tools;
+
+import controller.AssignmentController;
+import controller.CitizenController;
+import controller.ShelterController;
+import controller.StatisticsController;
+import database.DatabaseConfig;
+import database.DatabaseManager;
+import event.EventBus;
+import server.IntakeServer;
+import server.Json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ยิง request พร้อมกันหลาย client ไปที่ Intake API บน localhost แล้วรายงาน request/วินาที
+ * สัดส่วนงาน: ลงทะเบียน 20%, จัดสรรอัตโนมัติ 20%, อ่านข้อมูล 60%
+ *
+ * ถ้าไม่ระบุ url จะสร้างฐานข้อมูลชั่วคราว (DatasetGenerator) และเปิด IntakeServer ใน process เดียวกัน
+ *
+ * วิธีใช้: java -cp "bin;lib/*" tools.IntakeLoadTest [clients] [seconds] [url]
+ */
+public class IntakeLoadTest {
+    private static final int SHELTERS = 200;
+    private static final int CITIZENS = 20000;
+
+    // จำนวน request แยกตาม status code (ช่องสุดท้ายคือ error ฝั่ง client)
+    private static final int STATUS_SLOTS = 600;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        if (args.length > 2) {
+            run(args[2], clients, seconds);
+            return;
+        }
+
+        File dbFile = File.createTempFile("shelter-intake", ".db");
+        dbFile.delete();
+        DatabaseManager dbManager = new DatabaseManager(new DatabaseConfig(dbFile.getPath()));
+        IntakeServer server = null;
+        try {
+            new DatasetGenerator(dbManager, DatasetGenerator.DEFAULT_SEED).generate(SHELTERS, CITIZENS);
+
+            EventBus eventBus = new EventBus();
+            CitizenController citizenController = new CitizenController(dbManager, eventBus);
+            ShelterController shelterController = new ShelterController(dbManager, eventBus);
+            AssignmentController assignmentController = new AssignmentController(
+                    dbManager, shelterController, citizenController);
+            StatisticsController statisticsController = new StatisticsController(dbManager, eventBus);
+
+            server = new IntakeServer(citizenController, shelterController, assignmentController,
+                    statisticsController);
+            server.start(0);
+            System.out.println("เปิด server ที่ port " + server.getPort()
+                    + (server.isVirtualThreads() ? " (virtual threads)" : " (thread pool)"));
+
+            run("http://localhost:" + server.getPort(), clients, seconds);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+            dbManager.close();
+            for (String suffix : new String[] { "", "-wal", "-shm", ".journal" }) {
+                new File(dbFile.getPath() + suffix).delete();
+            }
+        }
+    }
+
+    private static void run(String baseUrl, int clients, int seconds) throws Exception {
+        Map<String, Object> stats = Json.parseObject(request(baseUrl + "/api/stats", null).body);
+        int knownCitizens = ((Number) stats.get("totalCitizens")).intValue();
+        if (knownCitizens == 0) {
+            throw new IllegalStateException("ไม่มีข้อมูลประชาชนบน server");
+        }
+
+        AtomicLongArray statusCounts = new AtomicLongArray(STATUS_SLOTS + 1);
+        AtomicLongArray latencyMicros = new AtomicLongArray(4); // เวลารวมอ่าน, เขียน, จำนวนอ่าน, เขียน
+        AtomicInteger registered = new AtomicInteger();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            final int client = c;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(client);
+                while (System.nanoTime() < deadline) {
+                    int op = random.nextInt(10);
+                    String url;
+                    String body = null;
+                    if (op < 2) {
+                        url = baseUrl + "/api/citizens";
+                        body = new Json.Builder()
+                                .field("name", "ผู้ลงทะเบียน " + client + "-" + registered.incrementAndGet())
+                                .field("age", 1 + random.nextInt(90))
+                                .field("healthCondition", random.nextInt(4) == 0 ? "เบาหวาน" : "ปกติ")
+                                .field("type", random.nextInt(10) == 0 ? "AT_RISK" : "GENERAL")
+                                .build();
+                    } else if (op < 4) {
+                        url = baseUrl + "/api/assignments";
+                        body = new Json.Builder().field("citizenId", 1 + random.nextInt(knownCitizens)).build();
+                    } else if (op < 8) {
+                        url = baseUrl + "/api/citizens/" + (1 + random.nextInt(knownCitizens));
+                    } else if (op < 9) {
+                        url = baseUrl + "/api/citizens?waiting=true&limit=20";
+                    } else {
+                        url = baseUrl + "/api/shelters?available=true";
+                    }
+
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = request(url, body).status;
+                    } catch (IOException e) {
+                        status = STATUS_SLOTS;
+                    }
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                    statusCounts.incrementAndGet(Math.min(status, STATUS_SLOTS));
+                    int slot = body != null ? 1 : 0;
+                    latencyMicros.addAndGet(slot, micros);
+                    latencyMicros.incrementAndGet(slot + 2);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        report(clients, seconds, statusCounts, latencyMicros);
+    }
+
+    private static void report(int clients, int seconds, AtomicLongArray statusCounts, AtomicLongArray latencyMicros) {
+        long reads = latencyMicros.get(2);
+        long writes = latencyMicros.get(3);
+        long total = reads + writes;
+        Map<Integer, Long> byStatus = new TreeMap<>();
+        for (int i = 0; i <= STATUS_SLOTS; i++) {
+            if (statusCounts.get(i) > 0) {
+                byStatus.put(i, statusCounts.get(i));
+            }
+        }
+
+        System.out.printf("clients=%d, %d วินาที: %,d requests (%.0f requests/วินาที)%n",
+                clients, seconds, total, total / (double) seconds);
+        System.out.printf("เฉลี่ย: อ่าน %.2f ms (%,d ครั้ง), เขียน %.2f ms (%,d ครั้ง)%n",
+                latencyMicros.get(0) / 1000.0 / Math.max(1, reads), reads,
+                latencyMicros.get(1) / 1000.0 / Math.max(1, writes), writes);
+        System.out.println("status: " + byStatus + (byStatus.containsKey(STATUS_SLOTS) ? " (" + STATUS_SLOTS
+                + " = เชื่อมต่อไม่สำเร็จ)" : ""));
+    }
+
+    // ==================== HTTP ====================
+
+    private static class Result {
+        final int status;
+        final String body;
+
+        Result(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static Result request(String url, String jsonBody) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(5000);
+        conn.setReadTimeout(30000);
+        if (jsonBody != null) {
+            byte[] bytes = jsonBody.getBytes(StandardCharsets.UTF_8);
+            conn.setRequestMethod("POST");
+            conn.setDoOutput(true);
+            conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            conn.setFixedLengthStreamingMode(bytes.length);
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(bytes);
+            }
+        }
+
+        int status = conn.getResponseCode();
+        // อ่าน body ให้หมดเพื่อให้ connection กลับไปใช้ซ้ำได้ (keep-alive)
+        InputStream in = status >= 400 ? conn.getErrorStream() : conn.getInputStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (in != null) {
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    body.write(buffer, 0, read);
+                }
+            } finally {
+                in.close();
+            }
+        }
+        return new Result(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
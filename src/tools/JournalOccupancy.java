@@ -0,0 +1,55 @@
+package tools;
+
+import database.DatabaseConfig;
+import database.DatabaseManager;
+import model.Shelter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * แสดงจำนวนคนของแต่ละศูนย์พักพิง ณ เวลาที่กำหนด โดยอ่านจาก journal ข้างไฟล์ฐานข้อมูล
+ *
+ * วิธีใช้: java -cp "bin;lib/*" tools.JournalOccupancy <db file> <yyyy-MM-ddTHH:mm[:ss]>
+ */
+public class JournalOccupancy {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("วิธีใช้: tools.JournalOccupancy <db file> <yyyy-MM-ddTHH:mm[:ss]>");
+            System.exit(1);
+        }
+
+        LocalDateTime time;
+        try {
+            time = LocalDateTime.parse(args[1]);
+        } catch (DateTimeParseException e) {
+            System.out.println("รูปแบบเวลาไม่ถูกต้อง: " + args[1]);
+            System.exit(1);
+            return;
+        }
+
+        DatabaseManager dbManager = new DatabaseManager(new DatabaseConfig(args[0]));
+        try {
+            long startNanos = System.nanoTime();
+            Map<Integer, Integer> occupancy = dbManager.getShelterOccupancyAt(
+                    time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            long micros = (System.nanoTime() - startNanos) / 1000;
+            if (occupancy == null) {
+                System.out.println("journal ไม่มีข้อมูลย้อนไปถึง " + time);
+                return;
+            }
+
+            System.out.printf("จำนวนคน ณ %s (อ่าน journal %,d µs)%n", time, micros);
+            for (Map.Entry<Integer, Integer> entry : new TreeMap<>(occupancy).entrySet()) {
+                Shelter shelter = dbManager.getShelterById(entry.getKey());
+                String name = shelter != null ? shelter.getName() : "(ไม่พบ)";
+                System.out.printf("  %5d  %-30s %,d%n", entry.getKey(), name, entry.getValue());
+            }
+        } finally {
+            dbManager.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package view;
+
+import javax.swing.*;
+import java.awt.*;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * ตัวช่วยของ View สำหรับเรียกเมธอด ...Async ของ controller
+ * - ส่งผลลัพธ์กลับมาทำงานบน EDT
+ * - แสดง progress bar ระหว่างที่ยังมีงานค้าง
+ * - แสดงข้อผิดพลาดด้วย dialog แบบเดียวกับที่ View ใช้อยู่
+ * ทุกเมธอดต้องเรียกจาก EDT
+ */
+class AsyncLoader {
+    private final Component owner;
+    private final JProgressBar progressBar;
+    private final Map<String, Integer> generations = new HashMap<>();
+    private int pending;
+
+    AsyncLoader(Component owner) {
+        this.owner = owner;
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setString("กำลังโหลดข้อมูล...");
+        progressBar.setVisible(false);
+    }
+
+    JProgressBar getProgressBar() {
+        return progressBar;
+    }
+
+    /**
+     * โหลดข้อมูลโดยใช้เฉพาะผลของคำขอล่าสุดต่อ key (ผลของคำขอเก่าที่เสร็จช้ากว่าจะถูกทิ้ง)
+     */
+    <T> void load(String key, Supplier<CompletableFuture<T>> request, Consumer<T> onSuccess) {
+        load(key, request, onSuccess, null);
+    }
+
+    /**
+     * โหลดรายการใหม่ทั้งหมดลง model โดยไม่ทับการเปลี่ยนแปลงทีละแถวที่มาถึงระหว่างรอผล
+     */
+    <T> void reload(String key, Supplier<CompletableFuture<List<T>>> request, ListTableModel<T> model) {
+        model.beginReload();
+        load(key, request, model::setRows, model::endReload);
+    }
+
+    private <T> void load(String key, Supplier<CompletableFuture<T>> request, Consumer<T> onSuccess,
+                          Runnable onDone) {
+        int generation = generations.containsKey(key) ? generations.get(key) + 1 : 1;
+        generations.put(key, generation);
+
+        run(request.get(), result -> {
+            if (generations.get(key) == generation) {
+                onSuccess.accept(result);
+            }
+        }, onDone);
+    }
+
+    <T> void run(CompletableFuture<T> future, Consumer<T> onSuccess) {
+        run(future, onSuccess, null);
+    }
+
+    /**
+     * รอผลของงานแล้วเรียก onSuccess บน EDT (onDone ถูกเรียกเสมอ ทั้งกรณีสำเร็จและผิดพลาด)
+     */
+    <T> void run(CompletableFuture<T> future, Consumer<T> onSuccess, Runnable onDone) {
+        taskStarted();
+        future.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            taskFinished();
+            try {
+                if (error == null) {
+                    onSuccess.accept(result);
+                } else {
+                    showError(unwrap(error));
+                }
+            } finally {
+                if (onDone != null) {
+                    onDone.run();
+                }
+            }
+        }));
+    }
+
+    private void taskStarted() {
+        if (pending++ == 0) {
+            progressBar.setVisible(true);
+            revalidateParent();
+        }
+    }
+
+    private void taskFinished() {
+        if (--pending == 0) {
+            progressBar.setVisible(false);
+            revalidateParent();
+        }
+    }
+
+    private void revalidateParent() {
+        Container parent = progressBar.getParent();
+        if (parent != null) {
+            parent.revalidate();
+        }
+    }
+
+    private void showError(Throwable error) {
+        if (error instanceof IllegalArgumentException) {
+            JOptionPane.showMessageDialog(owner,
+                    error.getMessage(),
+                    "ข้อมูลไม่ถูกต้อง",
+                    JOptionPane.WARNING_MESSAGE);
+        } else {
+            if (!(error instanceof SQLException)) {
+                error.printStackTrace();
+            }
+            JOptionPane.showMessageDialog(owner,
+                    "เกิดข้อผิดพลาด: " + error.getMessage(),
+                    "ข้อผิดพลาด",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
@@ -0,0 +1,184 @@
+package view;
+
+import controller.CitizenController;
+import model.Citizen;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TableModel ของรายการประชาชนที่โหลดข้อมูลทีละหน้าเฉพาะส่วนที่แสดงอยู่
+ * - ใช้ keyset pagination (id > lastId) จากหน้าก่อนหน้าที่อยู่ใน cache
+ * - เมื่อกระโดดข้ามหลายหน้า (ลาก scrollbar) จะหา id เริ่มต้นจาก index ก่อน
+ * - เก็บหน้าล่าสุดไว้ไม่เกิน MAX_CACHED_PAGES หน้า (LRU)
+ * - โหลดใน background: แถวที่ยังไม่มาถึงจะแสดง "กำลังโหลด..." แล้วอัพเดทเฉพาะแถวของหน้านั้น
+ */
+public class CitizenPageTableModel extends AbstractTableModel {
+    public static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 8;
+
+    private static final String[] COLUMN_NAMES = { "ID", "ชื่อ", "อายุ", "สภาวะสุขภาพ", "วันที่ลงทะเบียน", "ประเภท" };
+
+    private CitizenController citizenController;
+    private AsyncLoader loader;
+    private Citizen.CitizenType typeFilter;
+    private int rowCount;
+    // เพิ่มทุกครั้งที่ refresh: ผลของคำขอรุ่นก่อนหน้าจะถูกทิ้ง
+    private int generation;
+    private final Set<Integer> loadingPages = new HashSet<>();
+
+    private final Map<Integer, List<Citizen>> pages = new LinkedHashMap<Integer, List<Citizen>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Citizen>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+
+    CitizenPageTableModel(CitizenController citizenController, AsyncLoader loader) {
+        this.citizenController = citizenController;
+        this.loader = loader;
+    }
+
+    /**
+     * กรองตามประเภท (null = ทั้งหมด) แล้วโหลดใหม่
+     */
+    public void setTypeFilter(Citizen.CitizenType typeFilter) {
+        this.typeFilter = typeFilter;
+        refresh();
+    }
+
+    public Citizen.CitizenType getTypeFilter() {
+        return typeFilter;
+    }
+
+    /**
+     * ล้าง cache และนับจำนวนแถวใหม่ (หน้าที่แสดงจะโหลดเมื่อตารางต้องการ)
+     */
+    public void refresh() {
+        int requested = ++generation;
+        pages.clear();
+        loadingPages.clear();
+        loader.load("citizen-count", () -> citizenController.countCitizensAsync(typeFilter), count -> {
+            if (requested == generation) {
+                rowCount = count;
+                fireTableDataChanged();
+            }
+        });
+    }
+
+    /**
+     * เพิ่มประชาชนที่เพิ่งลงทะเบียนต่อท้ายตาราง (id ใหม่มากที่สุดเสมอ) โดยไม่ต้องโหลดใหม่
+     */
+    public void citizenAdded(Citizen citizen) {
+        if (typeFilter != null && citizen.getType() != typeFilter) {
+            return;
+        }
+
+        int row = rowCount++;
+        int pageIndex = row / PAGE_SIZE;
+        List<Citizen> page = pages.get(pageIndex);
+        if (page != null) {
+            if (page.size() == row % PAGE_SIZE) {
+                page.add(citizen);
+            } else {
+                // หน้าที่อยู่ใน cache ไม่ตรงกับจำนวนแถวแล้ว ให้โหลดใหม่เมื่อแสดง
+                pages.remove(pageIndex);
+            }
+        }
+        fireTableRowsInserted(row, row);
+    }
+
+    /**
+     * ประชาชนในแถวที่ระบุ (null ถ้ายังโหลดไม่เสร็จหรือไม่มีข้อมูล)
+     */
+    public Citizen getCitizenAt(int row) {
+        if (row < 0 || row >= rowCount) {
+            return null;
+        }
+        int pageIndex = row / PAGE_SIZE;
+        List<Citizen> page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return null;
+        }
+        int offset = row % PAGE_SIZE;
+        return offset < page.size() ? page.get(offset) : null;
+    }
+
+    private void requestPage(int pageIndex) {
+        if (!loadingPages.add(pageIndex)) {
+            return;
+        }
+
+        // เลื่อนต่อเนื่อง: ใช้ id สุดท้ายของหน้าก่อนหน้า ไม่เช่นนั้นให้ controller หาจาก offset (-1)
+        int afterId = pageIndex == 0 ? 0 : -1;
+        List<Citizen> previous = pages.get(pageIndex - 1);
+        if (previous != null && !previous.isEmpty()) {
+            afterId = previous.get(previous.size() - 1).getId();
+        }
+
+        int requested = generation;
+        loader.run(citizenController.getCitizenPageAsync(typeFilter, afterId, pageIndex * PAGE_SIZE, PAGE_SIZE),
+                page -> {
+                    if (requested != generation) {
+                        return;
+                    }
+                    pages.put(pageIndex, new ArrayList<>(page));
+                    int firstRow = pageIndex * PAGE_SIZE;
+                    int lastRow = Math.min(rowCount, firstRow + PAGE_SIZE) - 1;
+                    if (lastRow >= firstRow) {
+                        fireTableRowsUpdated(firstRow, lastRow);
+                    }
+                },
+                () -> {
+                    if (requested == generation) {
+                        loadingPages.remove(pageIndex);
+                    }
+                });
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Citizen citizen = getCitizenAt(rowIndex);
+        if (citizen == null) {
+            return columnIndex == 1 ? "กำลังโหลด..." : null;
+        }
+
+        switch (columnIndex) {
+            case 0:
+                return citizen.getId();
+            case 1:
+                return citizen.getName();
+            case 2:
+                return citizen.getAge();
+            case 3:
+                return citizen.getHealthCondition();
+            case 4:
+                return citizen.getRegistrationDate();
+            case 5:
+                return citizen.getType().getDisplayName();
+            default:
+                return null;
+        }
+    }
+}
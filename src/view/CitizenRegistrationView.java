@@ -1,13 +1,13 @@
 package view;
 
 import controller.CitizenController;
+import event.BulkDataChanged;
+import event.CitizenRegistered;
+import event.EventBus;
 import model.Citizen;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.sql.SQLException;
-import java.util.List;
 
 /**
  * View สำหรับลงทะเบียนและแสดงรายการประชาชน
@@ -21,18 +21,31 @@ public class CitizenRegistrationView extends JPanel {
     private JTextArea healthConditionArea;
     private JComboBox<String> typeComboBox;
     private JTable citizenTable;
-    private DefaultTableModel tableModel;
+    private CitizenPageTableModel tableModel;
     private JComboBox<String> filterComboBox;
+    private JButton registerButton;
+    private AsyncLoader loader;
 
     public CitizenRegistrationView(CitizenController citizenController) {
         this.citizenController = citizenController;
         initComponents();
+        subscribeEvents(citizenController.getEventBus());
         loadCitizens();
     }
 
+    /**
+     * เพิ่มแถวของผู้ลงทะเบียนใหม่ทันที ส่วนการนำเข้าหรือจัดสรรแบบกลุ่มจะโหลดใหม่ทั้งตาราง
+     */
+    private void subscribeEvents(EventBus eventBus) {
+        eventBus.subscribe(CitizenRegistered.class,
+                event -> SwingUtilities.invokeLater(() -> tableModel.citizenAdded(event.getCitizen())));
+        eventBus.subscribe(BulkDataChanged.class, event -> SwingUtilities.invokeLater(this::loadCitizens));
+    }
+
     private void initComponents() {
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        loader = new AsyncLoader(this);
 
         // ส่วนฟอร์มลงทะเบียน
         JPanel formPanel = createFormPanel();
@@ -41,6 +54,9 @@ public class CitizenRegistrationView extends JPanel {
         // ส่วนแสดงรายการประชาชน
         JPanel listPanel = createListPanel();
         add(listPanel, BorderLayout.CENTER);
+
+        // แสดงระหว่างรอฐานข้อมูล
+        add(loader.getProgressBar(), BorderLayout.SOUTH);
     }
 
     private JPanel createFormPanel() {
@@ -102,7 +118,7 @@ public class CitizenRegistrationView extends JPanel {
         // ปุ่มลงทะเบียน
         gbc.gridx = 1;
         gbc.gridy = 4;
-        JButton registerButton = new JButton("ลงทะเบียน");
+        registerButton = new JButton("ลงทะเบียน");
         registerButton.addActionListener(e -> registerCitizen());
         panel.add(registerButton, gbc);
 
@@ -132,14 +148,8 @@ public class CitizenRegistrationView extends JPanel {
 
         panel.add(filterPanel, BorderLayout.NORTH);
 
-        // ตาราง
-        String[] columnNames = { "ID", "ชื่อ", "อายุ", "สภาวะสุขภาพ", "วันที่ลงทะเบียน", "ประเภท" };
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // ตาราง (โหลดทีละหน้าเฉพาะส่วนที่แสดง)
+        tableModel = new CitizenPageTableModel(citizenController, loader);
         citizenTable = new JTable(tableModel);
         citizenTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
@@ -150,25 +160,24 @@ public class CitizenRegistrationView extends JPanel {
     }
 
     private void registerCitizen() {
-        try {
-            String name = nameField.getText().trim();
-            int age = (Integer) ageSpinner.getValue();
-            String healthCondition = healthConditionArea.getText().trim();
-
-            // แปลง String เป็น CitizenType
-            String selectedType = (String) typeComboBox.getSelectedItem();
-            Citizen.CitizenType type = Citizen.CitizenType.GENERAL;
-
-            for (Citizen.CitizenType ct : Citizen.CitizenType.values()) {
-                if (ct.getDisplayName().equals(selectedType)) {
-                    type = ct;
-                    break;
-                }
+        String name = nameField.getText().trim();
+        int age = (Integer) ageSpinner.getValue();
+        String healthCondition = healthConditionArea.getText().trim();
+
+        // แปลง String เป็น CitizenType
+        String selectedType = (String) typeComboBox.getSelectedItem();
+        Citizen.CitizenType type = Citizen.CitizenType.GENERAL;
+
+        for (Citizen.CitizenType ct : Citizen.CitizenType.values()) {
+            if (ct.getDisplayName().equals(selectedType)) {
+                type = ct;
+                break;
             }
+        }
 
-            // ลงทะเบียน
-            int id = citizenController.registerCitizen(name, age, healthCondition, type);
-
+        // ลงทะเบียนใน background (ปิดปุ่มไว้กันกดซ้ำ)
+        registerButton.setEnabled(false);
+        loader.run(citizenController.registerCitizenAsync(name, age, healthCondition, type), id -> {
             JOptionPane.showMessageDialog(this,
                     "ลงทะเบียนสำเร็จ! ID: " + id,
                     "สำเร็จ",
@@ -179,69 +188,25 @@ public class CitizenRegistrationView extends JPanel {
             ageSpinner.setValue(30);
             healthConditionArea.setText("");
             typeComboBox.setSelectedIndex(0);
-
-            // Reload table
-            loadCitizens();
-
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this,
-                    "เกิดข้อผิดพลาด: " + ex.getMessage(),
-                    "ข้อผิดพลาด",
-                    JOptionPane.ERROR_MESSAGE);
-        } catch (IllegalArgumentException ex) {
-            JOptionPane.showMessageDialog(this,
-                    ex.getMessage(),
-                    "ข้อมูลไม่ถูกต้อง",
-                    JOptionPane.WARNING_MESSAGE);
-        }
+        }, () -> registerButton.setEnabled(true));
     }
 
     private void loadCitizens() {
-        tableModel.setRowCount(0);
-        List<Citizen> citizens = citizenController.getAllCitizens();
-
-        for (Citizen citizen : citizens) {
-            Object[] row = {
-                    citizen.getId(),
-                    citizen.getName(),
-                    citizen.getAge(),
-                    citizen.getHealthCondition(),
-                    citizen.getRegistrationDate(),
-                    citizen.getType().getDisplayName()
-            };
-            tableModel.addRow(row);
-        }
+        tableModel.refresh();
     }
 
     private void filterCitizens() {
-        tableModel.setRowCount(0);
         String selectedFilter = (String) filterComboBox.getSelectedItem();
 
-        List<Citizen> citizens;
-
-        if ("ทั้งหมด".equals(selectedFilter)) {
-            citizens = citizenController.getAllCitizens();
-        } else {
-            Citizen.CitizenType type = null;
-            for (Citizen.CitizenType ct : Citizen.CitizenType.values()) {
-                if (ct.getDisplayName().equals(selectedFilter)) {
-                    type = ct;
-                    break;
-                }
+        Citizen.CitizenType type = null;
+        for (Citizen.CitizenType ct : Citizen.CitizenType.values()) {
+            if (ct.getDisplayName().equals(selectedFilter)) {
+                type = ct;
+                break;
             }
-            citizens = citizenController.getCitizensByType(type);
         }
 
-        for (Citizen citizen : citizens) {
-            Object[] row = {
-                    citizen.getId(),
-                    citizen.getName(),
-                    citizen.getAge(),
-                    citizen.getHealthCondition(),
-                    citizen.getRegistrationDate(),
-                    citizen.getType().getDisplayName()
-            };
-            tableModel.addRow(row);
-        }
+        // null = ทั้งหมด
+        tableModel.setTypeFilter(type);
     }
 }
@@ -0,0 +1,192 @@
+package view;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * TableModel ของรายการ object ที่อัพเดทได้ทีละแถว (แจ้งตารางเฉพาะแถวที่เปลี่ยน)
+ * แต่ละแถวมี key (เช่น id) ไม่ซ้ำกัน การเพิ่ม/แก้/ลบตาม key จึงทำซ้ำได้โดยไม่เกิดแถวซ้ำ
+ * การหาแถวตาม key ไม่ไล่ทั้งรายการ: ถ้ามี order ใช้ binary search (comparator ต้องแยกแถวที่ key ต่างกันได้เสมอ)
+ * ถ้าไม่มี order ใช้ map key -> ตำแหน่ง
+ * ต้องใช้งานบน EDT เท่านั้น
+ */
+class ListTableModel<T> extends AbstractTableModel {
+    /**
+     * ค่าของคอลัมน์สำหรับแถวหนึ่ง
+     */
+    interface ColumnValues<T> {
+        Object get(T row, int column);
+    }
+
+    private final String[] columnNames;
+    private final ToIntFunction<T> keyOf;
+    private final ColumnValues<T> values;
+    // null = เพิ่มต่อท้าย, ไม่ null = แทรกตามลำดับ (รายการต้องเรียงตาม comparator นี้อยู่แล้ว)
+    private final Comparator<T> order;
+    private List<T> rows = new ArrayList<>();
+    // key -> แถว (ใช้เมื่อมี order เพื่อหาตำแหน่งด้วย binary search)
+    private final Map<Integer, T> rowsByKey = new HashMap<>();
+    // key -> ตำแหน่ง (ใช้เมื่อไม่มี order แถวใหม่ต่อท้ายเสมอ ตำแหน่งเลื่อนเฉพาะตอนลบ)
+    private final Map<Integer, Integer> indexByKey = new HashMap<>();
+    // จำนวนการโหลดใหม่ที่ยังรอผล และการเปลี่ยนแปลงทีละแถวที่เกิดระหว่างนั้น (null = ไม่มีการโหลดค้าง)
+    private int reloads;
+    private List<Runnable> changesDuringReload;
+
+    ListTableModel(String[] columnNames, ToIntFunction<T> keyOf, Comparator<T> order, ColumnValues<T> values) {
+        this.columnNames = columnNames;
+        this.keyOf = keyOf;
+        this.order = order;
+        this.values = values;
+    }
+
+    /**
+     * เริ่มโหลดข้อมูลใหม่: เก็บการเปลี่ยนแปลงทีละแถวที่มาถึงหลังจากนี้ไว้ใช้ซ้ำกับผลที่โหลดได้
+     * ต้องเรียก endReload() เมื่อการโหลดจบเสมอ (ทั้งสำเร็จและผิดพลาด)
+     */
+    void beginReload() {
+        if (reloads++ == 0) {
+            changesDuringReload = new ArrayList<>();
+        }
+    }
+
+    void endReload() {
+        if (--reloads == 0) {
+            changesDuringReload = null;
+        }
+    }
+
+    /**
+     * แทนที่ข้อมูลทั้งหมด (โหลดใหม่)
+     * ถ้ามีการเปลี่ยนแปลงทีละแถวหลังเริ่มโหลด จะใช้ซ้ำทับผลที่ได้ เพราะผลอาจอ่านมาก่อนการเปลี่ยนแปลงนั้น
+     * (add/update/removeKey ตาม key ทำซ้ำได้ จึงไม่มีผลเสียถ้าผลที่โหลดมีการเปลี่ยนแปลงนั้นอยู่แล้ว)
+     */
+    void setRows(List<T> newRows) {
+        rows = new ArrayList<>(newRows);
+        rowsByKey.clear();
+        indexByKey.clear();
+        for (int i = 0; i < rows.size(); i++) {
+            indexed(rows.get(i), i);
+        }
+        fireTableDataChanged();
+
+        List<Runnable> changes = changesDuringReload;
+        if (changes != null) {
+            changesDuringReload = null;
+            changes.forEach(Runnable::run);
+            changesDuringReload = changes;
+        }
+    }
+
+    T getRow(int index) {
+        return rows.get(index);
+    }
+
+    int indexOfKey(int key) {
+        if (order == null) {
+            Integer index = indexByKey.get(key);
+            return index != null ? index : -1;
+        }
+        T row = rowsByKey.get(key);
+        return row != null ? Collections.binarySearch(rows, row, order) : -1;
+    }
+
+    /**
+     * เพิ่มแถว (ถ้ามี key นี้อยู่แล้วจะแทนที่แทน)
+     */
+    void add(T row) {
+        if (indexOfKey(keyOf.applyAsInt(row)) >= 0) {
+            update(row);
+            return;
+        }
+        recordChange(() -> add(row));
+
+        int index = rows.size();
+        if (order != null) {
+            int found = Collections.binarySearch(rows, row, order);
+            index = found >= 0 ? found : -found - 1;
+        }
+        rows.add(index, row);
+        indexed(row, index);
+        fireTableRowsInserted(index, index);
+    }
+
+    /**
+     * แทนที่แถวที่มี key เดียวกัน (ไม่มีผลถ้าไม่พบ)
+     */
+    void update(T row) {
+        recordChange(() -> update(row));
+        int key = keyOf.applyAsInt(row);
+        int index = indexOfKey(key);
+        if (index < 0) {
+            return;
+        }
+        if (order != null && order.compare(rows.get(index), row) != 0) {
+            // ตำแหน่งตามลำดับเปลี่ยน: ลบแล้วแทรกใหม่
+            removeKey(key);
+            add(row);
+            return;
+        }
+        rows.set(index, row);
+        indexed(row, index);
+        fireTableRowsUpdated(index, index);
+    }
+
+    /**
+     * ลบแถวตาม key (ไม่มีผลถ้าไม่พบ)
+     */
+    void removeKey(int key) {
+        recordChange(() -> removeKey(key));
+        int index = indexOfKey(key);
+        if (index >= 0) {
+            rows.remove(index);
+            rowsByKey.remove(key);
+            if (order == null) {
+                indexByKey.remove(key);
+                for (int i = index; i < rows.size(); i++) {
+                    indexByKey.put(keyOf.applyAsInt(rows.get(i)), i);
+                }
+            }
+            fireTableRowsDeleted(index, index);
+        }
+    }
+
+    private void indexed(T row, int index) {
+        if (order == null) {
+            indexByKey.put(keyOf.applyAsInt(row), index);
+        } else {
+            rowsByKey.put(keyOf.applyAsInt(row), row);
+        }
+    }
+
+    private void recordChange(Runnable change) {
+        if (changesDuringReload != null) {
+            changesDuringReload.add(change);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return values.get(rows.get(rowIndex), columnIndex);
+    }
+}
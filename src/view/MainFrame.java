@@ -2,10 +2,16 @@ package view;
 
 import controller.AssignmentController;
 import controller.CitizenController;
+import controller.ImportController;
+import controller.ImportReport;
 import controller.ShelterController;
+import controller.StatisticsController;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Main Frame สำหรับแอปพลิเคชัน
@@ -14,15 +20,22 @@ public class MainFrame extends JFrame {
     private CitizenController citizenController;
     private ShelterController shelterController;
     private AssignmentController assignmentController;
+    private ImportController importController;
+    private StatisticsController statisticsController;
 
     private JTabbedPane tabbedPane;
+    private AsyncLoader loader;
 
     public MainFrame(CitizenController citizenController,
             ShelterController shelterController,
-            AssignmentController assignmentController) {
+            AssignmentController assignmentController,
+            ImportController importController,
+            StatisticsController statisticsController) {
         this.citizenController = citizenController;
         this.shelterController = shelterController;
         this.assignmentController = assignmentController;
+        this.importController = importController;
+        this.statisticsController = statisticsController;
 
         initComponents();
     }
@@ -46,11 +59,15 @@ public class MainFrame extends JFrame {
         tabbedPane.addTab("จัดสรรที่พักพิง", new ImageIcon(), assignmentView, "จัดสรรศูนย์พักพิงให้กับประชาชน");
 
         // View 3: รายงานผล
-        ReportView reportView = new ReportView(citizenController, assignmentController);
+        ReportView reportView = new ReportView(citizenController, assignmentController, statisticsController);
         tabbedPane.addTab("รายงานผล", new ImageIcon(), reportView, "รายงานผลการจัดสรร");
 
         add(tabbedPane, BorderLayout.CENTER);
 
+        // แสดงระหว่างนำเข้าข้อมูล
+        loader = new AsyncLoader(this);
+        add(loader.getProgressBar(), BorderLayout.SOUTH);
+
         // สร้าง Menu Bar
         createMenuBar();
     }
@@ -61,6 +78,16 @@ public class MainFrame extends JFrame {
         // Menu: ไฟล์
         JMenu fileMenu = new JMenu("ไฟล์");
 
+        JMenuItem importCitizensItem = new JMenuItem("นำเข้าประชาชนจาก CSV...");
+        importCitizensItem.addActionListener(e -> importCsv(true));
+        fileMenu.add(importCitizensItem);
+
+        JMenuItem importSheltersItem = new JMenuItem("นำเข้าศูนย์พักพิงจาก CSV...");
+        importSheltersItem.addActionListener(e -> importCsv(false));
+        fileMenu.add(importSheltersItem);
+
+        fileMenu.addSeparator();
+
         JMenuItem exitItem = new JMenuItem("ออกจากโปรแกรม");
         exitItem.addActionListener(e -> System.exit(0));
         fileMenu.add(exitItem);
@@ -79,6 +106,36 @@ public class MainFrame extends JFrame {
         setJMenuBar(menuBar);
     }
 
+    private void importCsv(boolean citizens) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV (UTF-8)", "csv"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File file = chooser.getSelectedFile();
+        CompletableFuture<ImportReport> future = citizens
+                ? importController.importCitizensCsvAsync(file)
+                : importController.importSheltersCsvAsync(file);
+
+        loader.run(future, report -> {
+            StringBuilder message = new StringBuilder(report.toString());
+            int shown = 0;
+            for (ImportReport.RowError error : report.getErrors()) {
+                if (shown++ == 20) {
+                    message.append("\n... และอีก ").append(report.getErrors().size() - 20).append(" แถว");
+                    break;
+                }
+                message.append("\n").append(error);
+            }
+
+            JOptionPane.showMessageDialog(this,
+                    message.toString(),
+                    "ผลการนำเข้า",
+                    report.getErrors().isEmpty() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+        });
+    }
+
     private void showAboutDialog() {
         String message = "ระบบจัดสรรที่พักพิงในสถานการณ์ฉุกเฉิน\n\n" +
                 "พัฒนาโดยใช้ MVC Design Pattern\n" +
@@ -2,12 +2,18 @@ package view;
 
 import controller.AssignmentController;
 import controller.CitizenController;
+import controller.StatisticsController;
+import event.BulkDataChanged;
+import event.CitizenAssigned;
+import event.CitizenRegistered;
+import event.EventBus;
 import model.Assignment;
 import model.Citizen;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -16,25 +22,48 @@ import java.util.List;
 public class ReportView extends JPanel {
     private CitizenController citizenController;
     private AssignmentController assignmentController;
+    private StatisticsController statisticsController;
 
     // UI Components
     private JTable assignedTable;
-    private DefaultTableModel assignedTableModel;
+    private ListTableModel<Assignment> assignedTableModel;
     private JTable unassignedTable;
-    private DefaultTableModel unassignedTableModel;
+    private ListTableModel<Citizen> unassignedTableModel;
     private JLabel summaryLabel;
+    private AsyncLoader loader;
 
     public ReportView(CitizenController citizenController,
-            AssignmentController assignmentController) {
+            AssignmentController assignmentController,
+            StatisticsController statisticsController) {
         this.citizenController = citizenController;
         this.assignmentController = assignmentController;
+        this.statisticsController = statisticsController;
         initComponents();
+        subscribeEvents(citizenController.getEventBus());
         loadReport();
     }
 
+    /**
+     * อัพเดทรายงานเฉพาะแถวที่เปลี่ยนตามเหตุการณ์จาก controller
+     */
+    private void subscribeEvents(EventBus eventBus) {
+        eventBus.subscribe(CitizenRegistered.class, event -> SwingUtilities.invokeLater(() -> {
+            unassignedTableModel.add(event.getCitizen());
+            showSummary();
+        }));
+        eventBus.subscribe(CitizenAssigned.class, event -> SwingUtilities.invokeLater(() -> {
+            Assignment assignment = event.getAssignment();
+            unassignedTableModel.removeKey(assignment.getCitizenId());
+            assignedTableModel.add(assignment);
+            showSummary();
+        }));
+        eventBus.subscribe(BulkDataChanged.class, event -> SwingUtilities.invokeLater(this::loadReport));
+    }
+
     private void initComponents() {
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        loader = new AsyncLoader(this);
 
         // ส่วนสรุป
         JPanel summaryPanel = createSummaryPanel();
@@ -57,8 +86,12 @@ public class ReportView extends JPanel {
         // ปุ่มรีเฟรช
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
         JButton refreshButton = new JButton("รีเฟรชรายงาน");
-        refreshButton.addActionListener(e -> loadReport());
+        refreshButton.addActionListener(e -> {
+            loadReport();
+            updateSummary();
+        });
         buttonPanel.add(refreshButton);
+        buttonPanel.add(loader.getProgressBar());
 
         add(buttonPanel, BorderLayout.SOUTH);
     }
@@ -79,12 +112,25 @@ public class ReportView extends JPanel {
         panel.setBorder(BorderFactory.createTitledBorder("ประชาชนที่ได้รับการจัดสรรแล้ว"));
 
         String[] columns = { "ID", "ชื่อ", "อายุ", "ประเภท", "ศูนย์พักพิง", "วันที่จัดสรร", "หมายเหตุ" };
-        assignedTableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+        assignedTableModel = new ListTableModel<>(columns, Assignment::getCitizenId, null, (assignment, column) -> {
+            Citizen citizen = assignment.getCitizen();
+            switch (column) {
+                case 0:
+                    return citizen.getId();
+                case 1:
+                    return citizen.getName();
+                case 2:
+                    return citizen.getAge();
+                case 3:
+                    return citizen.getType().getDisplayName();
+                case 4:
+                    return assignment.getShelter() != null ? assignment.getShelter().getName() : "N/A";
+                case 5:
+                    return assignment.getAssignmentDate();
+                default:
+                    return assignment.getNotes();
             }
-        };
+        });
         assignedTable = new JTable(assignedTableModel);
         assignedTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
@@ -99,12 +145,28 @@ public class ReportView extends JPanel {
         panel.setBorder(BorderFactory.createTitledBorder("ประชาชนที่ยังไม่ได้รับการจัดสรร (ตกค้าง)"));
 
         String[] columns = { "ID", "ชื่อ", "อายุ", "สภาวะสุขภาพ", "ประเภท", "วันที่ลงทะเบียน", "ลำดับความสำคัญ" };
-        unassignedTableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        unassignedTableModel = new ListTableModel<>(columns, Citizen::getId, Comparator.comparingInt(Citizen::getId),
+                (citizen, column) -> {
+                    switch (column) {
+                        case 0:
+                            return citizen.getId();
+                        case 1:
+                            return citizen.getName();
+                        case 2:
+                            return citizen.getAge();
+                        case 3:
+                            return citizen.getHealthCondition() != null &&
+                                    !citizen.getHealthCondition().isEmpty()
+                                            ? citizen.getHealthCondition()
+                                            : "ไม่ระบุ";
+                        case 4:
+                            return citizen.getType().getDisplayName();
+                        case 5:
+                            return citizen.getRegistrationDate();
+                        default:
+                            return citizen.isPriorityGroup() ? "⚠ สูง (เด็ก/ผู้สูงอายุ)" : "ปกติ";
+                    }
+                });
         unassignedTable = new JTable(unassignedTableModel);
         unassignedTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
@@ -120,72 +182,46 @@ public class ReportView extends JPanel {
     private void loadReport() {
         loadAssignedCitizens();
         loadUnassignedCitizens();
-        updateSummary();
+        showSummary();
     }
 
     private void loadAssignedCitizens() {
-        assignedTableModel.setRowCount(0);
-        List<Assignment> assignments = assignmentController.getAllAssignmentsWithDetails();
+        loader.reload("assigned", () -> assignmentController.getAllAssignmentsWithDetailsAsync()
+                .thenApply(ReportView::withCitizen), assignedTableModel);
+    }
 
+    private static List<Assignment> withCitizen(List<Assignment> assignments) {
+        List<Assignment> rows = new ArrayList<>();
         for (Assignment assignment : assignments) {
-            Citizen citizen = assignment.getCitizen();
-            if (citizen != null) {
-                Object[] row = {
-                        citizen.getId(),
-                        citizen.getName(),
-                        citizen.getAge(),
-                        citizen.getType().getDisplayName(),
-                        assignment.getShelter() != null ? assignment.getShelter().getName() : "N/A",
-                        assignment.getAssignmentDate(),
-                        assignment.getNotes()
-                };
-                assignedTableModel.addRow(row);
+            if (assignment.getCitizen() != null) {
+                rows.add(assignment);
             }
         }
+        return rows;
     }
 
     private void loadUnassignedCitizens() {
-        unassignedTableModel.setRowCount(0);
-        List<Citizen> unassignedCitizens = citizenController.getUnassignedCitizens();
-
-        for (Citizen citizen : unassignedCitizens) {
-            String priority = citizen.isPriorityGroup() ? "⚠ สูง (เด็ก/ผู้สูงอายุ)" : "ปกติ";
-            String healthStatus = citizen.getHealthCondition() != null &&
-                    !citizen.getHealthCondition().isEmpty()
-                            ? citizen.getHealthCondition()
-                            : "ไม่ระบุ";
-
-            Object[] row = {
-                    citizen.getId(),
-                    citizen.getName(),
-                    citizen.getAge(),
-                    healthStatus,
-                    citizen.getType().getDisplayName(),
-                    citizen.getRegistrationDate(),
-                    priority
-            };
-            unassignedTableModel.addRow(row);
-        }
+        loader.reload("unassigned", citizenController::getUnassignedCitizensAsync, unassignedTableModel);
     }
 
     private void updateSummary() {
-        int totalCitizens = citizenController.getAllCitizens().size();
-        int assignedCount = assignedTableModel.getRowCount();
-        int unassignedCount = unassignedTableModel.getRowCount();
+        // นับใหม่จากฐานข้อมูลเฉพาะตอนกดรีเฟรช (ปกติอ่านจากตัวนับที่อัพเดทตามเหตุการณ์)
+        loader.load("summary", statisticsController::rebuildAsync, v -> showSummary());
+    }
+
+    /**
+     * แสดงสรุปจากตัวนับของ StatisticsController (ไม่ query ฐานข้อมูล)
+     */
+    private void showSummary() {
+        int totalCitizens = statisticsController.getTotalCitizens();
+        int assignedCount = statisticsController.getAssignedCitizens();
+        int unassignedCount = statisticsController.getUnassignedCitizens();
+        int priorityCount = statisticsController.getUnassignedPriorityCitizens();
 
         double assignedPercentage = totalCitizens > 0
                 ? (assignedCount * 100.0 / totalCitizens)
                 : 0;
 
-        // นับกลุ่มความสำคัญในคนที่ยังไม่ได้รับการจัดสรร
-        int priorityCount = 0;
-        List<Citizen> unassignedCitizens = citizenController.getUnassignedCitizens();
-        for (Citizen citizen : unassignedCitizens) {
-            if (citizen.isPriorityGroup()) {
-                priorityCount++;
-            }
-        }
-
         String summaryText = String.format(
                 "<html><center>" +
                         "<b>สรุป:</b> ประชาชนทั้งหมด %d คน | " +
@@ -1,16 +1,22 @@
 package view;
 
 import controller.AssignmentController;
+import controller.BulkAssignmentEngine;
+import controller.BulkAssignmentResult;
 import controller.CitizenController;
 import controller.ShelterController;
+import event.BulkDataChanged;
+import event.CitizenAssigned;
+import event.CitizenRegistered;
+import event.EventBus;
+import event.OccupancyChanged;
+import event.ShelterAdded;
 import model.Assignment;
 import model.Citizen;
 import model.Shelter;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.sql.SQLException;
 import java.util.List;
 
 /**
@@ -23,11 +29,14 @@ public class ShelterAssignmentView extends JPanel {
 
     // UI Components
     private JTable shelterTable;
-    private DefaultTableModel shelterTableModel;
+    private ListTableModel<Shelter> shelterTableModel;
     private JTable unassignedCitizenTable;
-    private DefaultTableModel unassignedTableModel;
+    private ListTableModel<Citizen> unassignedTableModel;
     private JTable assignedTable;
-    private DefaultTableModel assignedTableModel;
+    private ListTableModel<Assignment> assignedTableModel;
+    private JButton assignAllBtn;
+    private JProgressBar bulkProgressBar;
+    private AsyncLoader loader;
 
     public ShelterAssignmentView(ShelterController shelterController,
             CitizenController citizenController,
@@ -36,12 +45,31 @@ public class ShelterAssignmentView extends JPanel {
         this.citizenController = citizenController;
         this.assignmentController = assignmentController;
         initComponents();
+        subscribeEvents(shelterController.getEventBus());
         loadData();
     }
 
+    /**
+     * อัพเดทตารางเฉพาะแถวที่เปลี่ยนตามเหตุการณ์จาก controller (รวมถึงจาก Tab อื่น)
+     */
+    private void subscribeEvents(EventBus eventBus) {
+        eventBus.subscribe(ShelterAdded.class, event ->
+                SwingUtilities.invokeLater(() -> shelterTableModel.add(event.getShelter())));
+        eventBus.subscribe(OccupancyChanged.class, event ->
+                SwingUtilities.invokeLater(() -> shelterTableModel.update(event.getShelter())));
+        eventBus.subscribe(CitizenRegistered.class, event ->
+                SwingUtilities.invokeLater(() -> unassignedTableModel.add(event.getCitizen())));
+        eventBus.subscribe(CitizenAssigned.class, event -> SwingUtilities.invokeLater(() -> {
+            unassignedTableModel.removeKey(event.getAssignment().getCitizenId());
+            assignedTableModel.add(event.getAssignment());
+        }));
+        eventBus.subscribe(BulkDataChanged.class, event -> SwingUtilities.invokeLater(this::loadData));
+    }
+
     private void initComponents() {
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        loader = new AsyncLoader(this);
 
         // แบ่ง layout เป็น 2 ส่วน: ซ้าย (ศูนย์พักพิงและประชาชน) และขวา (การจัดสรร)
         JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT);
@@ -56,6 +84,9 @@ public class ShelterAssignmentView extends JPanel {
         splitPane.setRightComponent(rightPanel);
 
         add(splitPane, BorderLayout.CENTER);
+
+        // แสดงระหว่างรอฐานข้อมูล
+        add(loader.getProgressBar(), BorderLayout.SOUTH);
     }
 
     private JPanel createLeftPanel() {
@@ -66,12 +97,24 @@ public class ShelterAssignmentView extends JPanel {
         shelterPanel.setBorder(BorderFactory.createTitledBorder("ศูนย์พักพิง - รายละเอียด"));
 
         String[] shelterColumns = { "ID", "ชื่อ", "จำนวนคน", "ความจุ", "ที่ว่าง", "ความเสี่ยง", "สถานะ" };
-        shelterTableModel = new DefaultTableModel(shelterColumns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+        shelterTableModel = new ListTableModel<>(shelterColumns, Shelter::getId, null, (shelter, column) -> {
+            switch (column) {
+                case 0:
+                    return shelter.getId();
+                case 1:
+                    return shelter.getName();
+                case 2:
+                    return shelter.getCurrentOccupancy();
+                case 3:
+                    return shelter.getMaxCapacity();
+                case 4:
+                    return shelter.getAvailableSpace();
+                case 5:
+                    return shelter.getRiskLevel().getDisplayName();
+                default:
+                    return shelter.isFull() ? "เต็ม" : "ว่าง";
             }
-        };
+        });
         shelterTable = new JTable(shelterTableModel);
         shelterTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
@@ -89,12 +132,24 @@ public class ShelterAssignmentView extends JPanel {
         unassignedPanel.setBorder(BorderFactory.createTitledBorder("ประชาชนที่รอการจัดสรร"));
 
         String[] citizenColumns = { "ID", "ชื่อ", "อายุ", "ประเภท", "สุขภาพ", "ลำดับความสำคัญ" };
-        unassignedTableModel = new DefaultTableModel(citizenColumns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // เรียงตามลำดับความสำคัญเหมือน query: ผู้ลงทะเบียนใหม่ถูกแทรกในตำแหน่งที่ถูกต้อง
+        unassignedTableModel = new ListTableModel<>(citizenColumns, Citizen::getId,
+                CitizenController.PRIORITY_ORDER, (citizen, column) -> {
+                    switch (column) {
+                        case 0:
+                            return citizen.getId();
+                        case 1:
+                            return citizen.getName();
+                        case 2:
+                            return citizen.getAge();
+                        case 3:
+                            return citizen.getType().getDisplayName();
+                        case 4:
+                            return citizen.hasHealthRisk() ? "เสี่ยง" : "ปกติ";
+                        default:
+                            return citizen.isPriorityGroup() ? "สูง" : "ปกติ";
+                    }
+                });
         unassignedCitizenTable = new JTable(unassignedTableModel);
         unassignedCitizenTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
@@ -116,6 +171,19 @@ public class ShelterAssignmentView extends JPanel {
         refreshCitizenBtn.addActionListener(e -> loadUnassignedCitizens());
         btnPanel.add(refreshCitizenBtn);
 
+        assignAllBtn = new JButton("จัดสรรทั้งหมด");
+        assignAllBtn.addActionListener(e -> assignAll());
+        btnPanel.add(assignAllBtn);
+
+        JCheckBox continuousCheckBox = new JCheckBox("จัดสรรอัตโนมัติต่อเนื่อง");
+        continuousCheckBox.addActionListener(e -> setContinuousAssignment(continuousCheckBox.isSelected()));
+        btnPanel.add(continuousCheckBox);
+
+        bulkProgressBar = new JProgressBar();
+        bulkProgressBar.setStringPainted(true);
+        bulkProgressBar.setVisible(false);
+        btnPanel.add(bulkProgressBar);
+
         unassignedPanel.add(btnPanel, BorderLayout.SOUTH);
 
         panel.add(unassignedPanel);
@@ -128,12 +196,20 @@ public class ShelterAssignmentView extends JPanel {
         panel.setBorder(BorderFactory.createTitledBorder("การจัดสรรปัจจุบัน"));
 
         String[] assignedColumns = { "ID", "ชื่อประชาชน", "ศูนย์พักพิง", "วันที่", "หมายเหตุ" };
-        assignedTableModel = new DefaultTableModel(assignedColumns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+        assignedTableModel = new ListTableModel<>(assignedColumns, Assignment::getId, null, (assignment, column) -> {
+            switch (column) {
+                case 0:
+                    return assignment.getId();
+                case 1:
+                    return assignment.getCitizen() != null ? assignment.getCitizen().getName() : "N/A";
+                case 2:
+                    return assignment.getShelter() != null ? assignment.getShelter().getName() : "N/A";
+                case 3:
+                    return assignment.getAssignmentDate();
+                default:
+                    return assignment.getNotes();
             }
-        };
+        });
         assignedTable = new JTable(assignedTableModel);
         assignedTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
@@ -154,58 +230,16 @@ public class ShelterAssignmentView extends JPanel {
     }
 
     private void loadShelters() {
-        shelterTableModel.setRowCount(0);
-        List<Shelter> shelters = shelterController.getAllShelters();
-
-        for (Shelter shelter : shelters) {
-            String status = shelter.isFull() ? "เต็ม" : "ว่าง";
-            Object[] row = {
-                    shelter.getId(),
-                    shelter.getName(),
-                    shelter.getCurrentOccupancy(),
-                    shelter.getMaxCapacity(),
-                    shelter.getAvailableSpace(),
-                    shelter.getRiskLevel().getDisplayName(),
-                    status
-            };
-            shelterTableModel.addRow(row);
-        }
+        loader.reload("shelters", shelterController::getAllSheltersAsync, shelterTableModel);
     }
 
     private void loadUnassignedCitizens() {
-        unassignedTableModel.setRowCount(0);
-        List<Citizen> citizens = citizenController.getCitizensSortedByPriority();
-
-        for (Citizen citizen : citizens) {
-            String priority = citizen.isPriorityGroup() ? "สูง" : "ปกติ";
-            String healthStatus = citizen.hasHealthRisk() ? "เสี่ยง" : "ปกติ";
-
-            Object[] row = {
-                    citizen.getId(),
-                    citizen.getName(),
-                    citizen.getAge(),
-                    citizen.getType().getDisplayName(),
-                    healthStatus,
-                    priority
-            };
-            unassignedTableModel.addRow(row);
-        }
+        loader.reload("unassigned", citizenController::getCitizensSortedByPriorityAsync, unassignedTableModel);
     }
 
     private void loadAssignments() {
-        assignedTableModel.setRowCount(0);
-        List<Assignment> assignments = assignmentController.getAllAssignmentsWithDetails();
-
-        for (Assignment assignment : assignments) {
-            Object[] row = {
-                    assignment.getId(),
-                    assignment.getCitizen() != null ? assignment.getCitizen().getName() : "N/A",
-                    assignment.getShelter() != null ? assignment.getShelter().getName() : "N/A",
-                    assignment.getAssignmentDate(),
-                    assignment.getNotes()
-            };
-            assignedTableModel.addRow(row);
-        }
+        loader.reload("assignments", assignmentController::getAllAssignmentsWithDetailsAsync,
+                assignedTableModel);
     }
 
     private void autoAssign() {
@@ -218,24 +252,14 @@ public class ShelterAssignmentView extends JPanel {
             return;
         }
 
-        int citizenId = (Integer) unassignedTableModel.getValueAt(selectedRow, 0);
-
-        try {
-            int assignmentId = assignmentController.autoAssignShelter(citizenId);
+        int citizenId = unassignedTableModel.getRow(selectedRow).getId();
 
+        loader.run(assignmentController.autoAssignShelterAsync(citizenId), assignmentId -> {
             JOptionPane.showMessageDialog(this,
                     "จัดสรรสำเร็จ! Assignment ID: " + assignmentId,
                     "สำเร็จ",
                     JOptionPane.INFORMATION_MESSAGE);
-
-            loadData();
-
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this,
-                    "เกิดข้อผิดพลาด: " + ex.getMessage(),
-                    "ข้อผิดพลาด",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 
     private void manualAssign() {
@@ -250,29 +274,66 @@ public class ShelterAssignmentView extends JPanel {
             return;
         }
 
-        int citizenId = (Integer) unassignedTableModel.getValueAt(selectedCitizenRow, 0);
-        int shelterId = (Integer) shelterTableModel.getValueAt(selectedShelterRow, 0);
-
-        try {
-            int assignmentId = assignmentController.assignShelter(citizenId, shelterId);
+        int citizenId = unassignedTableModel.getRow(selectedCitizenRow).getId();
+        int shelterId = shelterTableModel.getRow(selectedShelterRow).getId();
 
+        loader.run(assignmentController.assignShelterAsync(citizenId, shelterId), assignmentId -> {
             JOptionPane.showMessageDialog(this,
                     "จัดสรรสำเร็จ! Assignment ID: " + assignmentId,
                     "สำเร็จ",
                     JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
 
-            loadData();
+    /**
+     * จัดสรรประชาชนที่รอทั้งหมดตามลำดับความสำคัญ (ทำงานใน background)
+     */
+    private void assignAll() {
+        BulkAssignmentEngine engine = assignmentController.getBulkAssignmentEngine();
+        assignAllBtn.setEnabled(false);
+        bulkProgressBar.setValue(0);
+        bulkProgressBar.setVisible(true);
+        revalidate();
+
+        new SwingWorker<BulkAssignmentResult, Integer>() {
+            @Override
+            protected BulkAssignmentResult doInBackground() {
+                return engine.assignAll((processed, total) ->
+                        publish(total == 0 ? 100 : processed * 100 / total));
+            }
 
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this,
-                    "เกิดข้อผิดพลาด: " + ex.getMessage(),
-                    "ข้อผิดพลาด",
-                    JOptionPane.ERROR_MESSAGE);
-        } catch (IllegalArgumentException ex) {
-            JOptionPane.showMessageDialog(this,
-                    ex.getMessage(),
-                    "ข้อมูลไม่ถูกต้อง",
-                    JOptionPane.WARNING_MESSAGE);
+            @Override
+            protected void process(List<Integer> chunks) {
+                bulkProgressBar.setValue(chunks.get(chunks.size() - 1));
+            }
+
+            @Override
+            protected void done() {
+                assignAllBtn.setEnabled(true);
+                bulkProgressBar.setVisible(false);
+                try {
+                    BulkAssignmentResult result = get();
+                    JOptionPane.showMessageDialog(ShelterAssignmentView.this,
+                            result.toString(),
+                            "สรุปผลการจัดสรร",
+                            result.isComplete() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(ShelterAssignmentView.this,
+                            "เกิดข้อผิดพลาด: " + ex.getMessage(),
+                            "ข้อผิดพลาด",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private void setContinuousAssignment(boolean enabled) {
+        BulkAssignmentEngine engine = assignmentController.getBulkAssignmentEngine();
+        if (enabled) {
+            // ตรวจรายชื่อที่รอทุก 5 วินาที (ตารางอัพเดทตาม CitizenAssigned/OccupancyChanged)
+            engine.startContinuous(5000, null);
+        } else {
+            engine.stopContinuous();
         }
     }
 }